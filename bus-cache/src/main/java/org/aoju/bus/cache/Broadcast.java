@@ -0,0 +1,65 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache;
+
+/**
+ * 缓存失效广播,用于多级缓存中各节点本地缓存的失效同步
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public interface Broadcast {
+
+    /**
+     * 向所有节点广播缓存失效
+     *
+     * @param source 发送方标识
+     * @param keys   失效的键
+     */
+    void publish(String source, String... keys);
+
+    /**
+     * 订阅缓存失效消息
+     *
+     * @param listener 监听器
+     */
+    void subscribe(Listener listener);
+
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * 收到缓存失效消息
+         *
+         * @param source 发送方标识
+         * @param keys   失效的键
+         */
+        void onInvalid(String source, String[] keys);
+
+    }
+
+}
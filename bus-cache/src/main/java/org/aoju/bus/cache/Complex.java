@@ -65,6 +65,12 @@ public class Complex {
     @Named("multiCacheReader")
     private AbstractReader multiCacheReader;
 
+    @Inject
+    private SingleFlight singleFlight;
+
+    @Inject
+    private CacheMetrics metrics;
+
     public static boolean isSwitchOn(Context config, Cached cached, Method method, Object[] args) {
         return doIsSwitchOn(config.getCache() == Context.Switch.ON,
                 cached.expire(), cached.condition(),
@@ -94,7 +100,7 @@ public class Complex {
             return false;
         }
 
-        return (boolean) SpelCalculator.calcSpelValueWithContext(condition, ArgNameGenerator.getArgNames(method), args, true);
+        return (boolean) SpelCalculator.calcSpelValueWithContext(method, condition, ArgNameGenerator.getArgNames(method), args, true);
     }
 
     public Object read(CachedGet cachedGet, Method method, ProxyChain baseInvoker) throws Throwable {
@@ -159,6 +165,20 @@ public class Complex {
         return result;
     }
 
+    /**
+     * @return 缓存未命中时的合并加载统计
+     */
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * @return 缓存命中率、加载耗时等进程内指标
+     */
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
     public void write() {
         // TODO on @CachedPut
     }
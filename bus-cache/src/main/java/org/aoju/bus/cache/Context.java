@@ -46,6 +46,9 @@ public class Context {
     // 是否开启缓存防击穿
     private Switch prevent;
 
+    // 命中率统计写入Hitting的周期(毫秒)
+    private long flushInterval = 10_000L;
+
     public static Context newConfig(Map<String, CacheX> caches) {
         Context config = new Context();
         config.caches = caches;
@@ -75,6 +78,14 @@ public class Context {
         this.hitting = hitting;
     }
 
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
     public Switch getCache() {
         return cache;
     }
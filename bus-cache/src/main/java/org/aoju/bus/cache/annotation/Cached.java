@@ -64,4 +64,17 @@ public @interface Cached {
      */
     int expire() default CacheExpire.FOREVER;
 
+    /**
+     * @return refresh-ahead (soft expire) time, same time unit as {@code expire},
+     * once elapsed the cached value is still returned while it is reloaded asynchronously,
+     * {@link CacheExpire#NO} disables refresh-ahead
+     */
+    int refresh() default CacheExpire.NO;
+
+    /**
+     * @return when {@code true}, concurrent cache misses on the same generated key
+     * share one in-flight {@code Method} invocation instead of each calling through
+     */
+    boolean singleFlight() default false;
+
 }
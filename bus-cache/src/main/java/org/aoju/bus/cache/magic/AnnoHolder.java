@@ -43,6 +43,7 @@ public class AnnoHolder {
     private String cache;
     private String prefix;
     private int expire;
+    private int refresh;
 
     // @CacheKey
     private Map<Integer, CacheKey> cacheKeyMap;
@@ -51,16 +52,21 @@ public class AnnoHolder {
 
     private String id;
 
+    private boolean singleFlight;
+
     private AnnoHolder(Method method,
-                       String cache, String prefix, int expire,
-                       Map<Integer, CacheKey> cacheKeyMap, int multiIndex, String id) {
+                       String cache, String prefix, int expire, int refresh,
+                       Map<Integer, CacheKey> cacheKeyMap, int multiIndex, String id,
+                       boolean singleFlight) {
         this.method = method;
         this.cache = cache;
         this.prefix = prefix;
         this.expire = expire;
+        this.refresh = refresh;
         this.cacheKeyMap = cacheKeyMap;
         this.multiIndex = multiIndex;
         this.id = id;
+        this.singleFlight = singleFlight;
     }
 
     public Method getMethod() {
@@ -79,6 +85,14 @@ public class AnnoHolder {
         return expire;
     }
 
+    public int getRefresh() {
+        return refresh;
+    }
+
+    public boolean isRefresh() {
+        return refresh > 0;
+    }
+
     public Map<Integer, CacheKey> getCacheKeyMap() {
         return cacheKeyMap;
     }
@@ -95,6 +109,10 @@ public class AnnoHolder {
         return id;
     }
 
+    public boolean isSingleFlight() {
+        return singleFlight;
+    }
+
     public static class Builder {
 
         private Method method;
@@ -105,12 +123,16 @@ public class AnnoHolder {
 
         private int expire;
 
+        private int refresh = CacheExpire.NO;
+
         private Map<Integer, CacheKey> cacheKeyMap;
 
         private int multiIndex = -1;
 
         private String id;
 
+        private boolean singleFlight;
+
         private Builder(Method method) {
             this.method = method;
         }
@@ -134,6 +156,11 @@ public class AnnoHolder {
             return this;
         }
 
+        public Builder setRefresh(int refresh) {
+            this.refresh = refresh;
+            return this;
+        }
+
         public Builder setMultiIndex(int multiIndex) {
             this.multiIndex = multiIndex;
             return this;
@@ -144,13 +171,18 @@ public class AnnoHolder {
             return this;
         }
 
+        public Builder setSingleFlight(boolean singleFlight) {
+            this.singleFlight = singleFlight;
+            return this;
+        }
+
         public Builder setCacheKeyMap(Map<Integer, CacheKey> cacheKeyMap) {
             this.cacheKeyMap = cacheKeyMap;
             return this;
         }
 
         public AnnoHolder build() {
-            return new AnnoHolder(method, cache, prefix, expire, cacheKeyMap, multiIndex, id);
+            return new AnnoHolder(method, cache, prefix, expire, refresh, cacheKeyMap, multiIndex, id, singleFlight);
         }
     }
 
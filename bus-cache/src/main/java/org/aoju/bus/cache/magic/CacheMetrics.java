@@ -0,0 +1,365 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.magic;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.Context;
+import org.aoju.bus.cache.Hitting;
+import org.aoju.bus.cache.metric.TinyLfuCache;
+import org.aoju.bus.cache.support.PatternGenerator;
+import org.aoju.bus.core.annotation.Inject;
+import org.aoju.bus.core.annotation.Singleton;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+import org.aoju.bus.logger.Logger;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内缓存指标统计
+ * <p>
+ * 读写路径只对分段计数器({@link LongAdder})累加, 不加锁也不产生新对象;
+ * 命中数与请求数按固定周期汇总增量后写入{@link Hitting}, 以降低持久化端的写入频率
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+@Singleton
+public class CacheMetrics {
+
+    /**
+     * 加载耗时直方图的桶数, 第i个桶统计耗时在[2^(i-1), 2^i)微秒之间的加载
+     */
+    private static final int BUCKETS = 24;
+
+    private final ConcurrentMap<Method, Stats> methods = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Stats> patterns = new ConcurrentHashMap<>();
+
+    private final Context config;
+
+    private Hitting hitting;
+
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public CacheMetrics(Context config) {
+        this.config = config;
+    }
+
+    @Inject(optional = true)
+    public synchronized void setHitting(Hitting hitting) {
+        this.hitting = hitting;
+        if (null == scheduler) {
+            long interval = config.getFlushInterval();
+            scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("cache-metrics-", true));
+            scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取方法所属分组的计数器, 同一分组模板的方法共享同一计数器
+     *
+     * @param annoHolder 注解信息
+     * @return 计数器
+     */
+    public Stats stats(AnnoHolder annoHolder) {
+        Stats stats = methods.get(annoHolder.getMethod());
+        if (null == stats) {
+            String pattern = PatternGenerator.generatePattern(annoHolder);
+            stats = methods.computeIfAbsent(annoHolder.getMethod(),
+                    (method) -> patterns.computeIfAbsent(pattern, Stats::new));
+        }
+        return stats;
+    }
+
+    /**
+     * 执行一次回源加载, 并记录进行中的加载数、耗时及失败次数
+     *
+     * @param stats  计数器
+     * @param loader 加载逻辑
+     * @return 加载结果
+     * @throws Throwable 加载过程中抛出的异常
+     */
+    Object load(Stats stats, AbstractReader.ThrowableSupplier<Object> loader) throws Throwable {
+        stats.inFlight.increment();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = loader.get();
+            success = true;
+            return result;
+        } finally {
+            stats.inFlight.decrement();
+            stats.recordLoad(System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * @return 各分组的指标快照
+     */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> result = new LinkedHashMap<>();
+        patterns.forEach((pattern, stats) -> result.put(pattern, stats.snapshot()));
+        return result;
+    }
+
+    /**
+     * @param pattern 分组模板
+     * @return 指定分组的指标快照, 分组不存在时返回null
+     */
+    public Snapshot snapshot(String pattern) {
+        Stats stats = patterns.get(pattern);
+        return null == stats ? null : stats.snapshot();
+    }
+
+    /**
+     * @return 各缓存实现因容量不足淘汰的条目数, 仅统计支持淘汰计数的实现
+     */
+    public Map<String, Long> getEvictions() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (null != config.getCaches()) {
+            for (Map.Entry<String, CacheX> entry : config.getCaches().entrySet()) {
+                if (entry.getValue() instanceof TinyLfuCache) {
+                    result.put(entry.getKey(), ((TinyLfuCache) entry.getValue()).evictionCount());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将上次刷写后新增的命中数与请求数写入{@link Hitting}
+     */
+    public synchronized void flush() {
+        if (null == hitting) {
+            return;
+        }
+        for (Stats stats : patterns.values()) {
+            try {
+                long hits = stats.hits.sum();
+                long requests = stats.requests.sum();
+                incr(stats.pattern, hits - stats.flushedHits, true);
+                stats.flushedHits = hits;
+                incr(stats.pattern, requests - stats.flushedRequests, false);
+                stats.flushedRequests = requests;
+            } catch (Throwable e) {
+                Logger.error(e, "flush cache hitting of pattern [{}] error", stats.pattern);
+            }
+        }
+    }
+
+    private void incr(String pattern, long delta, boolean hit) {
+        while (delta > 0) {
+            int count = (int) Math.min(delta, Integer.MAX_VALUE);
+            if (hit) {
+                hitting.hitIncr(pattern, count);
+            } else {
+                hitting.reqIncr(pattern, count);
+            }
+            delta -= count;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void tearDown() {
+        if (null != scheduler) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        flush();
+    }
+
+    /**
+     * 单个分组的计数器
+     */
+    public static final class Stats {
+
+        private final String pattern;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+        private final LongAdder loadFailures = new LongAdder();
+        private final LongAdder loadNanos = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder[] latency = new LongAdder[BUCKETS];
+
+        /**
+         * 上次刷写时的累计值, 仅在flush时访问
+         */
+        private long flushedHits;
+        private long flushedRequests;
+
+        Stats(String pattern) {
+            this.pattern = pattern;
+            for (int i = 0; i < BUCKETS; i++) {
+                latency[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * 记录一次缓存读取
+         *
+         * @param hit   命中数
+         * @param total 请求数
+         */
+        public void record(int hit, int total) {
+            if (hit != 0) {
+                hits.add(hit);
+            }
+            if (total != 0) {
+                requests.add(total);
+            }
+        }
+
+        void recordLoad(long nanos, boolean success) {
+            loads.increment();
+            loadNanos.add(nanos);
+            if (!success) {
+                loadFailures.increment();
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            latency[bucket].increment();
+        }
+
+        Snapshot snapshot() {
+            long[] histogram = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = latency[i].sum();
+            }
+            return new Snapshot(pattern, hits.sum(), requests.sum(), loads.sum(), loadFailures.sum(),
+                    loadNanos.sum(), inFlight.sum(), histogram);
+        }
+    }
+
+    /**
+     * 指标快照
+     */
+    public static final class Snapshot {
+
+        private final String pattern;
+        private final long hitCount;
+        private final long requestCount;
+        private final long loadCount;
+        private final long loadFailureCount;
+        private final long totalLoadTime;
+        private final long inFlight;
+        private final long[] histogram;
+
+        Snapshot(String pattern, long hitCount, long requestCount, long loadCount, long loadFailureCount,
+                 long totalLoadTime, long inFlight, long[] histogram) {
+            this.pattern = pattern;
+            this.hitCount = hitCount;
+            this.requestCount = requestCount;
+            this.loadCount = loadCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadTime = totalLoadTime;
+            this.inFlight = inFlight;
+            this.histogram = histogram;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        public double getHitRate() {
+            return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+        }
+
+        public long getLoadCount() {
+            return loadCount;
+        }
+
+        public long getLoadFailureCount() {
+            return loadFailureCount;
+        }
+
+        /**
+         * @return 平均加载耗时(纳秒)
+         */
+        public double getAverageLoadPenalty() {
+            return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+        }
+
+        /**
+         * @return 当前正在进行中的加载数
+         */
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return 加载耗时直方图, 第i个元素为耗时在[2^(i-1), 2^i)微秒之间的加载次数
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * 按直方图估算加载耗时分位值
+         *
+         * @param percentile 分位, 取值(0, 1]
+         * @return 耗时上界(微秒)
+         */
+        public long getLoadPercentile(double percentile) {
+            long total = 0;
+            for (long count : histogram) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= threshold) {
+                    return 1L << i;
+                }
+            }
+            return 1L << (histogram.length - 1);
+        }
+    }
+
+}
@@ -26,12 +26,10 @@
 package org.aoju.bus.cache.magic;
 
 import org.aoju.bus.cache.Context;
-import org.aoju.bus.cache.Hitting;
 import org.aoju.bus.cache.Manage;
 import org.aoju.bus.cache.support.*;
 import org.aoju.bus.core.annotation.Inject;
 import org.aoju.bus.core.annotation.Singleton;
-import org.aoju.bus.logger.Logger;
 import org.aoju.bus.proxy.invoker.ProxyChain;
 
 import java.util.*;
@@ -51,8 +49,14 @@ public class MultiCacheReader extends AbstractReader {
     @Inject
     private Context config;
 
-    @Inject(optional = true)
-    private Hitting baseHitting;
+    @Inject
+    private CacheMetrics metrics;
+
+    @Inject
+    private SingleFlight singleFlight;
+
+    @Inject
+    private RefreshAhead refreshAhead;
 
     private static Map mergeMap(Class<?> resultMapType,
                                 Map proceedEntryValueMap,
@@ -127,7 +131,14 @@ public class MultiCacheReader extends AbstractReader {
         // request cache
         Set<String> keys = key2MultiEntry.keySet();
         CacheKeys cacheKeys = cacheManager.readBatch(annoHolder.getCache(), keys);
-        doRecord(cacheKeys, annoHolder);
+        metrics.stats(annoHolder).record(cacheKeys.getHitKeyMap().size(),
+                cacheKeys.getHitKeyMap().size() + cacheKeys.getMissKeySet().size());
+
+        // 超过软过期时间的key: 先返回旧值, 再异步刷新
+        Set<String> staleKeys = unwrapRefresh(cacheKeys.getHitKeyMap());
+        if (annoHolder.isRefresh() && !staleKeys.isEmpty()) {
+            doRefresh(annoHolder, baseInvoker, pair, staleKeys);
+        }
 
         Object result;
         // have miss keys : part hit || all not hit
@@ -146,16 +157,42 @@ public class MultiCacheReader extends AbstractReader {
     private Object handlePartHit(ProxyChain baseInvoker, CacheKeys cacheKeys,
                                  AnnoHolder annoHolder, MethodHolder methodHolder,
                                  Map[] pair, boolean needWrite) throws Throwable {
+        if (!annoHolder.isSingleFlight()) {
+            return doHandlePartHit(baseInvoker, cacheKeys.getMissKeySet(), cacheKeys.getHitKeyMap(),
+                    annoHolder, methodHolder, pair, needWrite, null);
+        }
 
-        Map<Object, String> multiEntry2Key = pair[0];
+        // 与其他调用中正在加载的key合并, 只为当前调用独占的key执行方法
         Map<String, Object> key2MultiEntry = pair[1];
+        SingleFlight.Flight flight = singleFlight.join(annoHolder.getCache(), cacheKeys.getMissKeySet(),
+                PatternGenerator.generatePattern(annoHolder));
+        Map<String, Object> hitKeyValueMap = new LinkedHashMap<>(cacheKeys.getHitKeyMap());
+        try {
+            Set<String> ownedKeys = flight.getOwnedKeys();
+            if (ownedKeys.isEmpty()) {
+                hitKeyValueMap.putAll(flight.awaitJoined());
+                return handleFullHit(baseInvoker, hitKeyValueMap, methodHolder, key2MultiEntry);
+            }
+            return doHandlePartHit(baseInvoker, ownedKeys, hitKeyValueMap,
+                    annoHolder, methodHolder, pair, needWrite, flight);
+        } catch (Throwable e) {
+            flight.fail(e);
+            throw e;
+        } finally {
+            flight.release();
+        }
+    }
+
+    private Object doHandlePartHit(ProxyChain baseInvoker, Set<String> missKeys, Map<String, Object> hitKeyValueMap,
+                                   AnnoHolder annoHolder, MethodHolder methodHolder,
+                                   Map[] pair, boolean needWrite, SingleFlight.Flight flight) throws Throwable {
 
-        Set<String> missKeys = cacheKeys.getMissKeySet();
-        Map<String, Object> hitKeyValueMap = cacheKeys.getHitKeyMap();
+        Map<Object, String> multiEntry2Key = pair[0];
+        Map<String, Object> key2MultiEntry = pair[1];
 
         // 用未命中的keys调用方法
         Object[] missArgs = toMissArgs(missKeys, key2MultiEntry, baseInvoker.getArguments(), annoHolder.getMultiIndex());
-        Object proceed = doLogInvoke(() -> baseInvoker.proceed(missArgs));
+        Object proceed = metrics.load(metrics.stats(annoHolder), () -> doLogInvoke(() -> baseInvoker.proceed(missArgs)));
 
         Object result;
         if (proceed != null) {
@@ -165,10 +202,13 @@ public class MultiCacheReader extends AbstractReader {
                 Map proceedEntryValueMap = (Map) proceed;
 
                 // 为了兼容@CachedGet注解, 客户端缓存
-                if (needWrite) {
+                if (needWrite || flight != null) {
                     // 将方法调用返回的map转换成key_value_map写入Cache
                     Map<String, Object> keyValueMap = KeyValue.mapToKeyValue(proceedEntryValueMap, missKeys, multiEntry2Key, config.getPrevent());
-                    cacheManager.writeBatch(annoHolder.getCache(), keyValueMap, annoHolder.getExpire());
+                    if (needWrite) {
+                        doWriteBatch(annoHolder, keyValueMap);
+                    }
+                    hitKeyValueMap = completeFlight(flight, keyValueMap, hitKeyValueMap);
                 }
                 // 将方法调用返回的map与从Cache中读取的key_value_map合并返回
                 result = mergeMap(returnType, proceedEntryValueMap, key2MultiEntry, hitKeyValueMap);
@@ -176,16 +216,20 @@ public class MultiCacheReader extends AbstractReader {
                 Collection proceedCollection = asCollection(proceed, returnType);
 
                 // 为了兼容@CachedGet注解, 客户端缓存
-                if (needWrite) {
+                if (needWrite || flight != null) {
                     // 将方法调用返回的collection转换成key_value_map写入Cache
                     Map<String, Object> keyValueMap = KeyValue.collectionToKeyValue(proceedCollection, annoHolder.getId(), missKeys, multiEntry2Key, config.getPrevent());
-                    cacheManager.writeBatch(annoHolder.getCache(), keyValueMap, annoHolder.getExpire());
+                    if (needWrite) {
+                        doWriteBatch(annoHolder, keyValueMap);
+                    }
+                    hitKeyValueMap = completeFlight(flight, keyValueMap, hitKeyValueMap);
                 }
                 // 将方法调用返回的collection与从Cache中读取的key_value_map合并返回
                 Collection resultCollection = mergeCollection(returnType, proceedCollection, hitKeyValueMap);
                 result = asType(resultCollection, returnType);
             }
         } else {
+            hitKeyValueMap = completeFlight(flight, Collections.emptyMap(), hitKeyValueMap);
             // read as full shooting
             result = handleFullHit(baseInvoker, hitKeyValueMap, methodHolder, key2MultiEntry);
         }
@@ -193,6 +237,64 @@ public class MultiCacheReader extends AbstractReader {
         return result;
     }
 
+    /**
+     * 唤醒等待当前调用的请求, 再将其他调用加载的结果并入命中集合
+     */
+    private Map<String, Object> completeFlight(SingleFlight.Flight flight, Map<String, Object> keyValueMap,
+                                               Map<String, Object> hitKeyValueMap) throws Throwable {
+        if (flight == null) {
+            return hitKeyValueMap;
+        }
+        flight.complete(keyValueMap);
+        hitKeyValueMap.putAll(flight.awaitJoined());
+        return hitKeyValueMap;
+    }
+
+    private Set<String> unwrapRefresh(Map<String, Object> hitKeyValueMap) {
+        Set<String> staleKeys = new LinkedHashSet<>();
+        for (Map.Entry<String, Object> entry : hitKeyValueMap.entrySet()) {
+            Object value = entry.getValue();
+            if (RefreshObjects.isRefresh(value)) {
+                if (RefreshObjects.isStale(value)) {
+                    staleKeys.add(entry.getKey());
+                }
+                entry.setValue(RefreshObjects.unwrap(value));
+            }
+        }
+        return staleKeys;
+    }
+
+    private void doRefresh(AnnoHolder annoHolder, ProxyChain baseInvoker, Map[] pair, Set<String> staleKeys) {
+        Map<Object, String> multiEntry2Key = pair[0];
+        Map<String, Object> key2MultiEntry = pair[1];
+        Object[] args = baseInvoker.getArguments().clone();
+
+        refreshAhead.submit(annoHolder.getCache(), staleKeys, (keys) -> {
+            Set<String> refreshKeys = new LinkedHashSet<>(keys);
+            Object[] refreshArgs = toMissArgs(refreshKeys, key2MultiEntry, args, annoHolder.getMultiIndex());
+            Object proceed = doLogInvoke(() -> baseInvoker.proceed(refreshArgs));
+            if (proceed == null) {
+                return;
+            }
+
+            Class<?> returnType = proceed.getClass();
+            Map<String, Object> keyValueMap;
+            if (Map.class.isAssignableFrom(returnType)) {
+                keyValueMap = KeyValue.mapToKeyValue((Map) proceed, refreshKeys, multiEntry2Key, config.getPrevent());
+            } else {
+                keyValueMap = KeyValue.collectionToKeyValue(asCollection(proceed, returnType), annoHolder.getId(), refreshKeys, multiEntry2Key, config.getPrevent());
+            }
+            doWriteBatch(annoHolder, keyValueMap);
+        });
+    }
+
+    private void doWriteBatch(AnnoHolder annoHolder, Map<String, Object> keyValueMap) {
+        if (annoHolder.isRefresh()) {
+            keyValueMap = RefreshObjects.wrap(keyValueMap, annoHolder.getRefresh());
+        }
+        cacheManager.writeBatch(annoHolder.getCache(), keyValueMap, annoHolder.getExpire());
+    }
+
     private Object asType(Collection collection, Class<?> returnType) {
         if (Collection.class.isAssignableFrom(returnType)) {
             return collection;
@@ -250,22 +352,4 @@ public class MultiCacheReader extends AbstractReader {
         return args;
     }
 
-    private void doRecord(CacheKeys cacheKeys, AnnoHolder annoHolder) {
-        Set<String> missKeys = cacheKeys.getMissKeySet();
-
-        // 计数
-        int hitCount = cacheKeys.getHitKeyMap().size();
-        int totalCount = hitCount + missKeys.size();
-        Logger.info("multi cache hit rate: {}/{}, missed keys: {}",
-                hitCount, totalCount, missKeys);
-
-        if (this.baseHitting != null) {
-            // 分组模板
-            String pattern = PatternGenerator.generatePattern(annoHolder);
-
-            this.baseHitting.hitIncr(pattern, hitCount);
-            this.baseHitting.reqIncr(pattern, totalCount);
-        }
-    }
-
 }
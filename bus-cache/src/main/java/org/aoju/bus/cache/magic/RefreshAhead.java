@@ -0,0 +1,143 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.magic;
+
+import org.aoju.bus.core.annotation.Singleton;
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.thread.ExecutorBuilder;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+import org.aoju.bus.logger.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存预刷新: 缓存值超过软过期时间后, 在有界线程池中异步重新加载,
+ * 同一缓存key同一时刻只会有一个刷新任务
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+@Singleton
+public class RefreshAhead {
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor;
+
+    public RefreshAhead() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.executor = ExecutorBuilder.create()
+                .setCorePoolSize(threads)
+                .setMaxPoolSize(threads)
+                .setKeepAliveTime(60, TimeUnit.SECONDS)
+                .setAllowCoreThreadTimeOut(true)
+                .useArrayBlockingQueue(QUEUE_CAPACITY)
+                .setThreadFactory(new NamedThreadFactory("cache-refresh-", true))
+                .build();
+    }
+
+    private static String refreshKey(String cache, String key) {
+        return cache + Symbol.C_COLON + key;
+    }
+
+    /**
+     * 提交单个key的刷新任务, 该key已在刷新中或线程池已满时直接忽略
+     *
+     * @param cache 缓存实现名称
+     * @param key   缓存key
+     * @param task  刷新逻辑
+     */
+    public void submit(String cache, String key, AbstractReader.ThrowableSupplier<?> task) {
+        String refreshKey = refreshKey(cache, key);
+        if (refreshing.add(refreshKey)) {
+            execute(task, refreshKey);
+        }
+    }
+
+    /**
+     * 提交一批key的刷新任务, 只刷新当前未在刷新中的key
+     *
+     * @param cache 缓存实现名称
+     * @param keys  缓存key
+     * @param task  以实际需要刷新的key为参数的刷新逻辑
+     */
+    public void submit(String cache, Collection<String> keys, RefreshTask task) {
+        List<String> claimed = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (refreshing.add(refreshKey(cache, key))) {
+                claimed.add(key);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        String[] refreshKeys = claimed.stream().map(key -> refreshKey(cache, key)).toArray(String[]::new);
+        execute(() -> {
+            task.refresh(claimed);
+            return null;
+        }, refreshKeys);
+    }
+
+    private void execute(AbstractReader.ThrowableSupplier<?> task, String... refreshKeys) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.get();
+                } catch (Throwable e) {
+                    Logger.error("refresh cache failed, keys: {}", refreshKeys, e);
+                } finally {
+                    release(refreshKeys);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(refreshKeys);
+            Logger.warn("refresh cache rejected, keys: {}", (Object) refreshKeys);
+        }
+    }
+
+    private void release(String... refreshKeys) {
+        for (String refreshKey : refreshKeys) {
+            refreshing.remove(refreshKey);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RefreshTask {
+        void refresh(Collection<String> keys) throws Throwable;
+    }
+
+}
@@ -26,14 +26,13 @@
 package org.aoju.bus.cache.magic;
 
 import org.aoju.bus.cache.Context;
-import org.aoju.bus.cache.Hitting;
 import org.aoju.bus.cache.Manage;
 import org.aoju.bus.cache.support.KeyGenerator;
 import org.aoju.bus.cache.support.PatternGenerator;
 import org.aoju.bus.cache.support.PreventObjects;
+import org.aoju.bus.cache.support.RefreshObjects;
 import org.aoju.bus.core.annotation.Inject;
 import org.aoju.bus.core.annotation.Singleton;
-import org.aoju.bus.logger.Logger;
 import org.aoju.bus.proxy.invoker.ProxyChain;
 
 /**
@@ -50,15 +49,21 @@ public class SingleCacheReader extends AbstractReader {
     @Inject
     private Context config;
 
-    @Inject(optional = true)
-    private Hitting baseHitting;
+    @Inject
+    private CacheMetrics metrics;
+
+    @Inject
+    private SingleFlight singleFlight;
+
+    @Inject
+    private RefreshAhead refreshAhead;
 
     @Override
     public Object read(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker, boolean needWrite) throws Throwable {
         String key = KeyGenerator.generateSingleKey(annoHolder, baseInvoker.getArguments());
         Object readResult = cacheManager.readSingle(annoHolder.getCache(), key);
 
-        doRecord(readResult, key, annoHolder);
+        metrics.stats(annoHolder).record(readResult == null ? 0 : 1, 1);
         // 命中
         if (readResult != null) {
             // 是放击穿对象
@@ -66,10 +71,24 @@ public class SingleCacheReader extends AbstractReader {
                 return null;
             }
 
-            return readResult;
+            // 超过软过期时间: 先返回旧值, 再异步刷新
+            if (annoHolder.isRefresh() && RefreshObjects.isStale(readResult)) {
+                doRefresh(annoHolder, baseInvoker, key);
+            }
+
+            return RefreshObjects.unwrap(readResult);
         }
 
-        Object invokeResult = doLogInvoke(baseInvoker::proceed);
+        if (annoHolder.isSingleFlight()) {
+            return singleFlight.execute(annoHolder.getCache(), key, PatternGenerator.generatePattern(annoHolder),
+                    () -> doLoad(annoHolder, methodHolder, baseInvoker, key, needWrite));
+        }
+        return doLoad(annoHolder, methodHolder, baseInvoker, key, needWrite);
+    }
+
+    private Object doLoad(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker,
+                          String key, boolean needWrite) throws Throwable {
+        Object invokeResult = metrics.load(metrics.stats(annoHolder), () -> doLogInvoke(baseInvoker::proceed));
         if (invokeResult != null && methodHolder.getInnerReturnType() == null) {
             methodHolder.setInnerReturnType(invokeResult.getClass());
         }
@@ -79,7 +98,7 @@ public class SingleCacheReader extends AbstractReader {
         }
 
         if (invokeResult != null) {
-            cacheManager.writeSingle(annoHolder.getCache(), key, invokeResult, annoHolder.getExpire());
+            doWrite(annoHolder, key, invokeResult);
             return invokeResult;
         }
 
@@ -90,16 +109,22 @@ public class SingleCacheReader extends AbstractReader {
         return null;
     }
 
-    private void doRecord(Object result, String key, AnnoHolder annoHolder) {
-        Logger.info("single cache hit rate: {}/1, key: {}", result == null ? 0 : 1, key);
-        if (this.baseHitting != null) {
-            String pattern = PatternGenerator.generatePattern(annoHolder);
-
-            if (result != null) {
-                this.baseHitting.hitIncr(pattern, 1);
+    private void doRefresh(AnnoHolder annoHolder, ProxyChain baseInvoker, String key) {
+        Object[] args = baseInvoker.getArguments().clone();
+        refreshAhead.submit(annoHolder.getCache(), key, () -> {
+            Object invokeResult = doLogInvoke(() -> baseInvoker.proceed(args));
+            if (invokeResult != null) {
+                doWrite(annoHolder, key, invokeResult);
             }
-            this.baseHitting.reqIncr(pattern, 1);
+            return invokeResult;
+        });
+    }
+
+    private void doWrite(AnnoHolder annoHolder, String key, Object value) {
+        if (annoHolder.isRefresh()) {
+            value = RefreshObjects.wrap(value, annoHolder.getRefresh());
         }
+        cacheManager.writeSingle(annoHolder.getCache(), key, value, annoHolder.getExpire());
     }
 
 }
@@ -0,0 +1,248 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.magic;
+
+import org.aoju.bus.cache.support.PreventObjects;
+import org.aoju.bus.core.annotation.Singleton;
+import org.aoju.bus.core.lang.Symbol;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存未命中时的合并加载: 同一缓存key在同一时刻只允许一次方法调用,
+ * 其余并发请求等待并共享该次调用的结果
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+@Singleton
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> coalesced = new ConcurrentHashMap<>();
+
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * 单key与批量加载共用同一组进行中的调用, 等待者拿到的结果统一为方法返回值:
+     * 批量结果中的防击穿对象视为空结果
+     */
+    private static Object await(CompletableFuture<Object> future) throws Throwable {
+        try {
+            Object result = future.get();
+            return PreventObjects.isPrevent(result) ? null : result;
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private static String flightKey(String cache, String key) {
+        return cache + Symbol.C_COLON + key;
+    }
+
+    /**
+     * 单key加载: 已有进行中的调用时等待其结果, 否则由当前线程执行加载
+     *
+     * @param cache   缓存实现名称
+     * @param key     缓存key
+     * @param pattern 分组模板
+     * @param loader  加载逻辑
+     * @return 加载结果
+     * @throws Throwable 加载过程中抛出的异常
+     */
+    public Object execute(String cache, String key, String pattern,
+                          AbstractReader.ThrowableSupplier<Object> loader) throws Throwable {
+        String flightKey = flightKey(cache, key);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = flights.putIfAbsent(flightKey, future);
+        if (null != inFlight) {
+            record(pattern, 1);
+            return await(inFlight);
+        }
+
+        try {
+            Object result = loader.get();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, future);
+        }
+    }
+
+    /**
+     * 批量加载: 将未命中的key划分为由当前调用负责加载的key和加入其他调用等待的key
+     *
+     * @param cache   缓存实现名称
+     * @param keys    未命中的key
+     * @param pattern 分组模板
+     * @return 本次批量加载的登记信息
+     */
+    public Flight join(String cache, Collection<String> keys, String pattern) {
+        Map<String, CompletableFuture<Object>> owned = new LinkedHashMap<>(keys.size());
+        Map<String, CompletableFuture<Object>> joined = new LinkedHashMap<>();
+        for (String key : keys) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> inFlight = flights.putIfAbsent(flightKey(cache, key), future);
+            if (null == inFlight) {
+                owned.put(key, future);
+            } else {
+                joined.put(key, inFlight);
+            }
+        }
+        if (!joined.isEmpty()) {
+            record(pattern, joined.size());
+        }
+        return new Flight(cache, owned, joined);
+    }
+
+    /**
+     * @return 被合并(未实际执行)的调用总数
+     */
+    public long getCoalesced() {
+        return total.sum();
+    }
+
+    /**
+     * @param pattern 分组模板
+     * @return 该分组被合并的调用数
+     */
+    public long getCoalesced(String pattern) {
+        LongAdder adder = coalesced.get(pattern);
+        return null == adder ? 0 : adder.sum();
+    }
+
+    /**
+     * @return 各分组被合并的调用数
+     */
+    public Map<String, Long> getCoalescedMap() {
+        Map<String, Long> result = new HashMap<>(coalesced.size());
+        coalesced.forEach((pattern, adder) -> result.put(pattern, adder.sum()));
+        return result;
+    }
+
+    /**
+     * @return 当前正在进行中的加载数量
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    private void record(String pattern, int count) {
+        total.add(count);
+        coalesced.computeIfAbsent(pattern, (k) -> new LongAdder()).add(count);
+    }
+
+    /**
+     * 一次批量加载的登记信息
+     */
+    public class Flight {
+
+        private final String cache;
+
+        private final Map<String, CompletableFuture<Object>> owned;
+
+        private final Map<String, CompletableFuture<Object>> joined;
+
+        private Flight(String cache, Map<String, CompletableFuture<Object>> owned,
+                       Map<String, CompletableFuture<Object>> joined) {
+            this.cache = cache;
+            this.owned = owned;
+            this.joined = joined;
+        }
+
+        /**
+         * @return 需要由当前调用加载的key
+         */
+        public Set<String> getOwnedKeys() {
+            return new LinkedHashSet<>(owned.keySet());
+        }
+
+        /**
+         * 以加载结果唤醒等待中的调用
+         *
+         * @param keyValueMap 加载结果
+         */
+        public void complete(Map<String, Object> keyValueMap) {
+            owned.forEach((key, future) -> {
+                Object value = keyValueMap.get(key);
+                future.complete(PreventObjects.isPrevent(value) ? null : value);
+            });
+            release();
+        }
+
+        /**
+         * 以异常唤醒等待中的调用
+         *
+         * @param cause 加载异常
+         */
+        public void fail(Throwable cause) {
+            owned.values().forEach(future -> future.completeExceptionally(cause));
+            release();
+        }
+
+        /**
+         * 释放当前调用登记的全部key, 未完成的等待者将得到空结果
+         */
+        public void release() {
+            owned.forEach((key, future) -> {
+                future.complete(null);
+                flights.remove(flightKey(cache, key), future);
+            });
+        }
+
+        /**
+         * 等待其他调用加载完成
+         *
+         * @return 加载到的非空结果
+         * @throws Throwable 其他调用加载时抛出的异常
+         */
+        public Map<String, Object> awaitJoined() throws Throwable {
+            Map<String, Object> result = new LinkedHashMap<>(joined.size());
+            for (Map.Entry<String, CompletableFuture<Object>> entry : joined.entrySet()) {
+                Object value = await(entry.getValue());
+                if (null != value) {
+                    result.put(entry.getKey(), value);
+                }
+            }
+            return result;
+        }
+
+    }
+
+}
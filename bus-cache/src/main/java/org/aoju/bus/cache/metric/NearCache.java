@@ -0,0 +1,166 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.Broadcast;
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.magic.CacheExpire;
+import org.aoju.bus.core.toolkit.MapKit;
+
+import java.util.*;
+
+/**
+ * 两级缓存支持: 本地缓存(L1)作为远程缓存(L2)的近端副本
+ * <p>
+ * 读操作优先命中L1,未命中时读取L2并回填L1;
+ * 写入与删除同时作用于两级缓存,并通过{@link Broadcast}通知其他节点删除各自的L1副本
+ * 注意: L1中保存的是对象引用而非反序列化后的副本,调用方不应修改读取到的对象
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class NearCache implements CacheX {
+
+    /**
+     * 本地缓存默认过期时间：1分钟
+     */
+    public static final long DEFAULT_LOCAL_EXPIRE = CacheExpire.ONE_MIN;
+
+    private final String id = UUID.randomUUID().toString();
+
+    private CacheX local;
+
+    private CacheX remote;
+
+    private Broadcast broadcast;
+
+    private long localExpire;
+
+    /**
+     * @param remote    远程缓存
+     * @param maxSize   本地缓存最大条目数
+     * @param broadcast 失效广播
+     */
+    public NearCache(CacheX remote, long maxSize, Broadcast broadcast) {
+        this(new TinyLfuCache(maxSize), remote, broadcast, DEFAULT_LOCAL_EXPIRE);
+    }
+
+    /**
+     * @param local       本地缓存
+     * @param remote      远程缓存
+     * @param broadcast   失效广播
+     * @param localExpire 本地缓存最长存活时间(毫秒),用于兜底广播消息丢失的情况
+     */
+    public NearCache(CacheX local, CacheX remote, Broadcast broadcast, long localExpire) {
+        this.local = local;
+        this.remote = remote;
+        this.broadcast = broadcast;
+        this.localExpire = localExpire;
+        this.broadcast.subscribe((source, keys) -> {
+            if (!id.equals(source)) {
+                this.local.remove(keys);
+            }
+        });
+    }
+
+    @Override
+    public Object read(String key) {
+        Object value = local.read(key);
+        if (null != value) {
+            return value;
+        }
+
+        value = remote.read(key);
+        if (null != value) {
+            local.write(key, value, localExpire);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> read(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size());
+        List<String> missKeys = new ArrayList<>();
+
+        Map<String, Object> localValues = local.read(keys);
+        for (String key : keys) {
+            Object value = localValues.get(key);
+            if (null == value) {
+                missKeys.add(key);
+            } else {
+                result.put(key, value);
+            }
+        }
+
+        if (!missKeys.isEmpty()) {
+            Map<String, Object> fill = new HashMap<>(missKeys.size());
+            remote.read(missKeys).forEach((key, value) -> {
+                if (null != value) {
+                    fill.put(key, value);
+                }
+            });
+            local.write(fill, localExpire);
+            result.putAll(fill);
+        }
+        return result;
+    }
+
+    @Override
+    public void write(String key, Object value, long expire) {
+        remote.write(key, value, expire);
+        local.write(key, value, toLocalExpire(expire));
+        broadcast.publish(id, key);
+    }
+
+    @Override
+    public void write(Map<String, Object> keyValueMap, long expire) {
+        if (MapKit.isEmpty(keyValueMap)) {
+            return;
+        }
+        remote.write(keyValueMap, expire);
+        local.write(keyValueMap, toLocalExpire(expire));
+        broadcast.publish(id, keyValueMap.keySet().toArray(new String[0]));
+    }
+
+    @Override
+    public void remove(String... keys) {
+        remote.remove(keys);
+        local.remove(keys);
+        broadcast.publish(id, keys);
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        remote.clear();
+    }
+
+    private long toLocalExpire(long expire) {
+        return expire > 0 ? Math.min(expire, localExpire) : localExpire;
+    }
+
+}
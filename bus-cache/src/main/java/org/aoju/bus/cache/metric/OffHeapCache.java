@@ -0,0 +1,639 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.magic.CacheExpire;
+import org.aoju.bus.cache.serialize.BaseSerializer;
+import org.aoju.bus.cache.serialize.JdkSerializer;
+import org.aoju.bus.core.toolkit.MapKit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外缓存支持
+ * <p>
+ * 缓存值经{@link BaseSerializer}序列化后存放在直接内存({@link ByteBuffer#allocateDirect(int)})中,
+ * 堆内只保留由基本类型数组构成的索引, 适用于条目数量大、对GC停顿敏感的场景
+ * <p>
+ * 内存按1MB的页按需分配, 每页切分为固定大小的块(slab), 条目放入能容纳它的最小块中;
+ * 超出内存预算后, 在同一块大小内按CLOCK算法淘汰, 必要时从其他块大小回收整页
+ * 单个条目(含key)不能超过1MB, 超出的条目不会被缓存
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class OffHeapCache implements CacheX {
+
+    /**
+     * 页大小,同时也是单个条目的上限
+     */
+    private static final int PAGE_SIZE = 1 << 20;
+    /**
+     * 条目头: hash(4) + key长度(4) + value长度(4) + 保留(4) + 过期时间(8)
+     */
+    private static final int HEADER = 24;
+    /**
+     * 各级块大小, 从64字节起按1.25倍递增至页大小
+     */
+    private static final int[] CHUNK_SIZES = chunkSizes(64, 1.25d);
+    /**
+     * 索引中已删除位置的标记
+     */
+    private static final long DELETED = -1L;
+
+    private final BaseSerializer serializer;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long capacity;
+
+    /**
+     * @param capacity 堆外内存预算(字节)
+     */
+    public OffHeapCache(long capacity) {
+        this(capacity, new JdkSerializer());
+    }
+
+    public OffHeapCache(long capacity, BaseSerializer serializer) {
+        this(capacity, serializer, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param capacity    堆外内存预算(字节), 不小于1MB
+     * @param serializer  序列化
+     * @param concurrency 并发度, 即分段数量(会按内存预算下调至2的幂)
+     */
+    public OffHeapCache(long capacity, BaseSerializer serializer, int concurrency) {
+        if (capacity < PAGE_SIZE) {
+            throw new IllegalArgumentException("capacity must not be less than " + PAGE_SIZE);
+        }
+        // 每个分段至少保留16页, 避免预算过小时各级块大小之间频繁回收页
+        int count = (int) Math.max(1, Math.min(concurrency, capacity / (16L * PAGE_SIZE)));
+        count = Integer.highestOneBit(Math.min(count, 1 << 16));
+
+        this.serializer = serializer;
+        this.capacity = capacity;
+        this.segmentMask = count - 1;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            this.segments[i] = new Segment(capacity / count);
+        }
+    }
+
+    private static int[] chunkSizes(int min, double factor) {
+        List<Integer> sizes = new ArrayList<>();
+        int size = min;
+        while (size < PAGE_SIZE / 2) {
+            sizes.add(size);
+            size = Math.max(size + 8, (int) (size * factor) + 7 & ~7);
+        }
+        sizes.add(PAGE_SIZE);
+        int[] result = new int[sizes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sizes.get(i);
+        }
+        return result;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public Object read(String key) {
+        int hash = hash(key);
+        byte[] bytes = segmentFor(hash).get(key.getBytes(StandardCharsets.UTF_8), hash, System.currentTimeMillis());
+        return null == bytes ? null : serializer.deserialize(bytes);
+    }
+
+    @Override
+    public Map<String, Object> read(Collection<String> keys) {
+        Map<String, Object> subCache = new HashMap<>(keys.size());
+        for (String key : keys) {
+            subCache.put(key, read(key));
+        }
+        return subCache;
+    }
+
+    /**
+     * 设置缓存
+     *
+     * @param key    缓存KEY
+     * @param value  缓存内容
+     * @param expire 指定缓存过期时间(毫秒),{@link CacheExpire#FOREVER}表示永不过期
+     */
+    @Override
+    public void write(String key, Object value, long expire) {
+        int hash = hash(key);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = serializer.serialize(value);
+        if (null == bytes) {
+            segmentFor(hash).remove(keyBytes, hash);
+            return;
+        }
+        long expireAt = expire > 0 ? System.currentTimeMillis() + expire : 0L;
+        segmentFor(hash).put(keyBytes, hash, bytes, expireAt);
+    }
+
+    @Override
+    public void write(Map<String, Object> keyValueMap, long expire) {
+        if (MapKit.isNotEmpty(keyValueMap)) {
+            keyValueMap.forEach((key, value) -> write(key, value, expire));
+        }
+    }
+
+    @Override
+    public void remove(String... keys) {
+        for (String key : keys) {
+            int hash = hash(key);
+            segmentFor(hash).remove(key.getBytes(StandardCharsets.UTF_8), hash);
+        }
+    }
+
+    /**
+     * 清空缓存并释放全部堆外页(直接内存随ByteBuffer对象被回收而释放)
+     */
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return 堆外内存预算(字节)
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 已分配的堆外内存(字节)
+     */
+    public long allocatedBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.allocatedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * @return 条目实际占用的字节数(含条目头与key), 与已分配内存之差为块内碎片与空闲块
+     */
+    public long usedBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.usedBytes;
+        }
+        return total;
+    }
+
+    /**
+     * @return 当前缓存条目数量(可能包含尚未清理的过期条目)
+     */
+    public long size() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.count;
+        }
+        return total;
+    }
+
+    /**
+     * @return 因内存不足被淘汰的条目总数
+     */
+    public long evictionCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.evictions;
+        }
+        return total;
+    }
+
+    /**
+     * @return 因过期被清理的条目总数
+     */
+    public long expiredCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.expirations;
+        }
+        return total;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 16) & segmentMask];
+    }
+
+    /**
+     * 分段: 独立的内存预算、块分配与开放寻址索引, 所有操作在分段锁内完成
+     */
+    private static final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long budget;
+
+        private SlabClass[] classes;
+        private int pages;
+
+        /**
+         * 索引: 条目地址(块大小级别 << 32 | 块编号) + 1, 0表示空位
+         */
+        private long[] addresses;
+        private int[] hashes;
+        private int tombstones;
+
+        private volatile int count;
+        private volatile long usedBytes;
+        private volatile long evictions;
+        private volatile long expirations;
+
+        Segment(long budget) {
+            this.budget = budget;
+            reset();
+        }
+
+        private void reset() {
+            this.classes = new SlabClass[CHUNK_SIZES.length];
+            for (int i = 0; i < classes.length; i++) {
+                classes[i] = new SlabClass(i, CHUNK_SIZES[i]);
+            }
+            this.pages = 0;
+            this.addresses = new long[16];
+            this.hashes = new int[16];
+            this.tombstones = 0;
+            this.count = 0;
+            this.usedBytes = 0;
+        }
+
+        byte[] get(byte[] key, int hash, long now) {
+            lock.lock();
+            try {
+                int slot = find(key, hash);
+                if (slot < 0) {
+                    return null;
+                }
+                long address = addresses[slot] - 1;
+                SlabClass slab = classes[(int) (address >>> 32)];
+                int chunk = (int) address;
+                ByteBuffer page = slab.page(chunk);
+                int offset = slab.offset(chunk);
+
+                long expireAt = page.getLong(offset + 16);
+                if (expireAt != 0 && expireAt <= now) {
+                    removeSlot(slot);
+                    expirations++;
+                    return null;
+                }
+
+                slab.referenced.set(chunk);
+                byte[] value = new byte[page.getInt(offset + 8)];
+                page.position(offset + HEADER + page.getInt(offset + 4));
+                page.get(value);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(byte[] key, int hash, byte[] value, long expireAt) {
+            int size = HEADER + key.length + value.length;
+            lock.lock();
+            try {
+                int slot = find(key, hash);
+                if (slot >= 0) {
+                    removeSlot(slot);
+                }
+
+                int level = Arrays.binarySearch(CHUNK_SIZES, size);
+                level = level >= 0 ? level : -level - 1;
+                if (level >= CHUNK_SIZES.length) {
+                    // 超过单页大小, 不缓存
+                    return;
+                }
+
+                SlabClass slab = classes[level];
+                int chunk = allocate(slab);
+                if (chunk < 0) {
+                    return;
+                }
+
+                ByteBuffer page = slab.page(chunk);
+                int offset = slab.offset(chunk);
+                page.putInt(offset, hash);
+                page.putInt(offset + 4, key.length);
+                page.putInt(offset + 8, value.length);
+                page.putInt(offset + 12, 0);
+                page.putLong(offset + 16, expireAt);
+                page.position(offset + HEADER);
+                page.put(key);
+                page.put(value);
+
+                slab.used.set(chunk);
+                slab.referenced.clear(chunk);
+                insert(hash, ((long) level << 32 | chunk) + 1);
+                usedBytes += size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(byte[] key, int hash) {
+            lock.lock();
+            try {
+                int slot = find(key, hash);
+                if (slot >= 0) {
+                    removeSlot(slot);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                reset();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long allocatedBytes() {
+            lock.lock();
+            try {
+                return (long) pages * PAGE_SIZE;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 分配一个块: 空闲块 -> 当前页剩余空间 -> 新页 -> CLOCK淘汰 -> 从其他级别回收整页
+         *
+         * @return 块编号, 无法分配时返回-1
+         */
+        private int allocate(SlabClass slab) {
+            if (slab.freeCount > 0) {
+                return slab.free[--slab.freeCount];
+            }
+            if (slab.chunks < slab.pages.size() * slab.perPage) {
+                return slab.chunks++;
+            }
+            if ((long) (pages + 1) * PAGE_SIZE <= budget) {
+                slab.pages.add(ByteBuffer.allocateDirect(PAGE_SIZE));
+                pages++;
+                return slab.chunks++;
+            }
+            if (slab.chunks > 0) {
+                return evict(slab);
+            }
+            ByteBuffer page = reclaimPage(slab);
+            if (null == page) {
+                return -1;
+            }
+            slab.pages.add(page);
+            return slab.chunks++;
+        }
+
+        /**
+         * CLOCK淘汰: 跳过并清除最近被访问过的块, 淘汰第一个未被访问或已过期的块
+         */
+        private int evict(SlabClass slab) {
+            long now = System.currentTimeMillis();
+            for (int i = 0, limit = slab.chunks * 2 + 1; i < limit; i++) {
+                int chunk = slab.hand;
+                slab.hand = (slab.hand + 1) % slab.chunks;
+                if (!slab.used.get(chunk)) {
+                    return chunk;
+                }
+
+                ByteBuffer page = slab.page(chunk);
+                long expireAt = page.getLong(slab.offset(chunk) + 16);
+                boolean expired = expireAt != 0 && expireAt <= now;
+                if (!expired && slab.referenced.get(chunk)) {
+                    slab.referenced.clear(chunk);
+                    continue;
+                }
+
+                removeChunk(slab, chunk);
+                if (expired) {
+                    expirations++;
+                } else {
+                    evictions++;
+                }
+                return slab.free[--slab.freeCount];
+            }
+            return -1;
+        }
+
+        /**
+         * 从拥有最多页的其他级别中回收其最后一页, 页内条目全部淘汰
+         */
+        private ByteBuffer reclaimPage(SlabClass target) {
+            SlabClass victim = null;
+            for (SlabClass slab : classes) {
+                if (slab != target && (null == victim || slab.pages.size() > victim.pages.size())) {
+                    victim = slab;
+                }
+            }
+            if (null == victim || victim.pages.isEmpty()) {
+                return null;
+            }
+
+            int first = (victim.pages.size() - 1) * victim.perPage;
+            for (int chunk = first; chunk < victim.chunks; chunk++) {
+                if (victim.used.get(chunk)) {
+                    removeChunk(victim, chunk);
+                    evictions++;
+                }
+            }
+
+            int freeCount = 0;
+            for (int i = 0; i < victim.freeCount; i++) {
+                if (victim.free[i] < first) {
+                    victim.free[freeCount++] = victim.free[i];
+                }
+            }
+            victim.freeCount = freeCount;
+            victim.chunks = Math.min(victim.chunks, first);
+            if (victim.hand >= victim.chunks) {
+                victim.hand = 0;
+            }
+
+            ByteBuffer page = victim.pages.remove(victim.pages.size() - 1);
+            page.clear();
+            return page;
+        }
+
+        private void removeChunk(SlabClass slab, int chunk) {
+            ByteBuffer page = slab.page(chunk);
+            int hash = page.getInt(slab.offset(chunk));
+            long address = ((long) slab.level << 32 | chunk) + 1;
+            int mask = addresses.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                if (addresses[i] == address) {
+                    removeSlot(i);
+                    return;
+                }
+                if (addresses[i] == 0) {
+                    // 索引中不存在, 直接释放块
+                    release(slab, chunk, 0);
+                    return;
+                }
+            }
+        }
+
+        private void removeSlot(int slot) {
+            long address = addresses[slot] - 1;
+            SlabClass slab = classes[(int) (address >>> 32)];
+            int chunk = (int) address;
+            ByteBuffer page = slab.page(chunk);
+            int offset = slab.offset(chunk);
+            release(slab, chunk, HEADER + page.getInt(offset + 4) + page.getInt(offset + 8));
+
+            addresses[slot] = DELETED;
+            tombstones++;
+            count--;
+        }
+
+        private void release(SlabClass slab, int chunk, int size) {
+            slab.used.clear(chunk);
+            slab.referenced.clear(chunk);
+            if (slab.freeCount == slab.free.length) {
+                slab.free = Arrays.copyOf(slab.free, slab.free.length * 2);
+            }
+            slab.free[slab.freeCount++] = chunk;
+            usedBytes -= size;
+        }
+
+        private int find(byte[] key, int hash) {
+            int mask = addresses.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                long address = addresses[i];
+                if (address == 0) {
+                    return -1;
+                }
+                if (address != DELETED && hashes[i] == hash && keyEquals(address - 1, key)) {
+                    return i;
+                }
+            }
+        }
+
+        private boolean keyEquals(long address, byte[] key) {
+            SlabClass slab = classes[(int) (address >>> 32)];
+            int chunk = (int) address;
+            ByteBuffer page = slab.page(chunk);
+            int offset = slab.offset(chunk);
+            if (page.getInt(offset + 4) != key.length) {
+                return false;
+            }
+            offset += HEADER;
+            for (int i = 0; i < key.length; i++) {
+                if (page.get(offset + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void insert(int hash, long address) {
+            if ((count + tombstones + 1) * 2 > addresses.length) {
+                rehash(Math.max(16, Integer.highestOneBit(Math.max(1, count + 1) * 4 - 1) << 1));
+            }
+            int mask = addresses.length - 1;
+            int i = hash & mask;
+            while (addresses[i] != 0 && addresses[i] != DELETED) {
+                i = (i + 1) & mask;
+            }
+            if (addresses[i] == DELETED) {
+                tombstones--;
+            }
+            addresses[i] = address;
+            hashes[i] = hash;
+            count++;
+        }
+
+        private void rehash(int length) {
+            long[] oldAddresses = addresses;
+            int[] oldHashes = hashes;
+            addresses = new long[length];
+            hashes = new int[length];
+            tombstones = 0;
+            int mask = length - 1;
+            for (int j = 0; j < oldAddresses.length; j++) {
+                long address = oldAddresses[j];
+                if (address == 0 || address == DELETED) {
+                    continue;
+                }
+                int i = oldHashes[j] & mask;
+                while (addresses[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                addresses[i] = address;
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    /**
+     * 同一块大小的所有页及其空闲块、使用与访问标记
+     */
+    private static final class SlabClass {
+
+        private final int level;
+        private final int chunkSize;
+        private final int perPage;
+        private final List<ByteBuffer> pages = new ArrayList<>();
+        private final BitSet used = new BitSet();
+        private final BitSet referenced = new BitSet();
+        private int[] free = new int[16];
+        private int freeCount;
+        private int chunks;
+        private int hand;
+
+        SlabClass(int level, int chunkSize) {
+            this.level = level;
+            this.chunkSize = chunkSize;
+            this.perPage = PAGE_SIZE / chunkSize;
+        }
+
+        ByteBuffer page(int chunk) {
+            return pages.get(chunk / perPage);
+        }
+
+        int offset(int chunk) {
+            return (chunk % perPage) * chunkSize;
+        }
+    }
+
+}
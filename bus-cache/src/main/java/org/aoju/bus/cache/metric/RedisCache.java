@@ -33,11 +33,10 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
 
+import redis.clients.jedis.Response;
+
 import javax.annotation.PreDestroy;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Redis 单机缓存支持
@@ -48,17 +47,38 @@ import java.util.Map;
  */
 public class RedisCache implements CacheX {
 
+    /**
+     * 批量操作时单条命令包含的默认key数量
+     */
+    static final int DEFAULT_BATCH_SIZE = 500;
+
     private BaseSerializer serializer;
 
     private JedisPool jedisPool;
 
+    private int batchSize;
+
     public RedisCache(JedisPool jedisPool) {
         this(jedisPool, new Hessian2Serializer());
     }
 
     public RedisCache(JedisPool jedisPool, BaseSerializer serializer) {
+        this(jedisPool, serializer, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param jedisPool  连接池
+     * @param serializer 序列化
+     * @param batchSize  批量读写时单条命令(MGET/MSET/DEL)包含的key数量,
+     *                   超出的部分拆分为多条命令后在同一个pipeline中发送
+     */
+    public RedisCache(JedisPool jedisPool, BaseSerializer serializer, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
         this.jedisPool = jedisPool;
         this.serializer = serializer;
+        this.batchSize = batchSize;
     }
 
     static byte[][] toByteArray(Map<String, Object> keyValueMap, BaseSerializer serializer) {
@@ -112,32 +132,80 @@ public class RedisCache implements CacheX {
 
     @Override
     public Map<String, Object> read(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        byte[][] array = toByteArray(keys);
         try (Jedis client = jedisPool.getResource()) {
-            List<byte[]> bytesValues = client.mget(toByteArray(keys));
+            if (array.length <= batchSize) {
+                return toObjectMap(keys, client.mget(array), this.serializer);
+            }
+
+            // 分段MGET在同一个pipeline中发送, 只需一次往返
+            Pipeline pipeline = client.pipelined();
+            List<Response<List<byte[]>>> responses = new ArrayList<>(array.length / batchSize + 1);
+            for (int from = 0; from < array.length; from += batchSize) {
+                responses.add(pipeline.mget(Arrays.copyOfRange(array, from, Math.min(from + batchSize, array.length))));
+            }
+            pipeline.sync();
+
+            List<byte[]> bytesValues = new ArrayList<>(array.length);
+            for (Response<List<byte[]>> response : responses) {
+                bytesValues.addAll(response.get());
+            }
             return toObjectMap(keys, bytesValues, this.serializer);
         }
     }
 
     @Override
     public void write(Map<String, Object> keyValueMap, long expire) {
+        if (keyValueMap.isEmpty()) {
+            return;
+        }
+
+        byte[][] kvs = toByteArray(keyValueMap, serializer);
         try (Jedis client = jedisPool.getResource()) {
-            byte[][] kvs = toByteArray(keyValueMap, serializer);
-            if (expire == CacheExpire.FOREVER) {
+            if (expire == CacheExpire.FOREVER && kvs.length <= batchSize * 2) {
                 client.mset(kvs);
+                return;
+            }
+
+            Pipeline pipeline = client.pipelined();
+            if (expire == CacheExpire.FOREVER) {
+                for (int from = 0; from < kvs.length; from += batchSize * 2) {
+                    pipeline.mset(Arrays.copyOfRange(kvs, from, Math.min(from + batchSize * 2, kvs.length)));
+                }
             } else {
-                Pipeline pipeline = client.pipelined();
+                // MSET不支持过期时间, 逐key PSETEX并按批次刷出, 避免单次积压过多响应
                 for (int i = 0; i < kvs.length; i += 2) {
                     pipeline.psetex(kvs[i], expire, kvs[i + 1]);
+                    if ((i / 2 + 1) % batchSize == 0) {
+                        pipeline.sync();
+                    }
                 }
-                pipeline.sync();
             }
+            pipeline.sync();
         }
     }
 
     @Override
     public void remove(String... keys) {
+        if (keys.length == 0) {
+            return;
+        }
+
         try (Jedis client = jedisPool.getResource()) {
-            client.del(keys);
+            if (keys.length <= batchSize) {
+                client.del(keys);
+                return;
+            }
+
+            Pipeline pipeline = client.pipelined();
+            for (int from = 0; from < keys.length; from += batchSize) {
+                pipeline.del(Arrays.copyOfRange(keys, from, Math.min(from + batchSize, keys.length)));
+            }
+            pipeline.sync();
         }
     }
 
@@ -29,14 +29,34 @@ import org.aoju.bus.cache.CacheX;
 import org.aoju.bus.cache.magic.CacheExpire;
 import org.aoju.bus.cache.serialize.BaseSerializer;
 import org.aoju.bus.cache.serialize.Hessian2Serializer;
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.thread.ExecutorBuilder;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
 
 import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Redis 集群缓存支持
+ * <p>
+ * 批量读写按key所在的slot分组到各主节点, 每个节点使用一个pipeline发送,
+ * 多个节点之间并行执行; 路由失效(如slot迁移)时该批次退化为逐key访问并刷新路由表
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -44,17 +64,52 @@ import java.util.*;
  */
 public class RedisClusterCache implements CacheX {
 
+    private static final int SLOTS = 16384;
+
     private BaseSerializer serializer;
 
     private JedisCluster jedisCluster;
 
+    private int batchSize;
+
+    private ExecutorService executor;
+
+    /**
+     * slot到主节点连接池的路由表, 为空表示需要重新加载
+     */
+    private volatile JedisPool[] slotCache;
+
     public RedisClusterCache(JedisCluster jedisCluster) {
         this(jedisCluster, new Hessian2Serializer());
     }
 
     public RedisClusterCache(JedisCluster jedisCluster, BaseSerializer serializer) {
+        this(jedisCluster, serializer, RedisCache.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param jedisCluster 集群客户端
+     * @param serializer   序列化
+     * @param batchSize    每个节点的pipeline中累积多少条命令后刷出一次
+     */
+    public RedisClusterCache(JedisCluster jedisCluster, BaseSerializer serializer, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
         this.jedisCluster = jedisCluster;
         this.serializer = serializer;
+        this.batchSize = batchSize;
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.executor = ExecutorBuilder.create()
+                .setCorePoolSize(threads)
+                .setMaxPoolSize(threads)
+                .setKeepAliveTime(60, TimeUnit.SECONDS)
+                .setAllowCoreThreadTimeOut(true)
+                .useSynchronousQueue()
+                .setHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+                .setThreadFactory(new NamedThreadFactory("cache-cluster-", true))
+                .build();
     }
 
     static byte[][] toByteArray(Map<String, Object> keyValueMap, BaseSerializer serializer) {
@@ -107,8 +162,11 @@ public class RedisClusterCache implements CacheX {
             return Collections.emptyMap();
         }
 
-        List<byte[]> bytesValues = jedisCluster.mget(toByteArray(keys));
-        return toObjectMap(keys, bytesValues, this.serializer);
+        Map<String, Object> result = new HashMap<>(keys.size());
+        for (Map<String, Object> part : execute(groupByNode(keys, Function.identity()), this::readNode)) {
+            result.putAll(part);
+        }
+        return result;
     }
 
     @Override
@@ -117,13 +175,8 @@ public class RedisClusterCache implements CacheX {
             return;
         }
 
-        if (expire == CacheExpire.FOREVER) {
-            jedisCluster.mset(toByteArray(keyValueMap, this.serializer));
-        } else {
-            for (Map.Entry<String, Object> entry : keyValueMap.entrySet()) {
-                write(entry.getKey(), entry.getValue(), expire);
-            }
-        }
+        execute(groupByNode(keyValueMap.entrySet(), Map.Entry::getKey),
+                (pool, entries) -> writeNode(pool, entries, expire));
     }
 
     @Override
@@ -131,7 +184,12 @@ public class RedisClusterCache implements CacheX {
         if (keys.length == 0) {
             return;
         }
-        jedisCluster.del(keys);
+        if (keys.length == 1) {
+            jedisCluster.del(keys[0]);
+            return;
+        }
+
+        execute(groupByNode(Arrays.asList(keys), Function.identity()), this::removeNode);
     }
 
     @Override
@@ -141,6 +199,7 @@ public class RedisClusterCache implements CacheX {
 
     @PreDestroy
     public void tearDown() {
+        this.executor.shutdown();
         if (this.jedisCluster != null) {
             try {
                 this.jedisCluster.close();
@@ -150,4 +209,171 @@ public class RedisClusterCache implements CacheX {
         }
     }
 
+    private Map<String, Object> readNode(JedisPool pool, List<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size());
+        List<Object> replies = pipelined(pool, keys, (pipeline, key) -> pipeline.get(key.getBytes()));
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            Object reply = null == replies ? null : replies.get(i);
+            if (null == replies || reply instanceof JedisDataException) {
+                result.put(key, read(key));
+            } else {
+                result.put(key, serializer.deserialize((byte[]) reply));
+            }
+        }
+        return result;
+    }
+
+    private Void writeNode(JedisPool pool, List<Map.Entry<String, Object>> entries, long expire) {
+        List<Object> replies = pipelined(pool, entries, (pipeline, entry) -> {
+            byte[] value = serializer.serialize(entry.getValue());
+            if (expire == CacheExpire.FOREVER) {
+                pipeline.set(entry.getKey().getBytes(), value);
+            } else {
+                pipeline.psetex(entry.getKey().getBytes(), expire, value);
+            }
+        });
+        for (int i = 0; i < entries.size(); i++) {
+            if (null == replies || replies.get(i) instanceof JedisDataException) {
+                Map.Entry<String, Object> entry = entries.get(i);
+                write(entry.getKey(), entry.getValue(), expire);
+            }
+        }
+        return null;
+    }
+
+    private Void removeNode(JedisPool pool, List<String> keys) {
+        List<Object> replies = pipelined(pool, keys, (pipeline, key) -> pipeline.del(key.getBytes()));
+        for (int i = 0; i < keys.size(); i++) {
+            if (null == replies || replies.get(i) instanceof JedisDataException) {
+                jedisCluster.del(keys.get(i));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在指定节点上以pipeline执行命令, 每累积batchSize条命令刷出一次
+     *
+     * @return 与items一一对应的响应, 出错的命令对应{@link JedisDataException};
+     * 节点不可用或路由未知时返回null, 由调用方逐key重试
+     */
+    private <V> List<Object> pipelined(JedisPool pool, List<V> items, PipelineCommand<V> command) {
+        if (null == pool) {
+            return null;
+        }
+
+        List<Object> replies = new ArrayList<>(items.size());
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < items.size(); i++) {
+                command.apply(pipeline, items.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    replies.addAll(pipeline.syncAndReturnAll());
+                }
+            }
+            replies.addAll(pipeline.syncAndReturnAll());
+        } catch (JedisException e) {
+            this.slotCache = null;
+            return null;
+        }
+
+        for (Object reply : replies) {
+            if (reply instanceof JedisDataException) {
+                // 多为MOVED/ASK, 说明路由表已过期
+                this.slotCache = null;
+                break;
+            }
+        }
+        return replies;
+    }
+
+    /**
+     * 多个节点并行执行, 最后一个分组由当前线程执行
+     */
+    private <V, T> List<T> execute(Map<JedisPool, List<V>> groups, BiFunction<JedisPool, List<V>, T> task) {
+        List<Map.Entry<JedisPool, List<V>>> entries = new ArrayList<>(groups.entrySet());
+        List<CompletableFuture<T>> futures = new ArrayList<>(entries.size() - 1);
+        for (int i = 0; i < entries.size() - 1; i++) {
+            Map.Entry<JedisPool, List<V>> entry = entries.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(entry.getKey(), entry.getValue()), executor));
+        }
+
+        Map.Entry<JedisPool, List<V>> last = entries.get(entries.size() - 1);
+        T lastResult = task.apply(last.getKey(), last.getValue());
+
+        List<T> results = new ArrayList<>(entries.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        results.add(lastResult);
+        return results;
+    }
+
+    /**
+     * 按key所在slot的主节点分组, 路由未知的key归入null分组
+     */
+    private <V> Map<JedisPool, List<V>> groupByNode(Collection<V> items, Function<V, String> keyOf) {
+        JedisPool[] slots = slots();
+        Map<JedisPool, List<V>> groups = new HashMap<>();
+        for (V item : items) {
+            JedisPool pool = null == slots ? null : slots[JedisClusterCRC16.getSlot(keyOf.apply(item))];
+            groups.computeIfAbsent(pool, (k) -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    private JedisPool[] slots() {
+        JedisPool[] slots = this.slotCache;
+        if (null == slots) {
+            slots = renewSlots();
+            this.slotCache = slots;
+        }
+        return slots;
+    }
+
+    /**
+     * 通过CLUSTER SLOTS加载slot到主节点的路由
+     *
+     * @return 路由表, 所有节点均不可用时返回null
+     */
+    private JedisPool[] renewSlots() {
+        Map<String, JedisPool> nodes = jedisCluster.getClusterNodes();
+        for (JedisPool pool : nodes.values()) {
+            try (Jedis jedis = pool.getResource()) {
+                JedisPool[] slots = new JedisPool[SLOTS];
+                for (Object info : jedis.clusterSlots()) {
+                    List<Object> slotInfo = (List<Object>) info;
+                    if (slotInfo.size() < 3) {
+                        continue;
+                    }
+                    List<Object> master = (List<Object>) slotInfo.get(2);
+                    String nodeKey = SafeEncoder.encode((byte[]) master.get(0)) + Symbol.C_COLON + master.get(1);
+                    JedisPool node = nodes.get(nodeKey);
+                    int start = ((Long) slotInfo.get(0)).intValue();
+                    int end = ((Long) slotInfo.get(1)).intValue();
+                    for (int slot = start; slot <= end; slot++) {
+                        slots[slot] = node;
+                    }
+                }
+                return slots;
+            } catch (JedisException ignored) {
+                // 尝试下一个节点
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface PipelineCommand<V> {
+        void apply(Pipeline pipeline, V item);
+    }
+
 }
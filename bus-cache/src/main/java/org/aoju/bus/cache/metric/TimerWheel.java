@@ -0,0 +1,167 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮,用于以O(1)的代价调度和过期缓存条目,避免定时全量扫描
+ * 各层时间跨度依次约为秒、分、时、天,超出范围的条目放入溢出桶
+ * 非线程安全,需在外部锁的保护下使用
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+final class TimerWheel {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    private static final long[] SPANS = {
+            ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1))
+    };
+
+    private static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4])
+    };
+
+    private final TinyLfuCache.Node[][] wheel;
+
+    private long nanos;
+
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        this.wheel = new TinyLfuCache.Node[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new TinyLfuCache.Node[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = TinyLfuCache.Node.sentinel();
+            }
+        }
+    }
+
+    /**
+     * 推进时间轮,将到期的条目交由回调处理,未到期的条目重新调度至更精细的层级
+     *
+     * @param currentTime 当前时间,单位纳秒
+     * @param expired     过期回调
+     */
+    void advance(long currentTime, Consumer<TinyLfuCache.Node> expired) {
+        long previousTime = nanos;
+        nanos = currentTime;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = (previousTime >>> SHIFT[i]);
+            long currentTicks = (currentTime >>> SHIFT[i]);
+            if ((currentTicks - previousTicks) <= 0L) {
+                break;
+            }
+            expire(i, previousTicks, currentTicks, expired);
+        }
+    }
+
+    private void expire(int index, long previousTicks, long currentTicks, Consumer<TinyLfuCache.Node> expired) {
+        TinyLfuCache.Node[] timerWheel = wheel[index];
+        int mask = timerWheel.length - 1;
+        int steps = (int) Math.min(1 + Math.abs(currentTicks - previousTicks), timerWheel.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+
+        for (int i = start; i < end; i++) {
+            TinyLfuCache.Node sentinel = timerWheel[i & mask];
+            TinyLfuCache.Node node = sentinel.nextInTime;
+            sentinel.previousInTime = sentinel;
+            sentinel.nextInTime = sentinel;
+
+            while (node != sentinel) {
+                TinyLfuCache.Node next = node.nextInTime;
+                node.previousInTime = null;
+                node.nextInTime = null;
+                if ((node.expireTime - nanos) > 0) {
+                    schedule(node);
+                } else {
+                    expired.accept(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * 按条目的过期时间将其放入对应的桶中
+     *
+     * @param node 缓存条目
+     */
+    void schedule(TinyLfuCache.Node node) {
+        TinyLfuCache.Node sentinel = findBucket(node.expireTime);
+        TinyLfuCache.Node last = sentinel.previousInTime;
+        node.previousInTime = last;
+        node.nextInTime = sentinel;
+        last.nextInTime = node;
+        sentinel.previousInTime = node;
+    }
+
+    /**
+     * 将条目从时间轮中移除
+     *
+     * @param node 缓存条目
+     */
+    void deschedule(TinyLfuCache.Node node) {
+        if (null != node.nextInTime) {
+            node.nextInTime.previousInTime = node.previousInTime;
+            node.previousInTime.nextInTime = node.nextInTime;
+            node.nextInTime = null;
+            node.previousInTime = null;
+        }
+    }
+
+    private TinyLfuCache.Node findBucket(long time) {
+        long duration = time - nanos;
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = (time >>> SHIFT[i]);
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private static long ceilingPowerOfTwo(long x) {
+        return 1L << -Long.numberOfLeadingZeros(x - 1);
+    }
+
+}
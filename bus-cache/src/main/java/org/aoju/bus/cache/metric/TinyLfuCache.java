@@ -0,0 +1,626 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.magic.CacheExpire;
+import org.aoju.bus.core.toolkit.MapKit;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界内存缓存支持(W-TinyLFU)
+ * <p>
+ * 读操作无锁:命中后仅将条目记录到分段的有损环形缓冲区;
+ * 写操作进入写缓冲区,由持有维护锁的线程批量回放,完成淘汰与过期处理
+ * 淘汰策略由窗口LRU、分段LRU(试用区/保护区)和Count-Min Sketch频率准入组成,
+ * 过期条目由分层时间轮调度,不再需要定时全量扫描
+ * <p>
+ * 与{@link MemoryCache}不同,每个实例拥有独立的存储与容量上限,可直接作为
+ * {@link org.aoju.bus.cache.Manage#setCachePool(Map)}中的缓存实现
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class TinyLfuCache implements CacheX {
+
+    /**
+     * 窗口区占总容量的比例
+     */
+    private static final double PERCENT_WINDOW = 0.01d;
+    /**
+     * 保护区占主区容量的比例
+     */
+    private static final double PERCENT_PROTECTED = 0.80d;
+    /**
+     * 写缓冲区积压阈值,超过后写线程阻塞等待维护完成
+     */
+    private static final int WRITE_BUFFER_MAX = 128 * FrequencySketch.ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+
+    private final ConcurrentHashMap<String, Node> data;
+    private final Weigher weigher;
+    private final ReadBuffer readBuffer;
+    private final Queue<Runnable> writeBuffer;
+    private final AtomicInteger pendingWrites;
+    private final ReentrantLock evictionLock;
+
+    /**
+     * 以下状态仅在持有evictionLock时访问
+     */
+    private final FrequencySketch sketch;
+    private final TimerWheel timerWheel;
+    private final AccessOrderDeque window;
+    private final AccessOrderDeque probation;
+    private final AccessOrderDeque protect;
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long weightedSize;
+    private long windowWeightedSize;
+    private long protectedWeightedSize;
+    /**
+     * 因容量不足被淘汰的条目数,仅在持有evictionLock时修改
+     */
+    private volatile long evictionCount;
+
+    /**
+     * 按条目数量限制容量
+     *
+     * @param maximumSize 最大条目数
+     */
+    public TinyLfuCache(long maximumSize) {
+        this(maximumSize, (key, value) -> 1);
+    }
+
+    /**
+     * 按条目权重限制容量
+     *
+     * @param maximumWeight 最大总权重
+     * @param weigher       权重计算器
+     */
+    public TinyLfuCache(long maximumWeight, Weigher weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximum weight must not be negative");
+        }
+        this.maximum = maximumWeight;
+        this.weigher = weigher;
+        this.windowMaximum = (long) (maximumWeight * PERCENT_WINDOW);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PERCENT_PROTECTED);
+        this.data = new ConcurrentHashMap<>();
+        this.readBuffer = new ReadBuffer();
+        this.writeBuffer = new ConcurrentLinkedQueue<>();
+        this.pendingWrites = new AtomicInteger();
+        this.evictionLock = new ReentrantLock();
+        this.sketch = new FrequencySketch(Math.min(maximumWeight, 1 << 16));
+        this.timerWheel = new TimerWheel(System.nanoTime());
+        this.window = new AccessOrderDeque();
+        this.probation = new AccessOrderDeque();
+        this.protect = new AccessOrderDeque();
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key 缓存KEY
+     * @return 缓存内容
+     */
+    @Override
+    public Object read(String key) {
+        Node node = data.get(key);
+        if (null == node) {
+            return null;
+        }
+        if (node.hasExpired(System.nanoTime())) {
+            if (data.remove(key, node)) {
+                afterWrite(() -> onRemove(node));
+            }
+            return null;
+        }
+        if (readBuffer.offer(node)) {
+            scheduleDrain();
+        }
+        return node.value;
+    }
+
+    @Override
+    public Map<String, Object> read(Collection<String> keys) {
+        Map<String, Object> subCache = new HashMap<>(keys.size());
+        for (String key : keys) {
+            subCache.put(key, read(key));
+        }
+        return subCache;
+    }
+
+    /**
+     * 设置缓存
+     *
+     * @param key    缓存KEY
+     * @param value  缓存内容
+     * @param expire 指定缓存过期时间(毫秒),{@link CacheExpire#FOREVER}表示永不过期
+     */
+    @Override
+    public void write(String key, Object value, long expire) {
+        long expireTime = expire > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(expire) : 0L;
+        Node node = new Node(key, value, weigher.weigh(key, value), expireTime, expire > 0);
+        Node prior = data.put(key, node);
+        if (null != prior) {
+            afterWrite(() -> onRemove(prior));
+        }
+        afterWrite(() -> onAdd(node));
+    }
+
+    /**
+     * 设置缓存
+     *
+     * @param keyValueMap 缓存内容
+     * @param expire      指定缓存过期时间(毫秒)
+     */
+    @Override
+    public void write(Map<String, Object> keyValueMap, long expire) {
+        if (MapKit.isNotEmpty(keyValueMap)) {
+            keyValueMap.forEach((key, value) -> write(key, value, expire));
+        }
+    }
+
+    @Override
+    public void remove(String... keys) {
+        for (String key : keys) {
+            Node node = data.remove(key);
+            if (null != node) {
+                afterWrite(() -> onRemove(node));
+            }
+        }
+    }
+
+    /**
+     * 清理过期的缓存并执行挂起的淘汰
+     */
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return 当前缓存条目数量(可能包含尚未清理的过期条目)
+     */
+    public long size() {
+        return data.size();
+    }
+
+    /**
+     * @return 因容量不足被淘汰的条目总数(不含过期与主动删除)
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return 已生效的总权重
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.offer(task);
+        if (pendingWrites.incrementAndGet() > WRITE_BUFFER_MAX) {
+            // 写入速度超过维护速度时,由写线程承担维护工作
+            clear();
+        } else {
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        do {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    private void maintenance() {
+        readBuffer.drainTo(this);
+
+        Runnable task;
+        while (null != (task = writeBuffer.poll())) {
+            pendingWrites.decrementAndGet();
+            task.run();
+        }
+
+        timerWheel.advance(System.nanoTime(), this::evictNode);
+        evictEntries();
+    }
+
+    private void onAdd(Node node) {
+        if (node.queue != Node.PENDING) {
+            return;
+        }
+        if (data.size() > sketch.capacity() && sketch.capacity() < maximum) {
+            sketch.ensureCapacity(Math.min(maximum, 2L * data.size()));
+        }
+        sketch.increment(node.key);
+
+        node.queue = Node.WINDOW;
+        window.addLast(node);
+        windowWeightedSize += node.weight;
+        weightedSize += node.weight;
+        if (node.expires) {
+            timerWheel.schedule(node);
+        }
+    }
+
+    private void onRemove(Node node) {
+        if (node.queue == Node.PENDING) {
+            node.queue = Node.DEAD;
+        } else if (node.queue != Node.DEAD) {
+            unlink(node);
+        }
+    }
+
+    private void onAccess(Node node) {
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.moveToBack(node);
+                break;
+            case Node.PROBATION:
+                probation.remove(node);
+                protect.addLast(node);
+                node.queue = Node.PROTECTED;
+                protectedWeightedSize += node.weight;
+                demoteFromProtected();
+                break;
+            case Node.PROTECTED:
+                protect.moveToBack(node);
+                break;
+            default:
+                // 尚未加入或已被移除
+                break;
+        }
+    }
+
+    private void demoteFromProtected() {
+        while (protectedWeightedSize > protectedMaximum) {
+            Node demoted = protect.peekFirst();
+            if (null == demoted) {
+                break;
+            }
+            protect.remove(demoted);
+            probation.addLast(demoted);
+            demoted.queue = Node.PROBATION;
+            protectedWeightedSize -= demoted.weight;
+        }
+    }
+
+    private void evictEntries() {
+        Node candidate = evictFromWindow();
+        evictFromMain(candidate);
+    }
+
+    /**
+     * 将窗口区溢出的条目移入试用区,作为准入候选
+     *
+     * @return 第一个候选条目
+     */
+    private Node evictFromWindow() {
+        Node first = null;
+        Node node = window.peekFirst();
+        while (windowWeightedSize > windowMaximum && null != node) {
+            Node next = node.next;
+            window.remove(node);
+            probation.addLast(node);
+            node.queue = Node.PROBATION;
+            windowWeightedSize -= node.weight;
+            if (null == first) {
+                first = node;
+            }
+            node = next;
+        }
+        return first;
+    }
+
+    /**
+     * 总权重超限时,在试用区队首(牺牲者)与候选者之间按访问频率决定淘汰对象
+     *
+     * @param candidate 候选条目
+     */
+    private void evictFromMain(Node candidate) {
+        while (weightedSize > maximum) {
+            Node victim = probation.peekFirst();
+            if (null == victim) {
+                victim = protect.peekFirst();
+            }
+            if (null == victim) {
+                victim = window.peekFirst();
+            }
+            if (null == victim) {
+                break;
+            }
+
+            evictionCount++;
+            if (null == candidate || candidate.queue != Node.PROBATION) {
+                candidate = null;
+                evictNode(victim);
+            } else if (candidate == victim) {
+                candidate = candidate.next;
+                evictNode(victim);
+            } else if (admit(candidate.key, victim.key)) {
+                evictNode(victim);
+            } else {
+                Node evict = candidate;
+                candidate = candidate.next;
+                evictNode(evict);
+            }
+        }
+    }
+
+    private boolean admit(String candidateKey, String victimKey) {
+        int victimFreq = sketch.frequency(victimKey);
+        int candidateFreq = sketch.frequency(candidateKey);
+        if (candidateFreq > victimFreq) {
+            return true;
+        } else if (candidateFreq <= 5) {
+            return false;
+        }
+        // 随机准入少量高频候选,防止针对准入策略的哈希碰撞攻击
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    private void evictNode(Node node) {
+        data.remove(node.key, node);
+        if (node.queue != Node.DEAD) {
+            unlink(node);
+        }
+    }
+
+    private void unlink(Node node) {
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.remove(node);
+                windowWeightedSize -= node.weight;
+                break;
+            case Node.PROBATION:
+                probation.remove(node);
+                break;
+            case Node.PROTECTED:
+                protect.remove(node);
+                protectedWeightedSize -= node.weight;
+                break;
+            default:
+                return;
+        }
+        weightedSize -= node.weight;
+        if (node.expires) {
+            timerWheel.deschedule(node);
+        }
+        node.queue = Node.DEAD;
+    }
+
+    /**
+     * 条目权重计算器
+     */
+    @FunctionalInterface
+    public interface Weigher {
+
+        /**
+         * 计算条目权重
+         *
+         * @param key   缓存KEY
+         * @param value 缓存内容
+         * @return 非负权重
+         */
+        int weigh(String key, Object value);
+
+    }
+
+    /**
+     * 缓存条目,同时作为访问顺序队列与时间轮中的链表节点
+     */
+    static final class Node {
+
+        static final int PENDING = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+        static final int DEAD = 4;
+
+        final String key;
+        final Object value;
+        final int weight;
+        final long expireTime;
+        final boolean expires;
+
+        int queue;
+        Node prev;
+        Node next;
+        Node previousInTime;
+        Node nextInTime;
+
+        Node(String key, Object value, int weight, long expireTime, boolean expires) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expireTime = expireTime;
+            this.expires = expires;
+        }
+
+        static Node sentinel() {
+            Node sentinel = new Node(null, null, 0, 0L, false);
+            sentinel.previousInTime = sentinel;
+            sentinel.nextInTime = sentinel;
+            return sentinel;
+        }
+
+        boolean hasExpired(long now) {
+            return expires && (now - expireTime) >= 0;
+        }
+
+    }
+
+    /**
+     * 侵入式双向链表,按访问顺序排列条目
+     */
+    static final class AccessOrderDeque {
+
+        private Node head;
+        private Node tail;
+
+        Node peekFirst() {
+            return head;
+        }
+
+        void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (null == tail) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node node) {
+            if (null == node.prev) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (null == node.next) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+    }
+
+    /**
+     * 按线程分段的有损环形缓冲区,记录读命中,缓冲区满时丢弃记录并触发维护
+     */
+    static final class ReadBuffer {
+
+        private static final int BUFFER_SIZE = 16;
+        private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+        private final Stripe[] stripes;
+        private final int mask;
+
+        ReadBuffer() {
+            int count = FrequencySketch.ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+            this.stripes = new Stripe[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new Stripe();
+            }
+            this.mask = count - 1;
+        }
+
+        /**
+         * 记录一次读命中
+         *
+         * @param node 命中的条目
+         * @return 是否需要执行维护
+         */
+        boolean offer(Node node) {
+            long id = Thread.currentThread().getId();
+            Stripe stripe = stripes[(int) (id ^ (id >>> 16)) & mask];
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+            if (tail - head >= BUFFER_SIZE) {
+                return true;
+            }
+            if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+                stripe.buffer.lazySet((int) (tail & BUFFER_MASK), node);
+            }
+            return false;
+        }
+
+        void drainTo(TinyLfuCache cache) {
+            for (Stripe stripe : stripes) {
+                long head = stripe.readCounter;
+                long tail = stripe.writeCounter.get();
+                for (; head != tail; head++) {
+                    int index = (int) (head & BUFFER_MASK);
+                    Node node = stripe.buffer.get(index);
+                    if (null == node) {
+                        // 写入尚未完成,留待下次处理
+                        break;
+                    }
+                    stripe.buffer.lazySet(index, null);
+                    cache.onAccess(node);
+                }
+                stripe.readCounter = head;
+            }
+        }
+
+        static final class Stripe {
+
+            final AtomicReferenceArray<Node> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+            final AtomicLong writeCounter = new AtomicLong();
+            volatile long readCounter;
+
+        }
+
+    }
+
+}
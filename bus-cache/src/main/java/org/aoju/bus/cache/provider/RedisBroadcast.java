@@ -0,0 +1,133 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.provider;
+
+import org.aoju.bus.cache.Broadcast;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+import org.aoju.bus.logger.Logger;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于Redis发布/订阅的缓存失效广播
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class RedisBroadcast implements Broadcast {
+
+    private static final String SEPARATOR = "\u0000";
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private volatile boolean closed;
+
+    private JedisPool jedisPool;
+
+    private String channel;
+
+    private JedisPubSub pubSub = new JedisPubSub() {
+        @Override
+        public void onMessage(String channel, String message) {
+            String[] parts = message.split(SEPARATOR);
+            String[] keys = Arrays.copyOfRange(parts, 1, parts.length);
+            for (Listener listener : listeners) {
+                listener.onInvalid(parts[0], keys);
+            }
+        }
+    };
+
+    public RedisBroadcast(JedisPool jedisPool) {
+        this(jedisPool, "bus:cache:invalid");
+    }
+
+    public RedisBroadcast(JedisPool jedisPool, String channel) {
+        this.jedisPool = jedisPool;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(String source, String... keys) {
+        if (keys.length == 0) {
+            return;
+        }
+        StringBuilder message = new StringBuilder(source);
+        for (String key : keys) {
+            message.append(SEPARATOR).append(key);
+        }
+        try (Jedis client = jedisPool.getResource()) {
+            client.publish(channel, message.toString());
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+        if (started.compareAndSet(false, true)) {
+            new NamedThreadFactory("cache-broadcast-", true).newThread(this::listen).start();
+        }
+    }
+
+    private void listen() {
+        while (!closed) {
+            try (Jedis client = jedisPool.getResource()) {
+                // 阻塞直到取消订阅或连接断开
+                client.subscribe(pubSub, channel);
+            } catch (Exception e) {
+                if (closed) {
+                    break;
+                }
+                Logger.warn("cache broadcast subscribe [{}] failed, retrying: {}", channel, e.getMessage());
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void tearDown() {
+        closed = true;
+        if (pubSub.isSubscribed()) {
+            pubSub.unsubscribe();
+        }
+    }
+
+}
@@ -26,7 +26,6 @@
 package org.aoju.bus.cache.provider;
 
 import org.aoju.bus.cache.Hitting;
-import org.aoju.bus.cache.magic.CachePair;
 import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.logger.Logger;
 import org.apache.curator.framework.CuratorFramework;
@@ -36,11 +35,9 @@ import org.apache.curator.framework.recipes.atomic.DistributedAtomicLong;
 import org.apache.curator.retry.RetryNTimes;
 import org.apache.zookeeper.KeeperException;
 
-import javax.annotation.PreDestroy;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -50,24 +47,11 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class ZookeeperHitting implements Hitting {
 
-    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-        Thread thread = new Thread(r);
-        thread.setName("cache:zk-uploader");
-        thread.setDaemon(true);
-        return thread;
-    });
-
     private static final String NAME_SPACE = "cache";
 
-    private volatile boolean isShutdown = false;
-
-    private BlockingQueue<CachePair<String, Integer>> hitQueue = new LinkedTransferQueue<>();
-
-    private BlockingQueue<CachePair<String, Integer>> requireQueue = new LinkedTransferQueue<>();
+    private Map<String, DistributedAtomicLong> hitCounterMap = new ConcurrentHashMap<>();
 
-    private Map<String, DistributedAtomicLong> hitCounterMap = new HashMap<>();
-
-    private Map<String, DistributedAtomicLong> requireCounterMap = new HashMap<>();
+    private Map<String, DistributedAtomicLong> requireCounterMap = new ConcurrentHashMap<>();
 
     private CuratorFramework client;
 
@@ -98,25 +82,21 @@ public class ZookeeperHitting implements Hitting {
         } catch (Exception e) {
             throw new RuntimeException("create path: " + hitPathPrefix + ", " + requirePathPrefix + " on namespace: " + NAME_SPACE + " error", e);
         }
-
-        executor.submit(() -> {
-            while (!isShutdown) {
-                dumpToZK(hitQueue, hitCounterMap, hitPathPrefix);
-                dumpToZK(requireQueue, requireCounterMap, requirePathPrefix);
-            }
-        });
     }
 
+    /**
+     * 计数已由CacheMetrics在进程内按周期汇总, 此处直接写入zookeeper
+     */
     @Override
     public void hitIncr(String pattern, int count) {
         if (count != 0)
-            hitQueue.add(CachePair.of(pattern, count));
+            dumpToZK(hitCounterMap, hitPathPrefix, pattern, count);
     }
 
     @Override
     public void reqIncr(String pattern, int count) {
         if (count != 0)
-            requireQueue.add(CachePair.of(pattern, count));
+            dumpToZK(requireCounterMap, requirePathPrefix, pattern, count);
     }
 
     @Override
@@ -156,18 +136,6 @@ public class ZookeeperHitting implements Hitting {
         requireCounterMap.forEach(this::doReset);
     }
 
-    @PreDestroy
-    public void tearDown() {
-        while (hitQueue.size() > 0 || requireQueue.size() > 0) {
-            try {
-                TimeUnit.SECONDS.sleep(1);
-            } catch (InterruptedException ignored) {
-            }
-        }
-
-        isShutdown = true;
-    }
-
     private String processProductName(String productName) {
         if (!productName.startsWith(Symbol.SLASH)) {
             productName = Symbol.SLASH + productName;
@@ -190,28 +158,14 @@ public class ZookeeperHitting implements Hitting {
         return null;
     }
 
-    private void dumpToZK(BlockingQueue<CachePair<String, Integer>> queue, Map<String, DistributedAtomicLong> counterMap, String zkPrefix) {
-        long count = 0;
-        CachePair<String, Integer> head;
-
-        // 将queue中所有的 || 前100条数据聚合到一个暂存Map中
-        Map<String, AtomicLong> holdMap = new HashMap<>();
-        while ((head = queue.poll()) != null && count <= 100) {
-            holdMap
-                    .computeIfAbsent(head.getLeft(), (key) -> new AtomicLong(0L))
-                    .addAndGet(head.getRight());
-            ++count;
+    private void dumpToZK(Map<String, DistributedAtomicLong> counterMap, String zkPrefix, String pattern, long count) {
+        String zkPath = String.format("%s/%s", zkPrefix, pattern);
+        DistributedAtomicLong counter = counterMap.computeIfAbsent(pattern, (key) -> new DistributedAtomicLong(client, zkPath, new RetryNTimes(10, 10)));
+        try {
+            counter.add(count).postValue();
+        } catch (Exception e) {
+            Logger.error(e, "dump data to zookeeper error: ", e.getMessage());
         }
-
-        holdMap.forEach((pattern, atomicCount) -> {
-            String zkPath = String.format("%s/%s", zkPrefix, pattern);
-            DistributedAtomicLong counter = counterMap.computeIfAbsent(pattern, (key) -> new DistributedAtomicLong(client, zkPath, new RetryNTimes(10, 10)));
-            try {
-                counter.add(atomicCount.get()).postValue();
-            } catch (Exception e) {
-                Logger.error(e, "dump data from queue to zookeeper error: ", e.getMessage());
-            }
-        });
     }
 
     private long getValue(Object value) throws Exception {
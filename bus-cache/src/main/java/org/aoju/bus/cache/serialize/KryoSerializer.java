@@ -0,0 +1,191 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.serialize;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import org.aoju.bus.core.lang.Normal;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.extra.effect.EffectFactory;
+import org.aoju.bus.extra.effect.EffectProvider;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基于Kryo的二进制序列化
+ * <p>
+ * 1. 通过注册类ID代替全限定类名,未注册的类型仍可序列化;
+ * 2. 每个线程复用一个Kryo实例与输出缓冲区,避免频繁分配;
+ * 3. 可选地对超过阈值的数据使用{@link EffectProvider}进行压缩(如lz4),
+ * 数据首字节标识是否压缩,因此阈值或压缩算法的调整不影响已有数据的读取
+ * <p>
+ * 注意: 注册的类ID需在所有读写节点上保持一致
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class KryoSerializer extends AbstractSerializer {
+
+    /**
+     * 未压缩标识
+     */
+    private static final byte RAW = 0;
+    /**
+     * 已压缩标识
+     */
+    private static final byte COMPRESSED = 1;
+    /**
+     * 输出缓冲区初始大小
+     */
+    private static final int BUFFER_SIZE = 4 * 1024;
+    /**
+     * 线程可保留的最大缓冲区,超出后丢弃以免长期占用内存
+     */
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+
+    /**
+     * 类型与注册ID
+     */
+    private final Map<Class<?>, Integer> registrations;
+    /**
+     * 压缩算法,为空则不压缩
+     */
+    private final EffectProvider provider;
+    /**
+     * 压缩阈值(字节)
+     */
+    private final int threshold;
+
+    private final ThreadLocal<Holder> holder = ThreadLocal.withInitial(this::create);
+
+    public KryoSerializer() {
+        this(Collections.emptyMap());
+    }
+
+    public KryoSerializer(Map<Class<?>, Integer> registrations) {
+        this(registrations, (EffectProvider) null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param registrations 类型与注册ID
+     * @param compress      压缩算法名称,对应{@link EffectFactory}中的SPI名称,如lz4、snappy
+     * @param threshold     超过该字节数时进行压缩
+     */
+    public KryoSerializer(Map<Class<?>, Integer> registrations, String compress, int threshold) {
+        this(registrations, EffectFactory.CF.get(compress), threshold);
+        if (null == this.provider) {
+            throw new InstrumentException("Unknown compress provider: " + compress);
+        }
+    }
+
+    public KryoSerializer(Map<Class<?>, Integer> registrations, EffectProvider provider, int threshold) {
+        this.registrations = new LinkedHashMap<>(registrations);
+        this.provider = provider;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected byte[] doSerialize(Object obj) throws Throwable {
+        Holder holder = this.holder.get();
+        Output output = holder.output;
+        try {
+            output.reset();
+            output.writeByte(RAW);
+            holder.kryo.writeClassAndObject(output, obj);
+
+            int length = output.position() - 1;
+            if (null == provider || length <= threshold) {
+                return output.toBytes();
+            }
+
+            byte[] compressed = provider.compress(Arrays.copyOfRange(output.getBuffer(), 1, output.position()));
+            byte[] result = new byte[compressed.length + 1];
+            result[0] = COMPRESSED;
+            System.arraycopy(compressed, 0, result, 1, compressed.length);
+            return result;
+        } finally {
+            if (output.getBuffer().length > MAX_POOLED_BUFFER) {
+                holder.output = new Output(BUFFER_SIZE, -1);
+            }
+        }
+    }
+
+    @Override
+    protected Object doDeserialize(byte[] bytes) throws Throwable {
+        if (bytes.length == 0) {
+            return null;
+        }
+
+        Holder holder = this.holder.get();
+        Input input = holder.input;
+        try {
+            if (bytes[0] == COMPRESSED) {
+                if (null == provider) {
+                    throw new InstrumentException("Compressed data but no compress provider configured");
+                }
+                byte[] payload = provider.uncompress(Arrays.copyOfRange(bytes, 1, bytes.length));
+                input.setBuffer(payload);
+            } else {
+                input.setBuffer(bytes, 1, bytes.length - 1);
+            }
+            return holder.kryo.readClassAndObject(input);
+        } finally {
+            input.setBuffer(Normal.EMPTY_BYTE_ARRAY);
+        }
+    }
+
+    private Holder create() {
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(true);
+        kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        for (Map.Entry<Class<?>, Integer> entry : registrations.entrySet()) {
+            kryo.register(entry.getKey(), entry.getValue());
+        }
+        return new Holder(kryo);
+    }
+
+    private static class Holder {
+
+        private final Kryo kryo;
+
+        private final Input input = new Input();
+
+        private Output output = new Output(BUFFER_SIZE, -1);
+
+        Holder(Kryo kryo) {
+            this.kryo = kryo;
+        }
+    }
+
+}
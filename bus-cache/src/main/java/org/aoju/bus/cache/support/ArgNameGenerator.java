@@ -41,7 +41,7 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class ArgNameGenerator {
 
-    private static final String X_ARGS_PREFIX = "args";
+    static final String X_ARGS_PREFIX = "args";
     private static final ConcurrentMap<Method, String[]> methodParameterNames = new ConcurrentHashMap<>();
     private static String[] X_ARGS = {
             X_ARGS_PREFIX + 0,
@@ -115,7 +115,9 @@ public class CacheInfoContainer {
         return builder
                 .setCache(cached.value())
                 .setPrefix(cached.prefix())
-                .setExpire(cached.expire());
+                .setExpire(cached.expire())
+                .setRefresh(cached.refresh())
+                .setSingleFlight(cached.singleFlight());
     }
 
     private static AnnoHolder.Builder scanCachedGet(AnnoHolder.Builder builder, CachedGet cachedGet) {
@@ -150,6 +152,8 @@ public class CacheInfoContainer {
             throw new RuntimeException("cache need at least one param key");
         } else if (isInvalidMultiCount(annoHolder.getCacheKeyMap())) {
             throw new RuntimeException("only one multi key");
+        } else if (isInvalidRefresh(annoHolder)) {
+            throw new RuntimeException("refresh must be less than expire");
         } else {
             Map<Integer, CacheKey> cacheKeyMap = annoHolder.getCacheKeyMap();
             for (Map.Entry<Integer, CacheKey> entry : cacheKeyMap.entrySet()) {
@@ -208,6 +212,12 @@ public class CacheInfoContainer {
         return multiCount > 1;
     }
 
+    private static boolean isInvalidRefresh(AnnoHolder annoHolder) {
+        return annoHolder.isRefresh()
+                && annoHolder.getExpire() != CacheExpire.FOREVER
+                && annoHolder.getRefresh() >= annoHolder.getExpire();
+    }
+
     private static boolean isInvalidIdentifier(boolean isMapReturn,
                                                boolean isCollectionReturn,
                                                String field) {
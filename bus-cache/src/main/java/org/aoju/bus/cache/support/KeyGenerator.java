@@ -28,7 +28,10 @@ package org.aoju.bus.cache.support;
 import org.aoju.bus.cache.annotation.CacheKey;
 import org.aoju.bus.cache.magic.AnnoHolder;
 
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
@@ -38,12 +41,16 @@ import java.util.stream.Collectors;
  */
 public class KeyGenerator {
 
+    // 批量模式下追加了`#i`的参数名
+    private static final ConcurrentMap<Method, String[]> multiArgNames = new ConcurrentHashMap<>();
+
     public static String generateSingleKey(AnnoHolder annoHolder, Object[] argValues) {
-        String[] argNames = ArgNameGenerator.getArgNames(annoHolder.getMethod());
+        Method method = annoHolder.getMethod();
+        String[] argNames = ArgNameGenerator.getArgNames(method);
         Map<Integer, CacheKey> cacheKeyMap = annoHolder.getCacheKeyMap();
         String prefix = annoHolder.getPrefix();
 
-        return doGenerateKey(cacheKeyMap, prefix, argNames, argValues);
+        return doGenerateKey(method, cacheKeyMap, prefix, argNames, argValues);
     }
 
     public static Map[] generateMultiKey(AnnoHolder annoHolder, Object[] argValues) {
@@ -59,18 +66,22 @@ public class KeyGenerator {
         // 全局prefix
         String prefix = annoHolder.getPrefix();
 
-        // 根据方法获取原始的参数名
-        String[] argNames = ArgNameGenerator.getArgNames(annoHolder.getMethod());
-        // 给参数名添加一个`#i`遍历指令
-        String[] appendArgNames = (String[]) appendArray(argNames, "i");
+        // 根据方法获取原始的参数名, 并添加一个`#i`遍历指令
+        Method method = annoHolder.getMethod();
+        String[] appendArgNames = multiArgNames.computeIfAbsent(method,
+                (key) -> (String[]) appendArray(ArgNameGenerator.getArgNames(key), "i"));
+
+        // 参数值数组只复制一次, 每次遍历仅更新`#i`指令的值
+        Object[] appendArgValues = appendArray(argValues, 0);
+        int indexPosition = argValues.length;
 
         int i = 0;
         for (Object multiElement : multiArgEntries) {
 
             // 给参数值数组的`#i`指令赋值
-            Object[] appendArgValues = appendArray(argValues, i);
+            appendArgValues[indexPosition] = i;
 
-            String key = doGenerateKey(argIndex2CacheKey, prefix, appendArgNames, appendArgValues);
+            String key = doGenerateKey(method, argIndex2CacheKey, prefix, appendArgNames, appendArgValues);
 
             key2MultiEntry.put(key, multiElement);
             multiEntry2Key.put(multiElement, key);
@@ -80,7 +91,7 @@ public class KeyGenerator {
         return new Map[]{multiEntry2Key, key2MultiEntry};
     }
 
-    private static String doGenerateKey(Map<Integer, CacheKey> parameterIndex2CacheKey,
+    private static String doGenerateKey(Method method, Map<Integer, CacheKey> parameterIndex2CacheKey,
                                         String prefix, String[] argNames, Object[] argValues) {
 
         StringBuilder sb = new StringBuilder(prefix);
@@ -89,7 +100,7 @@ public class KeyGenerator {
             String argSpel = entry.getValue().value();
 
             Object defaultValue = getDefaultValue(argValues, argIndex);
-            Object keyPart = SpelCalculator.calcSpelValueWithContext(argSpel, argNames, argValues, defaultValue);
+            Object keyPart = SpelCalculator.calcSpelValueWithContext(method, argSpel, argNames, argValues, defaultValue);
 
             sb.append(keyPart);
 
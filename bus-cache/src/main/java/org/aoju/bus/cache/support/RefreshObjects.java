@@ -0,0 +1,81 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.cache.support;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 开启预刷新(refresh-ahead)时写入缓存的包装对象,记录值的软过期时间
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class RefreshObjects {
+
+    public static Object wrap(Object value, long refresh) {
+        if (null == value || PreventObjects.isPrevent(value)) {
+            return value;
+        }
+        return new RefreshObj(value, System.currentTimeMillis() + refresh);
+    }
+
+    public static Map<String, Object> wrap(Map<String, Object> keyValueMap, long refresh) {
+        Map<String, Object> result = new HashMap<>(keyValueMap.size());
+        keyValueMap.forEach((key, value) -> result.put(key, wrap(value, refresh)));
+        return result;
+    }
+
+    public static boolean isRefresh(Object object) {
+        return object instanceof RefreshObj;
+    }
+
+    public static boolean isStale(Object object) {
+        return object instanceof RefreshObj
+                && System.currentTimeMillis() >= ((RefreshObj) object).refreshAt;
+    }
+
+    public static Object unwrap(Object object) {
+        return object instanceof RefreshObj ? ((RefreshObj) object).value : object;
+    }
+
+    private static final class RefreshObj implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Object value;
+
+        private long refreshAt;
+
+        private RefreshObj(Object value, long refreshAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+}
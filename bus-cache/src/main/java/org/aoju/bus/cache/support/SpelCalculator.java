@@ -27,13 +27,29 @@ package org.aoju.bus.cache.support;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.*;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Spel表达式的计算功能(@Cached内的condition、@CacheKey内的spel只是作为一个增值服务, 并不作为核心功能, 只是作为key拼装的一个亮点, 并不是必须功能)
+ * <p>
+ * 表达式按(方法, 表达式)解析一次后缓存, 并开启SpEL混合编译模式;
+ * 形如{@code #arg0}、{@code #arg0.id}、{@code #arg0[#i].id}的简单属性路径直接通过缓存的访问器求值,
+ * 无法直接求值时(如Map、空值、越界等)回退到SpEL, 以保证与SpEL语义一致
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -41,36 +57,428 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
  */
 public class SpelCalculator {
 
-    private static final ExpressionParser parser = new SpelExpressionParser();
+    private static final ExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, SpelCalculator.class.getClassLoader()));
+
+    /**
+     * 变量形式的简单属性路径: #name、#name.a.b、#name[#i].a
+     */
+    private static final Pattern VARIABLE_PATH = Pattern.compile("#([A-Za-z_$][\\w$]*)(\\[#i])?((?:\\.[A-Za-z_$][\\w$]*)*)");
+
+    /**
+     * 根对象形式的简单属性路径: a、a.b
+     */
+    private static final Pattern ROOT_PATH = Pattern.compile("([A-Za-z_$][\\w$]*)((?:\\.[A-Za-z_$][\\w$]*)*)");
+
+    private static final String INDEX_NAME = "i";
+
+    private static final Object UNRESOLVED = new Object();
+
+    private static final Object NO_METHOD = new Object();
+
+    private static final ConcurrentMap<Object, ConcurrentMap<String, KeyExpression>> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * 提供类型转换、属性访问等共享组件, 不保存任何变量
+     */
+    private static final StandardEvaluationContext shared = new StandardEvaluationContext();
 
     public static Object calcSpelValueWithContext(String spel, String[] argNames, Object[] argValues, Object defaultValue) {
+        return calcSpelValueWithContext(null, spel, argNames, argValues, defaultValue);
+    }
+
+    public static Object calcSpelValueWithContext(Method method, String spel, String[] argNames, Object[] argValues, Object defaultValue) {
         if (Strings.isNullOrEmpty(spel)) {
             return defaultValue;
         }
 
-        // 将[参数名->参数值]导入spel环境
-        EvaluationContext context = new StandardEvaluationContext();
-
         Preconditions.checkState(argNames.length == argValues.length);
-        for (int i = 0; i < argValues.length; ++i) {
-            context.setVariable(argNames[i], argValues[i]);
+        return getExpression(method, spel, true).getValue(argNames, argValues);
+    }
+
+    public static Object calcSpelWithNoContext(String spel, Object defaultValue) {
+        if (Strings.isNullOrEmpty(spel)) {
+            return defaultValue;
         }
 
-        // todo: 先将xArg放到这儿, 后面可以再想下可以放到哪儿?
-        String[] xArgNames = ArgNameGenerator.getXArgNames(argValues.length);
-        for (int i = 0; i < argValues.length; ++i) {
-            context.setVariable(xArgNames[i], argValues[i]);
+        return getExpression(null, spel, false).getValue(defaultValue);
+    }
+
+    private static KeyExpression getExpression(Method method, String spel, boolean withContext) {
+        Object owner = null == method ? NO_METHOD : method;
+        ConcurrentMap<String, KeyExpression> cache = expressions.get(owner);
+        if (null == cache) {
+            cache = expressions.computeIfAbsent(owner, (key) -> new ConcurrentHashMap<>());
         }
 
-        return parser.parseExpression(spel).getValue(context);
+        // 同一表达式在不同上下文中(变量/根对象)的简单路径含义不同, 因此分开缓存
+        String cacheKey = withContext ? spel : '\u0000' + spel;
+        KeyExpression expression = cache.get(cacheKey);
+        if (null == expression) {
+            expression = cache.computeIfAbsent(cacheKey, (key) -> compile(spel, withContext));
+        }
+        return expression;
     }
 
-    public static Object calcSpelWithNoContext(String spel, Object defaultValue) {
-        if (Strings.isNullOrEmpty(spel)) {
-            return defaultValue;
+    private static KeyExpression compile(String spel, boolean withContext) {
+        Expression expression = parser.parseExpression(spel);
+        String trimmed = spel.trim();
+
+        PropertyPath path = null;
+        if (withContext) {
+            Matcher matcher = VARIABLE_PATH.matcher(trimmed);
+            if (matcher.matches() && !"this".equals(matcher.group(1)) && !"root".equals(matcher.group(1))) {
+                path = new PropertyPath(matcher.group(1), null != matcher.group(2), toSteps(matcher.group(3)));
+            }
+        } else {
+            Matcher matcher = ROOT_PATH.matcher(trimmed);
+            if (matcher.matches() && !isKeyword(matcher.group(1))) {
+                path = new PropertyPath(null, false, toSteps(matcher.group(1) + matcher.group(2)));
+            }
+        }
+        return new KeyExpression(expression, path);
+    }
+
+    private static PropertyStep[] toSteps(String path) {
+        if (Strings.isNullOrEmpty(path)) {
+            return new PropertyStep[0];
+        }
+        String[] names = (path.charAt(0) == '.' ? path.substring(1) : path).split("\\.");
+        PropertyStep[] steps = new PropertyStep[names.length];
+        for (int i = 0; i < names.length; i++) {
+            steps[i] = new PropertyStep(names[i]);
+        }
+        return steps;
+    }
+
+    private static boolean isKeyword(String name) {
+        switch (name.toLowerCase()) {
+            case "true":
+            case "false":
+            case "null":
+            case "new":
+            case "t":
+            case "and":
+            case "or":
+            case "not":
+            case "eq":
+            case "ne":
+            case "lt":
+            case "le":
+            case "gt":
+            case "ge":
+            case "div":
+            case "mod":
+            case "instanceof":
+            case "matches":
+            case "between":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Object lookupVariable(String[] argNames, Object[] argValues, String name) {
+        // xArg(args0、args1...)与原参数名同时可用, 同名时以xArg为准
+        int index = xArgIndex(name);
+        if (index >= 0 && index < argValues.length) {
+            return argValues[index];
+        }
+        for (int i = 0; i < argNames.length; ++i) {
+            if (name.equals(argNames[i])) {
+                return argValues[i];
+            }
+        }
+        return UNRESOLVED;
+    }
+
+    private static int xArgIndex(String name) {
+        if (!name.startsWith(ArgNameGenerator.X_ARGS_PREFIX) || name.length() == ArgNameGenerator.X_ARGS_PREFIX.length()) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = ArgNameGenerator.X_ARGS_PREFIX.length(); i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || index > 1000) {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    private static final class KeyExpression {
+
+        private final Expression expression;
+
+        private final PropertyPath path;
+
+        private KeyExpression(Expression expression, PropertyPath path) {
+            this.expression = expression;
+            this.path = path;
+        }
+
+        Object getValue(String[] argNames, Object[] argValues) {
+            if (null != path) {
+                Object value = path.getValue(argNames, argValues);
+                if (value != UNRESOLVED) {
+                    return value;
+                }
+            }
+            return expression.getValue(new ArgsEvaluationContext(argNames, argValues));
+        }
+
+        Object getValue(Object root) {
+            if (null != path) {
+                Object value = path.getValue(root);
+                if (value != UNRESOLVED) {
+                    return value;
+                }
+            }
+            return expression.getValue(root);
+        }
+
+    }
+
+    /**
+     * 简单属性路径, 无法直接求值时返回{@link #UNRESOLVED}
+     */
+    private static final class PropertyPath {
+
+        private final String variable;
+
+        private final boolean indexed;
+
+        private final PropertyStep[] steps;
+
+        private PropertyPath(String variable, boolean indexed, PropertyStep[] steps) {
+            this.variable = variable;
+            this.indexed = indexed;
+            this.steps = steps;
+        }
+
+        Object getValue(String[] argNames, Object[] argValues) {
+            Object target = lookupVariable(argNames, argValues, variable);
+            if (target == UNRESOLVED) {
+                return UNRESOLVED;
+            }
+            if (indexed) {
+                Object index = lookupVariable(argNames, argValues, INDEX_NAME);
+                if (!(index instanceof Integer)) {
+                    return UNRESOLVED;
+                }
+                target = indexOf(target, (Integer) index);
+                if (target == UNRESOLVED) {
+                    return UNRESOLVED;
+                }
+            }
+            return getValue(target);
+        }
+
+        Object getValue(Object target) {
+            for (PropertyStep step : steps) {
+                target = step.getValue(target);
+                if (target == UNRESOLVED) {
+                    return UNRESOLVED;
+                }
+            }
+            return target;
+        }
+
+        private static Object indexOf(Object target, int index) {
+            if (target instanceof List) {
+                List<?> list = (List<?>) target;
+                return index >= 0 && index < list.size() ? list.get(index) : UNRESOLVED;
+            }
+            if (target instanceof Object[]) {
+                Object[] array = (Object[]) target;
+                return index >= 0 && index < array.length ? array[index] : UNRESOLVED;
+            }
+            return UNRESOLVED;
+        }
+
+    }
+
+    /**
+     * 单个属性访问, 以目标类型为键缓存最近一次解析到的访问器
+     */
+    private static final class PropertyStep {
+
+        private static final Object[] NO_ARGS = new Object[0];
+
+        private final String name;
+
+        private volatile Accessor cached;
+
+        private PropertyStep(String name) {
+            this.name = name;
+        }
+
+        Object getValue(Object target) {
+            if (null == target || target instanceof Map || target instanceof Class) {
+                return UNRESOLVED;
+            }
+
+            Class<?> type = target.getClass();
+            Accessor accessor = cached;
+            if (null == accessor || accessor.type != type) {
+                accessor = Accessor.resolve(type, name);
+                if (null == accessor) {
+                    return UNRESOLVED;
+                }
+                cached = accessor;
+            }
+
+            try {
+                return null != accessor.getter ? accessor.getter.invoke(target, NO_ARGS) : accessor.field.get(target);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return UNRESOLVED;
+            }
+        }
+
+    }
+
+    private static final class Accessor {
+
+        private final Class<?> type;
+
+        private final Method getter;
+
+        private final Field field;
+
+        private Accessor(Class<?> type, Method getter, Field field) {
+            this.type = type;
+            this.getter = getter;
+            this.field = field;
+        }
+
+        static Accessor resolve(Class<?> type, String name) {
+            String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            Method getter = findGetter(type, "get" + suffix, false);
+            if (null == getter) {
+                getter = findGetter(type, "is" + suffix, true);
+            }
+            if (null == getter && name.length() > 1 && Character.isUpperCase(name.charAt(1))) {
+                getter = findGetter(type, "get" + name, false);
+            }
+
+            try {
+                if (null != getter) {
+                    if (!Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+                        getter.setAccessible(true);
+                    }
+                    return new Accessor(type, getter, null);
+                }
+
+                Field field = type.getField(name);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    return null;
+                }
+                if (!Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+                    field.setAccessible(true);
+                }
+                return new Accessor(type, null, field);
+            } catch (NoSuchFieldException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private static Method findGetter(Class<?> type, String name, boolean bool) {
+            try {
+                Method method = type.getMethod(name);
+                Class<?> returnType = method.getReturnType();
+                if (Modifier.isStatic(method.getModifiers()) || returnType == void.class) {
+                    return null;
+                }
+                if (bool && returnType != boolean.class && returnType != Boolean.class) {
+                    return null;
+                }
+                return method;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+    }
+
+    /**
+     * 直接从参数数组中查找变量的求值上下文, 避免每次调用都构建变量表
+     */
+    private static final class ArgsEvaluationContext implements EvaluationContext {
+
+        private final String[] argNames;
+
+        private final Object[] argValues;
+
+        private Map<String, Object> variables;
+
+        private ArgsEvaluationContext(String[] argNames, Object[] argValues) {
+            this.argNames = argNames;
+            this.argValues = argValues;
+        }
+
+        @Override
+        public TypedValue getRootObject() {
+            return TypedValue.NULL;
+        }
+
+        @Override
+        public List<PropertyAccessor> getPropertyAccessors() {
+            return shared.getPropertyAccessors();
+        }
+
+        @Override
+        public List<ConstructorResolver> getConstructorResolvers() {
+            return shared.getConstructorResolvers();
+        }
+
+        @Override
+        public List<MethodResolver> getMethodResolvers() {
+            return shared.getMethodResolvers();
+        }
+
+        @Override
+        public BeanResolver getBeanResolver() {
+            return null;
+        }
+
+        @Override
+        public TypeLocator getTypeLocator() {
+            return shared.getTypeLocator();
+        }
+
+        @Override
+        public TypeConverter getTypeConverter() {
+            return shared.getTypeConverter();
+        }
+
+        @Override
+        public TypeComparator getTypeComparator() {
+            return shared.getTypeComparator();
+        }
+
+        @Override
+        public OperatorOverloader getOperatorOverloader() {
+            return shared.getOperatorOverloader();
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            if (null == variables) {
+                variables = new HashMap<>();
+            }
+            variables.put(name, value);
+        }
+
+        @Override
+        public Object lookupVariable(String name) {
+            if (null != variables && variables.containsKey(name)) {
+                return variables.get(name);
+            }
+            Object value = SpelCalculator.lookupVariable(argNames, argValues, name);
+            return value == UNRESOLVED ? null : value;
         }
 
-        return parser.parseExpression(spel).getValue(defaultValue);
     }
 
 }
@@ -116,7 +116,7 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
      * @param fieldName 字段名
      * @return 映射值，无对应值返回字段名
      */
-    private static String mappingKey(Map<String, String> mapping, String fieldName) {
+    static String mappingKey(Map<String, String> mapping, String fieldName) {
         if (MapKit.isEmpty(mapping)) {
             return fieldName;
         }
@@ -153,7 +153,45 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
      * @param destBean     目标Bean
      */
     private void beanToBean(Object providerBean, Object destBean) {
-        valueProviderToBean(new BeanValueProvider(providerBean, this.copyOptions.ignoreCase, this.copyOptions.ignoreError), destBean);
+        final CopyOptions copyOptions = this.copyOptions;
+        final CopyPlan plan = CopyPlan.of(providerBean.getClass(), actualEditable(destBean), copyOptions);
+
+        ValueProvider<String> valueProvider = null;
+        Object value;
+        for (CopyPlan.Entry entry : plan.getEntries()) {
+            if (false == entry.isDirect()) {
+                // 需要类型转换或泛型解析的属性走值提供器
+                if (null == valueProvider) {
+                    valueProvider = new BeanValueProvider(providerBean, copyOptions.ignoreCase, copyOptions.ignoreError);
+                }
+                injectValue(valueProvider, destBean, entry.getProp(), entry.getProviderKey());
+                continue;
+            }
+
+            try {
+                value = entry.read(providerBean);
+                if (null == value && copyOptions.ignoreNullValue) {
+                    continue;// 当允许跳过空时，跳过
+                }
+                if (destBean == value) {
+                    continue;// 值不能为bean本身，防止循环引用
+                }
+                if (null == value && entry.getProp().getFieldClass().isPrimitive()) {
+                    // 原始类型不接受null，交由转换器处理默认值
+                    if (null == valueProvider) {
+                        valueProvider = new BeanValueProvider(providerBean, copyOptions.ignoreCase, copyOptions.ignoreError);
+                    }
+                    injectValue(valueProvider, destBean, entry.getProp(), entry.getProviderKey());
+                    continue;
+                }
+                entry.write(destBean, value);
+            } catch (Exception e) {
+                if (false == copyOptions.ignoreError) {
+                    throw new InstrumentException("Inject [{}] error!", entry.getProp().getFieldName());
+                }
+                // 忽略注入失败
+            }
+        }
     }
 
     /**
@@ -188,41 +226,34 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
      * @param targetMap 目标的Map
      */
     private void beanToMap(Object bean, Map targetMap) {
-        final Collection<PropertyDescription> props = BeanKit.getBeanDesc(bean.getClass()).getProps();
         final HashSet<String> ignoreSet = (null != copyOptions.ignoreProperties) ? CollKit.newHashSet(copyOptions.ignoreProperties) : null;
         final CopyOptions copyOptions = this.copyOptions;
 
         String key;
-        Method getter;
         Object value;
-        for (PropertyDescription prop : props) {
-            key = prop.getFieldName();
-            // 过滤class属性
-            // 得到property对应的getter方法
-            getter = prop.getGetter();
-            if (null != getter) {
-                // 只读取有getter方法的属性
-                try {
-                    value = getter.invoke(bean);
-                } catch (Exception e) {
-                    if (copyOptions.ignoreError) {
-                        continue;// 忽略反射失败
-                    } else {
-                        throw new InstrumentException("Get value of [{}] error!", prop.getFieldName());
-                    }
-                }
-                if (CollKit.contains(ignoreSet, key)) {
-                    // 目标属性值被忽略或值提供者无此key时跳过
-                    continue;
-                }
-                if (null == value && copyOptions.ignoreNullValue) {
-                    continue;// 当允许跳过空时,跳过
-                }
-                if (bean.equals(value)) {
-                    continue;// 值不能为bean本身,防止循环引用
+        // 只读取有getter方法的属性
+        for (CopyPlan.Reader reader : CopyPlan.readers(bean.getClass())) {
+            key = reader.getFieldName();
+            try {
+                value = reader.read(bean);
+            } catch (Exception e) {
+                if (copyOptions.ignoreError) {
+                    continue;// 忽略反射失败
+                } else {
+                    throw new InstrumentException("Get value of [{}] error!", key);
                 }
-                targetMap.put(mappingKey(copyOptions.fieldMapping, key), value);
             }
+            if (CollKit.contains(ignoreSet, key)) {
+                // 目标属性值被忽略或值提供者无此key时跳过
+                continue;
+            }
+            if (null == value && copyOptions.ignoreNullValue) {
+                continue;// 当允许跳过空时,跳过
+            }
+            if (bean.equals(value)) {
+                continue;// 值不能为bean本身,防止循环引用
+            }
+            targetMap.put(mappingKey(copyOptions.fieldMapping, key), value);
         }
     }
 
@@ -238,26 +269,12 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
         }
 
         final CopyOptions copyOptions = this.copyOptions;
-        Class<?> actualEditable = bean.getClass();
-        if (null != copyOptions.editable) {
-            // 检查限制类是否为target的父类或接口
-            if (false == copyOptions.editable.isInstance(bean)) {
-                throw new IllegalArgumentException(StringKit.format("Target class [{}] not assignable to Editable class [{}]", bean.getClass().getName(), copyOptions.editable.getName()));
-            }
-            actualEditable = copyOptions.editable;
-        }
         final HashSet<String> ignoreSet = (null != copyOptions.ignoreProperties) ? CollKit.newHashSet(copyOptions.ignoreProperties) : null;
         final Map<String, String> fieldReverseMapping = copyOptions.getReversedMapping();
 
-        final Collection<PropertyDescription> props = BeanKit.getBeanDesc(actualEditable).getProps();
-        Field field;
+        final Collection<PropertyDescription> props = BeanKit.getBeanDesc(actualEditable(bean)).getProps();
         String fieldName;
-        Object value;
-        Method setterMethod;
-        Class<?> propClass;
         for (PropertyDescription prop : props) {
-            // 获取值
-            field = prop.getField();
             fieldName = prop.getFieldName();
             if (CollKit.contains(ignoreSet, fieldName)) {
                 // 目标属性值被忽略或值提供者无此key时跳过
@@ -268,56 +285,89 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
                 // 无对应值可提供
                 continue;
             }
-            setterMethod = prop.getSetter();
-            if (null == setterMethod && false == BeanKit.isPublic(field)) {
-                // Setter方法不存在或者字段为非public跳过
-                //5.1.0新增支持public字段注入支持
-                continue;
+            injectValue(valueProvider, bean, prop, providerKey);
+        }
+    }
+
+    /**
+     * 获取目标Bean实际可编辑的类型
+     *
+     * @param bean 目标Bean
+     * @return 可编辑的类型
+     */
+    private Class<?> actualEditable(Object bean) {
+        final CopyOptions copyOptions = this.copyOptions;
+        Class<?> actualEditable = bean.getClass();
+        if (null != copyOptions.editable) {
+            // 检查限制类是否为target的父类或接口
+            if (false == copyOptions.editable.isInstance(bean)) {
+                throw new IllegalArgumentException(StringKit.format("Target class [{}] not assignable to Editable class [{}]", bean.getClass().getName(), copyOptions.editable.getName()));
             }
+            actualEditable = copyOptions.editable;
+        }
+        return actualEditable;
+    }
 
-            Type valueType = (null == setterMethod) ? TypeKit.getType(field) : TypeKit.getFirstParamType(setterMethod);
-            if (valueType instanceof ParameterizedType) {
-                // 参数为泛型参数类型，解析对应泛型类型为真实类型
-                ParameterizedType tmp = (ParameterizedType) valueType;
-                Type[] actualTypeArguments = tmp.getActualTypeArguments();
-                if (TypeKit.hasTypeVeriable(actualTypeArguments)) {
-                    // 泛型对象中含有未被转换的泛型变量
-                    actualTypeArguments = TypeKit.getActualTypes(this.destType, field.getDeclaringClass(), tmp.getActualTypeArguments());
-                    if (ArrayKit.isNotEmpty(actualTypeArguments)) {
-                        // 替换泛型变量为实际类型
-                        valueType = new Typed(actualTypeArguments, tmp.getOwnerType(), tmp.getRawType());
-                    }
+    /**
+     * 从值提供器获取值并注入到Bean的指定属性
+     *
+     * @param valueProvider 值提供器
+     * @param bean          Bean
+     * @param prop          目标属性
+     * @param providerKey   值提供器中对应的key
+     */
+    private void injectValue(ValueProvider<String> valueProvider, Object bean, PropertyDescription prop, String providerKey) {
+        final CopyOptions copyOptions = this.copyOptions;
+        final Field field = prop.getField();
+        final Method setterMethod = prop.getSetter();
+        if (null == setterMethod && false == BeanKit.isPublic(field)) {
+            // Setter方法不存在或者字段为非public跳过
+            //5.1.0新增支持public字段注入支持
+            return;
+        }
+
+        Type valueType = (null == setterMethod) ? TypeKit.getType(field) : TypeKit.getFirstParamType(setterMethod);
+        if (valueType instanceof ParameterizedType) {
+            // 参数为泛型参数类型，解析对应泛型类型为真实类型
+            ParameterizedType tmp = (ParameterizedType) valueType;
+            Type[] actualTypeArguments = tmp.getActualTypeArguments();
+            if (TypeKit.hasTypeVeriable(actualTypeArguments)) {
+                // 泛型对象中含有未被转换的泛型变量
+                actualTypeArguments = TypeKit.getActualTypes(this.destType, field.getDeclaringClass(), tmp.getActualTypeArguments());
+                if (ArrayKit.isNotEmpty(actualTypeArguments)) {
+                    // 替换泛型变量为实际类型
+                    valueType = new Typed(actualTypeArguments, tmp.getOwnerType(), tmp.getRawType());
                 }
-            } else if (valueType instanceof TypeVariable) {
-                // 参数为泛型，查找其真实类型(适用于泛型方法定义于泛型父类)
-                valueType = TypeKit.getActualType(this.destType, field.getDeclaringClass(), valueType);
             }
+        } else if (valueType instanceof TypeVariable) {
+            // 参数为泛型，查找其真实类型(适用于泛型方法定义于泛型父类)
+            valueType = TypeKit.getActualType(this.destType, field.getDeclaringClass(), valueType);
+        }
 
-            value = valueProvider.value(providerKey, valueType);
-            if (null == value && copyOptions.ignoreNullValue) {
-                continue;// 当允许跳过空时，跳过
-            }
-            if (bean == value) {
-                continue;// 值不能为bean本身，防止循环引用
-            }
+        Object value = valueProvider.value(providerKey, valueType);
+        if (null == value && copyOptions.ignoreNullValue) {
+            return;// 当允许跳过空时，跳过
+        }
+        if (bean == value) {
+            return;// 值不能为bean本身，防止循环引用
+        }
 
-            try {
-                // valueProvider在没有对值做转换且当类型不匹配的时候，执行默认转换
-                propClass = prop.getFieldClass();
-                if (false == propClass.isInstance(value)) {
-                    value = Convert.convertWithCheck(propClass, value, null, copyOptions.ignoreError);
-                    if (null == value && copyOptions.ignoreNullValue) {
-                        continue;// 当允许跳过空时，跳过
-                    }
+        try {
+            // valueProvider在没有对值做转换且当类型不匹配的时候，执行默认转换
+            final Class<?> propClass = prop.getFieldClass();
+            if (false == propClass.isInstance(value)) {
+                value = Convert.convertWithCheck(propClass, value, null, copyOptions.ignoreError);
+                if (null == value && copyOptions.ignoreNullValue) {
+                    return;// 当允许跳过空时，跳过
                 }
+            }
 
-                prop.setValue(bean, value);
-            } catch (Exception e) {
-                if (false == copyOptions.ignoreError) {
-                    throw new InstrumentException("Inject [{}] error!", prop.getFieldName());
-                }
-                // 忽略注入失败
+            prop.setValue(bean, value);
+        } catch (Exception e) {
+            if (false == copyOptions.ignoreError) {
+                throw new InstrumentException("Inject [{}] error!", prop.getFieldName());
             }
+            // 忽略注入失败
         }
     }
 
@@ -0,0 +1,387 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.beans.copier;
+
+import org.aoju.bus.core.beans.PropertyDescription;
+import org.aoju.bus.core.lang.Normal;
+import org.aoju.bus.core.lang.SimpleCache;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.toolkit.ArrayKit;
+import org.aoju.bus.core.toolkit.BeanKit;
+import org.aoju.bus.core.toolkit.ReflectKit;
+import org.aoju.bus.core.toolkit.StringKit;
+import org.aoju.bus.core.toolkit.TypeKit;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Bean拷贝计划
+ * <p>
+ * 按(源类型, 目标类型, 拷贝选项)预先解析需要拷贝的属性, 并缓存解析结果;
+ * 对源getter返回类型与目标setter参数类型完全相同的属性, 使用{@link LambdaMetafactory}
+ * 生成的访问器直接读写且跳过类型转换, 其余属性仍走{@link BeanCopier}原有的反射与转换逻辑
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class CopyPlan {
+
+    /**
+     * 拷贝计划缓存,有界(最多4096项),超出后淘汰部分已有计划;
+     * 键为强引用,已缓存的类在被淘汰前不会被卸载
+     */
+    private static final SimpleCache<Key, CopyPlan> PLANS = new SimpleCache<>(false, 4096);
+    /**
+     * 读取计划缓存,用于Bean转Map,与拷贝计划缓存同样有界
+     */
+    private static final SimpleCache<Class<?>, List<Reader>> READERS = new SimpleCache<>(false, 4096);
+
+    private final List<Entry> entries;
+
+    private CopyPlan(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * 获取Bean到Bean的拷贝计划
+     *
+     * @param sourceClass 源Bean类型
+     * @param editable    目标Bean(或其限制类)类型
+     * @param copyOptions 拷贝选项
+     * @return 拷贝计划
+     */
+    public static CopyPlan of(Class<?> sourceClass, Class<?> editable, CopyOptions copyOptions) {
+        Key key = new Key(sourceClass, editable, copyOptions.ignoreCase,
+                copyOptions.ignoreProperties, copyOptions.fieldMapping);
+        CopyPlan plan = PLANS.get(key);
+        if (null != plan) {
+            return plan;
+        }
+        // 缓存的键使用选项的副本, 防止选项对象之后被修改
+        Key stored = key.copy();
+        return PLANS.get(stored, () -> build(stored, copyOptions));
+    }
+
+    /**
+     * 获取Bean中所有可读属性的读取器
+     *
+     * @param beanClass Bean类型
+     * @return 读取器列表
+     */
+    public static List<Reader> readers(Class<?> beanClass) {
+        return READERS.get(beanClass, () -> {
+            List<Reader> readers = new ArrayList<>();
+            for (PropertyDescription prop : BeanKit.getBeanDesc(beanClass).getProps()) {
+                if (null != prop.getGetter()) {
+                    readers.add(new Reader(prop.getFieldName(), getter(prop.getGetter())));
+                }
+            }
+            return Collections.unmodifiableList(readers);
+        });
+    }
+
+    private static CopyPlan build(Key key, CopyOptions copyOptions) {
+        final Map<String, PropertyDescription> sourcePdMap = BeanKit.getBeanDesc(key.source).getPropMap(key.ignoreCase);
+        final Map<String, String> fieldReverseMapping = copyOptions.getReversedMapping();
+
+        List<Entry> entries = new ArrayList<>();
+        for (PropertyDescription prop : BeanKit.getBeanDesc(key.editable).getProps()) {
+            String fieldName = prop.getFieldName();
+            if (ArrayKit.contains(key.ignoreProperties, fieldName)) {
+                continue;
+            }
+            String providerKey = BeanCopier.mappingKey(fieldReverseMapping, fieldName);
+            PropertyDescription sourcePd = sourcePdMap.get(providerKey);
+            PropertyDescription isPd = sourcePdMap.get(StringKit.upperFirstAndAddPre(providerKey, Normal.IS));
+            if (null == sourcePd && null == isPd) {
+                // 无对应值可提供
+                continue;
+            }
+            Method setter = prop.getSetter();
+            if (null == setter && false == BeanKit.isPublic(prop.getField())) {
+                continue;
+            }
+
+            Entry entry = new Entry(prop, providerKey);
+            Type valueType = (null == setter) ? TypeKit.getType(prop.getField()) : TypeKit.getFirstParamType(setter);
+            if (null == sourcePd && (Boolean.class == valueType || boolean.class == valueType)) {
+                sourcePd = isPd;
+            }
+            if (null != setter && null != sourcePd && null != sourcePd.getGetter()
+                    && isDirect(sourcePd.getGetter().getReturnType(), valueType, prop.getFieldClass())) {
+                entry.getter = getter(sourcePd.getGetter());
+                entry.setter = setter(setter);
+            }
+            entries.add(entry);
+        }
+        return new CopyPlan(Collections.unmodifiableList(entries));
+    }
+
+    /**
+     * 仅当源类型与目标类型完全相同时跳过转换; 子类赋给父类时转换器仍可能改变值(如日期、数字),
+     * 集合、Map与数组的转换可能涉及元素类型, 均交给转换器
+     */
+    private static boolean isDirect(Class<?> sourceType, Type valueType, Class<?> propClass) {
+        if (false == valueType instanceof Class) {
+            return false;
+        }
+        Class<?> targetType = (Class<?>) valueType;
+        if (targetType.isArray() || Collection.class.isAssignableFrom(targetType) || Map.class.isAssignableFrom(targetType)) {
+            return false;
+        }
+        return sourceType == targetType && (null == propClass || propClass == targetType);
+    }
+
+    /**
+     * 创建getter访问器, 可以生成Lambda时直接调用, 否则退回反射
+     *
+     * @param method getter方法
+     * @return 访问器
+     */
+    static Function<Object, Object> getter(Method method) {
+        if (isLambdaCapable(method)) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle, handle.type().wrap());
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable ignore) {
+                // 退回反射
+            }
+        }
+        ReflectKit.setAccessible(method);
+        return bean -> {
+            try {
+                return method.invoke(bean);
+            } catch (InvocationTargetException e) {
+                throw new InstrumentException(e.getTargetException());
+            } catch (IllegalAccessException e) {
+                throw new InstrumentException(e);
+            }
+        };
+    }
+
+    /**
+     * 创建setter访问器, 可以生成Lambda时直接调用, 否则退回反射
+     *
+     * @param method setter方法
+     * @return 访问器
+     */
+    static BiConsumer<Object, Object> setter(Method method) {
+        if (isLambdaCapable(method)) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle, handle.type().wrap().changeReturnType(void.class));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable ignore) {
+                // 退回反射
+            }
+        }
+        ReflectKit.setAccessible(method);
+        return (bean, value) -> {
+            try {
+                method.invoke(bean, value);
+            } catch (InvocationTargetException e) {
+                throw new InstrumentException(e.getTargetException());
+            } catch (IllegalAccessException e) {
+                throw new InstrumentException(e);
+            }
+        };
+    }
+
+    /**
+     * 生成的Lambda类由本类的类加载器定义, 因此方法及其涉及的类型必须公开且对本类可见
+     */
+    private static boolean isLambdaCapable(Method method) {
+        if (false == Modifier.isPublic(method.getModifiers())
+                || Modifier.isStatic(method.getModifiers())
+                || false == Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return false;
+        }
+        if (false == isVisible(method.getDeclaringClass()) || false == isVisible(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> type : method.getParameterTypes()) {
+            if (false == isVisible(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> clazz) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+        ClassLoader loader = CopyPlan.class.getClassLoader();
+        if (clazz.getClassLoader() == loader || null == clazz.getClassLoader()) {
+            return true;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, loader) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return 按目标属性顺序排列的拷贝项
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 单个属性的拷贝项
+     */
+    public static class Entry {
+
+        private final PropertyDescription prop;
+        private final String providerKey;
+        private Function<Object, Object> getter;
+        private BiConsumer<Object, Object> setter;
+
+        Entry(PropertyDescription prop, String providerKey) {
+            this.prop = prop;
+            this.providerKey = providerKey;
+        }
+
+        public PropertyDescription getProp() {
+            return prop;
+        }
+
+        public String getProviderKey() {
+            return providerKey;
+        }
+
+        /**
+         * @return 是否可以直接读写(无需反射及类型转换)
+         */
+        public boolean isDirect() {
+            return null != getter;
+        }
+
+        public Object read(Object source) {
+            return getter.apply(source);
+        }
+
+        public void write(Object target, Object value) {
+            setter.accept(target, value);
+        }
+    }
+
+    /**
+     * 属性读取器
+     */
+    public static class Reader {
+
+        private final String fieldName;
+        private final Function<Object, Object> getter;
+
+        Reader(String fieldName, Function<Object, Object> getter) {
+            this.fieldName = fieldName;
+            this.getter = getter;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public Object read(Object bean) {
+            return getter.apply(bean);
+        }
+    }
+
+    /**
+     * 拷贝计划缓存键, 只包含影响计划结构的选项
+     */
+    private static class Key {
+
+        private final Class<?> source;
+        private final Class<?> editable;
+        private final boolean ignoreCase;
+        private final String[] ignoreProperties;
+        private final Map<String, String> fieldMapping;
+
+        Key(Class<?> source, Class<?> editable, boolean ignoreCase,
+            String[] ignoreProperties, Map<String, String> fieldMapping) {
+            this.source = source;
+            this.editable = editable;
+            this.ignoreCase = ignoreCase;
+            this.ignoreProperties = null == ignoreProperties ? Normal.EMPTY_STRING_ARRAY : ignoreProperties;
+            this.fieldMapping = null == fieldMapping ? Collections.emptyMap() : fieldMapping;
+        }
+
+        Key copy() {
+            return new Key(source, editable, ignoreCase, ignoreProperties.clone(), new HashMap<>(fieldMapping));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return source == key.source
+                    && editable == key.editable
+                    && ignoreCase == key.ignoreCase
+                    && Arrays.equals(ignoreProperties, key.ignoreProperties)
+                    && fieldMapping.equals(key.fieldMapping);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hash(source, editable, ignoreCase, fieldMapping);
+            return 31 * result + Arrays.hashCode(ignoreProperties);
+        }
+    }
+
+}
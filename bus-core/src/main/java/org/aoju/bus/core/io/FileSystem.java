@@ -127,4 +127,17 @@ public interface FileSystem {
 
     void deleteContents(File directory) throws IOException;
 
+    /**
+     * 列出目录下的文件及子目录，目录不存在时返回空数组
+     * 默认直接读取本地目录，不使用本地存储的实现应覆盖此方法
+     *
+     * @param directory 目录
+     * @return 目录下的文件及子目录
+     * @throws IOException 异常
+     */
+    default File[] list(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        return null == files ? new File[0] : files;
+    }
+
 }
@@ -25,9 +25,16 @@
  ********************************************************************************/
 package org.aoju.bus.core.io;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * 这是避免GC搅动和零填充所必需的
  * 这个池是一个线程安全的静态单例
+ * 池按线程分为多个桶, 每个桶为一个单链表, 头节点保存在{@link AtomicReferenceArray}中,
+ * 取用及回收时以占位节点独占桶, 桶被占用时直接新建或丢弃片段而不等待;
+ * 头节点的limit字段记录桶内片段的总字节数
+ * 每个桶的容量可通过系统属性 {@code bus.io.pool.size} 配置, 默认64KB
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -35,39 +42,163 @@ package org.aoju.bus.core.io;
  */
 public final class LifeCycle {
 
+    /**
+     * 单个桶默认最大字节数
+     */
     static final long MAX_SIZE = 64 * 1024;
 
-    static Segment next;
+    /**
+     * 桶数量, 为2的幂, 约为CPU核数的2倍
+     */
+    static final int HASH_BUCKET_COUNT = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    /**
+     * 桶被占用时的占位节点
+     */
+    private static final Segment LOCK = new Segment(new byte[0], 0, 0, false, false);
+
+    private static final AtomicReferenceArray<Segment> HASH_BUCKETS = new AtomicReferenceArray<>(HASH_BUCKET_COUNT);
+
+    private static final LongAdder HIT_COUNT = new LongAdder();
 
-    static long byteCount;
+    private static final LongAdder MISS_COUNT = new LongAdder();
+
+    private static final LongAdder RECYCLE_COUNT = new LongAdder();
+
+    private static final LongAdder DISCARD_COUNT = new LongAdder();
+
+    /**
+     * 单个桶最大字节数
+     */
+    private static volatile long maxSize = Math.max(0, Long.getLong("bus.io.pool.size", MAX_SIZE));
 
     private LifeCycle() {
 
     }
 
     public static Segment take() {
-        synchronized (LifeCycle.class) {
-            if (next != null) {
-                Segment result = next;
-                next = result.next;
-                result.next = null;
-                byteCount -= Segment.SIZE;
-                return result;
-            }
+        final int bucket = bucket();
+        final Segment first = HASH_BUCKETS.getAndSet(bucket, LOCK);
+        if (first == LOCK) {
+            // 桶正在被当前线程以外的线程使用, 不等待
+            MISS_COUNT.increment();
+            return new Segment();
         }
-        return new Segment();
+        if (first == null) {
+            HASH_BUCKETS.set(bucket, null);
+            MISS_COUNT.increment();
+            return new Segment();
+        }
+        HASH_BUCKETS.set(bucket, first.next);
+        first.next = null;
+        first.limit = 0;
+        HIT_COUNT.increment();
+        return first;
     }
 
     public static void recycle(Segment segment) {
         if (segment.next != null || segment.prev != null) throw new IllegalArgumentException();
         if (segment.shared) return;
-        synchronized (LifeCycle.class) {
-            if (byteCount + Segment.SIZE > MAX_SIZE) return;
-            byteCount += Segment.SIZE;
-            segment.next = next;
-            segment.pos = segment.limit = 0;
-            next = segment;
+
+        final int bucket = bucket();
+        final Segment first = HASH_BUCKETS.getAndSet(bucket, LOCK);
+        if (first == LOCK) {
+            DISCARD_COUNT.increment();
+            return;
+        }
+        final long firstLimit = first != null ? first.limit : 0;
+        if (firstLimit + Segment.SIZE > maxSize) {
+            HASH_BUCKETS.set(bucket, first);
+            DISCARD_COUNT.increment();
+            return;
+        }
+        segment.next = first;
+        segment.pos = 0;
+        segment.limit = (int) (firstLimit + Segment.SIZE);
+        HASH_BUCKETS.set(bucket, segment);
+        RECYCLE_COUNT.increment();
+    }
+
+    /**
+     * 池中当前缓存的字节总数
+     *
+     * @return 字节数
+     */
+    public static long byteCount() {
+        long byteCount = 0;
+        for (int i = 0; i < HASH_BUCKET_COUNT; i++) {
+            final Segment first = HASH_BUCKETS.get(i);
+            if (first != null && first != LOCK) {
+                byteCount += first.limit;
+            }
         }
+        return byteCount;
+    }
+
+    /**
+     * 单个桶最大字节数
+     *
+     * @return 字节数
+     */
+    public static long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 设置单个桶最大字节数, 已缓存的片段不受影响
+     *
+     * @param maxSize 字节数, 0表示不缓存
+     */
+    public static void setMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize < 0: " + maxSize);
+        }
+        LifeCycle.maxSize = maxSize;
+    }
+
+    /**
+     * 从池中取得片段的次数
+     *
+     * @return 次数
+     */
+    public static long hitCount() {
+        return HIT_COUNT.sum();
+    }
+
+    /**
+     * 池中无可用片段而新建的次数
+     *
+     * @return 次数
+     */
+    public static long missCount() {
+        return MISS_COUNT.sum();
+    }
+
+    /**
+     * 片段回收入池的次数
+     *
+     * @return 次数
+     */
+    public static long recycleCount() {
+        return RECYCLE_COUNT.sum();
+    }
+
+    /**
+     * 桶已满或被占用而丢弃片段的次数
+     *
+     * @return 次数
+     */
+    public static long discardCount() {
+        return DISCARD_COUNT.sum();
+    }
+
+    /**
+     * 当前线程对应的桶
+     *
+     * @return 桶的下标
+     */
+    private static int bucket() {
+        return (int) (Thread.currentThread().getId() & (HASH_BUCKET_COUNT - 1L));
     }
 
 }
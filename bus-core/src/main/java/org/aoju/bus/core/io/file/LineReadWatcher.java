@@ -27,17 +27,24 @@ package org.aoju.bus.core.io.file;
 
 import org.aoju.bus.core.io.LineHandler;
 import org.aoju.bus.core.io.watchers.SimpleWatcher;
+import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.core.lang.exception.InstrumentException;
-import org.aoju.bus.core.toolkit.FileKit;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.WatchEvent;
+import java.util.Arrays;
 
 /**
  * 行处理的Watcher实现
+ * 通过{@link FileChannel}只读取上次位置之后新增的内容，新增内容较多时使用内存映射，
+ * 末尾不完整的行暂存起来，遇到换行符或{@link #flush()}时才输出
+ * 按单字节换行符拆分，因此只支持换行符编码为单个字节的编码(如UTF-8、GBK、ISO-8859-1)，
+ * UTF-16、UTF-32等编码会被拒绝
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -45,9 +52,24 @@ import java.nio.file.WatchEvent;
  */
 public class LineReadWatcher extends SimpleWatcher implements Runnable {
 
+    /**
+     * 新增内容达到此大小时使用内存映射读取
+     */
+    private static final int MAP_THRESHOLD = 1024 * 1024;
+    /**
+     * 单次映射的最大长度
+     */
+    private static final int MAP_WINDOW = 64 * 1024 * 1024;
+
     private final RandomAccessFile randomAccessFile;
     private final Charset charset;
     private final LineHandler lineHandler;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    /**
+     * 尚未遇到换行符的行内容，按需扩容
+     */
+    private byte[] line = new byte[256];
+    private int lineLength;
 
     /**
      * 构造
@@ -55,44 +77,134 @@ public class LineReadWatcher extends SimpleWatcher implements Runnable {
      * @param randomAccessFile {@link RandomAccessFile}
      * @param charset          编码
      * @param lineHandler      行处理器{@link LineHandler}实现
+     * @throws IllegalArgumentException 编码中换行符不是单个字节
      */
     public LineReadWatcher(RandomAccessFile randomAccessFile, Charset charset, LineHandler lineHandler) {
+        checkCharset(charset);
         this.randomAccessFile = randomAccessFile;
         this.charset = charset;
         this.lineHandler = lineHandler;
     }
 
+    /**
+     * 检查编码是否可以按单字节换行符拆分行
+     *
+     * @param charset 编码
+     * @throws IllegalArgumentException 编码中换行符不是单个字节
+     */
+    static void checkCharset(Charset charset) {
+        final byte[] lf = String.valueOf(Symbol.C_LF).getBytes(charset);
+        if (lf.length != 1 || lf[0] != Symbol.C_LF) {
+            throw new IllegalArgumentException("Unsupported charset for line reading: " + charset);
+        }
+    }
+
     @Override
     public void run() {
         onModify(null, null);
     }
 
     @Override
-    public void onModify(WatchEvent<?> event, Path currentPath) {
-        final RandomAccessFile randomAccessFile = this.randomAccessFile;
-        final Charset charset = this.charset;
-        final LineHandler lineHandler = this.lineHandler;
-
+    public synchronized void onModify(WatchEvent<?> event, Path currentPath) {
         try {
-            final long currentLength = randomAccessFile.length();
-            final long position = randomAccessFile.getFilePointer();
+            final FileChannel channel = this.randomAccessFile.getChannel();
+            final long currentLength = channel.size();
+            long position = channel.position();
             if (0 == currentLength || position == currentLength) {
                 // 内容长度不变时忽略此次事件
                 return;
             } else if (currentLength < position) {
-                // 如果内容变短,说明文件做了删改,回到内容末尾
-                randomAccessFile.seek(currentLength);
+                // 如果内容变短,说明文件做了删改,回到内容末尾,暂存的不完整行已失效
+                channel.position(currentLength);
+                lineLength = 0;
                 return;
             }
 
-            // 读取行
-            FileKit.readLines(randomAccessFile, charset, lineHandler);
+            while (position < currentLength) {
+                final long remaining = currentLength - position;
+                final ByteBuffer data;
+                if (remaining >= MAP_THRESHOLD) {
+                    data = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(remaining, MAP_WINDOW));
+                } else {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(remaining, buffer.capacity()));
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, position + buffer.position()) <= 0) {
+                            break;
+                        }
+                    }
+                    buffer.flip();
+                    data = buffer;
+                }
+                if (0 == data.limit()) {
+                    break;
+                }
+                readLines(data);
+                position += data.limit();
+            }
 
             // 记录当前读到的位置
-            randomAccessFile.seek(currentLength);
+            channel.position(position);
         } catch (IOException e) {
             throw new InstrumentException(e);
         }
     }
 
+    /**
+     * 输出暂存的不完整行，用于文件读取结束或关闭时
+     */
+    public synchronized void flush() {
+        if (lineLength > 0) {
+            emit();
+        }
+    }
+
+    /**
+     * 按换行符拆分并处理完整的行，最后一个换行符之后的内容暂存到下次读取
+     *
+     * @param data 数据
+     */
+    private void readLines(ByteBuffer data) {
+        final int limit = data.limit();
+        int start = 0;
+        for (int i = 0; i < limit; i++) {
+            if (data.get(i) == Symbol.C_LF) {
+                append(data, start, i);
+                emit();
+                start = i + 1;
+            }
+        }
+        append(data, start, limit);
+    }
+
+    /**
+     * 追加到暂存的行内容
+     *
+     * @param data  数据
+     * @param start 起始位置
+     * @param end   结束位置(不包含)
+     */
+    private void append(ByteBuffer data, int start, int end) {
+        final int length = end - start;
+        if (line.length - lineLength < length) {
+            line = Arrays.copyOf(line, Math.max(lineLength + length, line.length << 1));
+        }
+        for (int i = 0; i < length; i++) {
+            line[lineLength + i] = data.get(start + i);
+        }
+        lineLength += length;
+    }
+
+    /**
+     * 解码并处理暂存的行，去掉末尾的回车符
+     */
+    private void emit() {
+        int length = lineLength;
+        if (length > 0 && line[length - 1] == Symbol.C_CR) {
+            length--;
+        }
+        lineLength = 0;
+        lineHandler.handle(new String(line, 0, length, charset));
+    }
+
 }
@@ -26,22 +26,26 @@
 package org.aoju.bus.core.io.file;
 
 import org.aoju.bus.core.io.LineHandler;
+import org.aoju.bus.core.io.watchers.WatchHub;
 import org.aoju.bus.core.lang.Charset;
 import org.aoju.bus.core.lang.Console;
 import org.aoju.bus.core.lang.Fields;
 import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.core.lang.exception.InstrumentException;
 import org.aoju.bus.core.toolkit.FileKit;
+import org.aoju.bus.core.toolkit.IoKit;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.nio.file.StandardWatchEventKinds;
 import java.util.Stack;
-import java.util.concurrent.*;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * 文件内容跟随器，实现类似Linux下"tail -f"命令功能
+ * 文件变更通过共享的{@link WatchHub}监听，不再为每个文件单独创建轮询线程，文件无变化时不做任何读取
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -64,12 +68,15 @@ public class Tailer implements Serializable {
      */
     private final int initReadLine;
     /**
-     * 定时任务检查间隔时长
+     * 变更事件的合并窗口，窗口内的多次变更只读取一次
      */
     private final long period;
 
+    private final File file;
     private final RandomAccessFile randomAccessFile;
-    private final ScheduledExecutorService executorService;
+    private final CountDownLatch stopLatch = new CountDownLatch(1);
+    private WatchHub.Subscription subscription;
+    private LineReadWatcher lineReadWatcher;
 
     /**
      * 构造，默认UTF-8编码
@@ -110,16 +117,17 @@ public class Tailer implements Serializable {
      * @param charset      编码
      * @param lineHandler  行处理器
      * @param initReadLine 启动时预读取的行数
-     * @param period       检查间隔
+     * @param period       变更事件的合并窗口(毫秒)
      */
     public Tailer(File file, java.nio.charset.Charset charset, LineHandler lineHandler, int initReadLine, long period) {
         checkFile(file);
+        LineReadWatcher.checkCharset(charset);
         this.charset = charset;
         this.lineHandler = lineHandler;
         this.period = period;
         this.initReadLine = initReadLine;
+        this.file = file;
         this.randomAccessFile = FileKit.createRandomAccessFile(file, FileMode.r);
-        this.executorService = Executors.newSingleThreadScheduledExecutor();
     }
 
     /**
@@ -146,7 +154,7 @@ public class Tailer implements Serializable {
     /**
      * 开始监听
      *
-     * @param async 是否异步执行
+     * @param async 是否异步执行，同步执行时阻塞直到{@link #stop()}被调用
      */
     public void start(boolean async) {
         // 初始读取
@@ -156,22 +164,35 @@ public class Tailer implements Serializable {
             throw new InstrumentException(e);
         }
 
-        final LineReadWatcher lineReadWatcher = new LineReadWatcher(this.randomAccessFile, this.charset, this.lineHandler);
-        final ScheduledFuture<?> scheduledFuture = this.executorService.scheduleAtFixedRate(//
-                lineReadWatcher,
-                0,
-                this.period, TimeUnit.MILLISECONDS
-        );
+        this.lineReadWatcher = new LineReadWatcher(this.randomAccessFile, this.charset, this.lineHandler);
+        this.subscription = WatchHub.getInstance().subscribe(this.file.toPath(), lineReadWatcher, this.period,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        // 读取预读取与开始监听之间新增的内容
+        lineReadWatcher.run();
 
         if (false == async) {
             try {
-                scheduledFuture.get();
-            } catch (ExecutionException | InterruptedException e) {
+                this.stopLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new InstrumentException(e);
             }
         }
     }
 
+    /**
+     * 结束监听并关闭文件
+     */
+    public void stop() {
+        IoKit.close(this.subscription);
+        if (null != this.lineReadWatcher) {
+            // 输出最后一行未以换行符结尾的内容
+            this.lineReadWatcher.flush();
+        }
+        IoKit.close(this.randomAccessFile);
+        this.stopLatch.countDown();
+    }
+
     /**
      * 预读取行
      *
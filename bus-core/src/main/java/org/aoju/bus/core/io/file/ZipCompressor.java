@@ -0,0 +1,683 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.io.file;
+
+import org.aoju.bus.core.lang.Assert;
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.thread.GlobalThread;
+import org.aoju.bus.core.toolkit.ArrayKit;
+import org.aoju.bus.core.toolkit.FileKit;
+import org.aoju.bus.core.toolkit.ObjectKit;
+import org.aoju.bus.core.toolkit.StringKit;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 并行Zip压缩器
+ * 文件按块并行Deflate(每块以前一块末尾32KB作为字典，块间以SYNC_FLUSH对齐字节边界)，
+ * 再按原顺序拼接写出，输出为标准Zip格式(条目使用数据描述符，必要时使用Zip64扩展)
+ * 同时在途的块数量不超过并行度的两倍，内存占用与文件大小无关
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class ZipCompressor {
+
+    /**
+     * 默认分块大小
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    /**
+     * Deflate窗口大小，即字典长度
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    /**
+     * 文件名编码
+     */
+    private final Charset charset;
+    /**
+     * 压缩级别
+     */
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    /**
+     * 分块大小
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    /**
+     * 执行压缩的线程池，默认为{@link GlobalThread#getCpuExecutor()}
+     */
+    private ExecutorService executor;
+    /**
+     * 并行度
+     */
+    private int parallelism;
+    /**
+     * 文件过滤器
+     */
+    private FileFilter filter;
+
+    /**
+     * 构造
+     *
+     * @param charset 文件名编码
+     */
+    public ZipCompressor(Charset charset) {
+        this.charset = ObjectKit.defaultIfNull(charset, Charset.defaultCharset());
+    }
+
+    /**
+     * 创建压缩器
+     *
+     * @param charset 文件名编码，null表示平台默认编码
+     * @return this
+     */
+    public static ZipCompressor create(Charset charset) {
+        return new ZipCompressor(charset);
+    }
+
+    /**
+     * 设置压缩级别
+     *
+     * @param level 压缩级别，0~9
+     * @return this
+     */
+    public ZipCompressor setLevel(int level) {
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * 设置分块大小，大文件按此大小拆分后并行压缩
+     *
+     * @param chunkSize 分块大小，不小于64KB
+     * @return this
+     */
+    public ZipCompressor setChunkSize(int chunkSize) {
+        Assert.isTrue(chunkSize >= 64 * 1024, "Chunk size must be at least 64KB");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * 设置执行压缩的线程池，不会被关闭
+     *
+     * @param executor 线程池
+     * @return this
+     */
+    public ZipCompressor setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 设置并行度，默认为线程池的并行度
+     *
+     * @param parallelism 并行度
+     * @return this
+     */
+    public ZipCompressor setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 设置文件过滤器
+     *
+     * @param filter 文件过滤器，过滤掉的文件或目录不加入压缩
+     * @return this
+     */
+    public ZipCompressor setFilter(FileFilter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * 压缩文件或目录到Zip文件
+     *
+     * @param zipFile    生成的Zip文件
+     * @param withSrcDir 是否包含被打包目录
+     * @param srcFiles   要压缩的源文件或目录
+     * @return 压缩文件
+     */
+    public File zip(File zipFile, boolean withSrcDir, File... srcFiles) {
+        try (OutputStream out = new BufferedOutputStream(FileKit.getOutputStream(zipFile), 64 * 1024)) {
+            zip(out, withSrcDir, srcFiles);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+        return zipFile;
+    }
+
+    /**
+     * 压缩文件或目录到流，写出完成后不关闭流
+     *
+     * @param out        目标流
+     * @param withSrcDir 是否包含被打包目录
+     * @param srcFiles   要压缩的源文件或目录
+     */
+    public void zip(OutputStream out, boolean withSrcDir, File... srcFiles) {
+        final List<Item> items = new ArrayList<>();
+        try {
+            for (File srcFile : srcFiles) {
+                if (null == srcFile) {
+                    continue;
+                }
+                String srcRootDir = srcFile.getCanonicalPath();
+                if (srcFile.isFile() || withSrcDir) {
+                    srcRootDir = srcFile.getCanonicalFile().getParentFile().getCanonicalPath();
+                }
+                collect(srcFile, srcRootDir, items);
+            }
+            write(new Writer(out), items);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
+    /**
+     * 递归收集条目，与{@link org.aoju.bus.core.toolkit.ZipKit}的目录处理方式一致
+     *
+     * @param file       文件或目录
+     * @param srcRootDir 根目录
+     * @param items      条目列表
+     */
+    private void collect(File file, String srcRootDir, List<Item> items) {
+        if (null == file || (null != filter && false == filter.accept(file))) {
+            return;
+        }
+        final String subPath = FileKit.subPath(srcRootDir, file);
+        if (file.isDirectory()) {
+            final File[] files = file.listFiles();
+            if (ArrayKit.isEmpty(files)) {
+                if (StringKit.isNotEmpty(subPath)) {
+                    items.add(new Item(StringKit.addSuffixIfNot(subPath, Symbol.SLASH), null));
+                }
+                return;
+            }
+            for (File child : files) {
+                collect(child, srcRootDir, items);
+            }
+        } else {
+            items.add(new Item(subPath, file));
+        }
+    }
+
+    /**
+     * 按顺序提交各块并写出
+     *
+     * @param writer 输出
+     * @param items  条目
+     * @throws IOException IO异常
+     */
+    private void write(Writer writer, List<Item> items) throws IOException {
+        final ExecutorService pool = null == executor ? GlobalThread.getCpuExecutor() : executor;
+        int window = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (pool instanceof ForkJoinPool && parallelism <= 0) {
+            window = ((ForkJoinPool) pool).getParallelism();
+        }
+        window = Math.max(2, window * 2);
+
+        final Deque<Future<Chunk>> pending = new ArrayDeque<>(window);
+        int itemIndex = 0;
+        long position = 0;
+        try {
+            while (itemIndex < items.size() || false == pending.isEmpty()) {
+                // 填满窗口
+                while (pending.size() < window && itemIndex < items.size()) {
+                    final Item item = items.get(itemIndex);
+                    if (null == item.file) {
+                        pending.add(CompletableFuture.completedFuture(new Chunk(item, true)));
+                        itemIndex++;
+                        continue;
+                    }
+                    final long start = position;
+                    final int length = (int) Math.min(chunkSize, item.length - start);
+                    final boolean last = start + length >= item.length;
+                    pending.add(pool.submit(() -> deflate(item, start, length, last)));
+                    if (last) {
+                        itemIndex++;
+                        position = 0;
+                    } else {
+                        position += length;
+                    }
+                }
+                writer.write(pending.poll().get());
+            }
+            writer.finish();
+        } catch (ExecutionException e) {
+            throw new InstrumentException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstrumentException(e);
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 压缩一个块
+     *
+     * @param item   条目
+     * @param start  块在文件中的起始位置
+     * @param length 块长度
+     * @param last   是否为最后一块
+     * @return 压缩后的块
+     * @throws IOException IO异常
+     */
+    private Chunk deflate(Item item, long start, int length, boolean last) throws IOException {
+        final int dictionary = (int) Math.min(DICTIONARY_SIZE, start);
+        final byte[] input = new byte[dictionary + length];
+        try (FileChannel channel = FileChannel.open(item.file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(input);
+            long offset = start - dictionary;
+            while (buffer.hasRemaining()) {
+                final int read = channel.read(buffer, offset);
+                if (read < 0) {
+                    throw new EOFException("File [" + item.file + "] was truncated during compression");
+                }
+                offset += read;
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(input, dictionary, length);
+
+        final Deflater deflater = new Deflater(level, true);
+        byte[] output = new byte[Math.max(64, length / 2)];
+        int size = 0;
+        try {
+            if (dictionary > 0) {
+                deflater.setDictionary(input, 0, dictionary);
+            }
+            deflater.setInput(input, dictionary, length);
+            if (last) {
+                deflater.finish();
+            }
+            // 非最后一块以SYNC_FLUSH结束，使块间在字节边界上可直接拼接
+            for (; ; ) {
+                if (size == output.length) {
+                    output = Arrays.copyOf(output, output.length << 1);
+                }
+                size += deflater.deflate(output, size, output.length - size, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                if (last ? deflater.finished() : size < output.length) {
+                    break;
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        return new Chunk(item, start, length, last, output, size, (int) crc.getValue());
+    }
+
+    /**
+     * Zip条目
+     */
+    private static class Item {
+
+        private final String name;
+        private final File file;
+        private final long length;
+        private final long time;
+
+        Item(String name, File file) {
+            this.name = name;
+            this.file = file;
+            this.length = null == file ? 0 : file.length();
+            this.time = null == file ? System.currentTimeMillis() : file.lastModified();
+        }
+    }
+
+    /**
+     * 压缩后的块
+     */
+    private static class Chunk {
+
+        private final Item item;
+        private final long start;
+        private final int length;
+        private final boolean last;
+        private final byte[] data;
+        private final int size;
+        private final int crc;
+
+        Chunk(Item item, boolean last) {
+            this(item, 0, 0, last, null, 0, 0);
+        }
+
+        Chunk(Item item, long start, int length, boolean last, byte[] data, int size, int crc) {
+            this.item = item;
+            this.start = start;
+            this.length = length;
+            this.last = last;
+            this.data = data;
+            this.size = size;
+            this.crc = crc;
+        }
+    }
+
+    /**
+     * 中央目录记录
+     */
+    private static class Central {
+
+        private byte[] name;
+        private int flags;
+        private int method;
+        private long time;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private long offset;
+        private boolean directory;
+    }
+
+    /**
+     * Zip格式写出，记录写出位置及中央目录
+     */
+    private class Writer {
+
+        private final OutputStream out;
+        private final byte[] scratch = new byte[8];
+        private final List<Central> centrals = new ArrayList<>();
+        private long written;
+        /**
+         * 当前条目
+         */
+        private Central current;
+        private boolean zip64;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(Chunk chunk) throws IOException {
+            final Item item = chunk.item;
+            if (0 == chunk.start) {
+                begin(item);
+            }
+            if (null != chunk.data) {
+                out.write(chunk.data, 0, chunk.size);
+                written += chunk.size;
+                current.compressedSize += chunk.size;
+                current.crc = 0 == chunk.start ? chunk.crc & ZIP64_MAGIC
+                        : combine(current.crc, chunk.crc & ZIP64_MAGIC, chunk.length);
+                current.size += chunk.length;
+            }
+            if (chunk.last) {
+                end();
+            }
+        }
+
+        /**
+         * 写出本地文件头，压缩条目的CRC及大小在数据描述符中给出
+         */
+        private void begin(Item item) throws IOException {
+            current = new Central();
+            current.name = item.name.getBytes(charset);
+            current.directory = null == item.file;
+            current.method = current.directory ? 0 : 8;
+            current.flags = (current.directory ? 0 : 0x08) | (StandardCharsets.UTF_8.equals(charset) ? 0x0800 : 0);
+            current.time = dosTime(item.time);
+            current.offset = written;
+            // 压缩后大小可能略大于原始大小，留出余量
+            zip64 = item.length >= ZIP64_MAGIC - (item.length >>> 8) - 1024;
+
+            writeInt(0x04034b50);
+            writeShort(zip64 ? 45 : 20);
+            writeShort(current.flags);
+            writeShort(current.method);
+            writeInt(current.time);
+            writeInt(0);
+            writeInt(zip64 ? ZIP64_MAGIC : 0);
+            writeInt(zip64 ? ZIP64_MAGIC : 0);
+            writeShort(current.name.length);
+            writeShort(zip64 ? 20 : 0);
+            writeBytes(current.name);
+            if (zip64) {
+                writeShort(0x0001);
+                writeShort(16);
+                writeLong(0);
+                writeLong(0);
+            }
+        }
+
+        /**
+         * 写出数据描述符
+         */
+        private void end() throws IOException {
+            if (false == current.directory) {
+                writeInt(0x08074b50);
+                writeInt(current.crc);
+                if (zip64) {
+                    writeLong(current.compressedSize);
+                    writeLong(current.size);
+                } else {
+                    writeInt(current.compressedSize);
+                    writeInt(current.size);
+                }
+            }
+            centrals.add(current);
+            current = null;
+        }
+
+        /**
+         * 写出中央目录及目录结束标识
+         */
+        void finish() throws IOException {
+            final long start = written;
+            for (Central central : centrals) {
+                final boolean bigSize = central.size >= ZIP64_MAGIC || central.compressedSize >= ZIP64_MAGIC;
+                final boolean bigOffset = central.offset >= ZIP64_MAGIC;
+                final int extra = (bigSize ? 16 : 0) + (bigOffset ? 8 : 0);
+                writeInt(0x02014b50);
+                writeShort(extra > 0 ? 45 : 20);
+                writeShort(extra > 0 ? 45 : 20);
+                writeShort(central.flags);
+                writeShort(central.method);
+                writeInt(central.time);
+                writeInt(central.crc);
+                writeInt(bigSize ? ZIP64_MAGIC : central.compressedSize);
+                writeInt(bigSize ? ZIP64_MAGIC : central.size);
+                writeShort(central.name.length);
+                writeShort(extra > 0 ? extra + 4 : 0);
+                writeShort(0);
+                writeShort(0);
+                writeShort(0);
+                writeInt(central.directory ? 0x10 : 0);
+                writeInt(bigOffset ? ZIP64_MAGIC : central.offset);
+                writeBytes(central.name);
+                if (extra > 0) {
+                    writeShort(0x0001);
+                    writeShort(extra);
+                    if (bigSize) {
+                        writeLong(central.size);
+                        writeLong(central.compressedSize);
+                    }
+                    if (bigOffset) {
+                        writeLong(central.offset);
+                    }
+                }
+            }
+            final long size = written - start;
+            final int count = centrals.size();
+            if (count >= ZIP64_MAGIC_COUNT || size >= ZIP64_MAGIC || start >= ZIP64_MAGIC) {
+                final long record = written;
+                writeInt(0x06064b50);
+                writeLong(44);
+                writeShort(45);
+                writeShort(45);
+                writeInt(0);
+                writeInt(0);
+                writeLong(count);
+                writeLong(count);
+                writeLong(size);
+                writeLong(start);
+                // Zip64目录结束定位符
+                writeInt(0x07064b50);
+                writeInt(0);
+                writeLong(record);
+                writeInt(1);
+            }
+            writeInt(0x06054b50);
+            writeShort(0);
+            writeShort(0);
+            writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+            writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+            writeInt(Math.min(size, ZIP64_MAGIC));
+            writeInt(Math.min(start, ZIP64_MAGIC));
+            writeShort(0);
+            out.flush();
+        }
+
+        private void writeShort(int value) throws IOException {
+            scratch[0] = (byte) value;
+            scratch[1] = (byte) (value >>> 8);
+            out.write(scratch, 0, 2);
+            written += 2;
+        }
+
+        private void writeInt(long value) throws IOException {
+            for (int i = 0; i < 4; i++) {
+                scratch[i] = (byte) (value >>> (i << 3));
+            }
+            out.write(scratch, 0, 4);
+            written += 4;
+        }
+
+        private void writeLong(long value) throws IOException {
+            for (int i = 0; i < 8; i++) {
+                scratch[i] = (byte) (value >>> (i << 3));
+            }
+            out.write(scratch, 0, 8);
+            written += 8;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            out.write(bytes);
+            written += bytes.length;
+        }
+    }
+
+    /**
+     * 转换为DOS格式的时间
+     *
+     * @param millis 毫秒数
+     * @return DOS时间
+     */
+    private static long dosTime(long millis) {
+        final LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (time.getYear() - 1980) << 25) | (time.getMonthValue() << 21) | (time.getDayOfMonth() << 16)
+                | (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+    }
+
+    /**
+     * 合并两段数据的CRC32，算法同zlib的crc32_combine
+     *
+     * @param crc1   第一段的CRC
+     * @param crc2   第二段的CRC
+     * @param length 第二段的长度
+     * @return 合并后的CRC
+     */
+    private static long combine(long crc1, long crc2, long length) {
+        if (length <= 0) {
+            return crc1;
+        }
+        final long[] even = new long[32];
+        final long[] odd = new long[32];
+        // 一个0比特对应的算子
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+        do {
+            square(even, odd);
+            if ((length & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length >>= 1;
+            if (0 == length) {
+                break;
+            }
+            square(odd, even);
+            if ((length & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length >>= 1;
+        } while (length != 0);
+        return (crc1 ^ crc2) & ZIP64_MAGIC;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+}
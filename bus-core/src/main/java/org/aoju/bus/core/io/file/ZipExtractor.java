@@ -0,0 +1,383 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.io.file;
+
+import org.aoju.bus.core.io.StreamProgress;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.toolkit.FileKit;
+import org.aoju.bus.core.toolkit.IoKit;
+import org.aoju.bus.core.toolkit.ObjectKit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 基于{@link FileChannel}的流式Zip解压器
+ * 直接解析中央目录定位条目数据，STORED条目通过{@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}零拷贝写出，
+ * DEFLATED条目使用固定大小的缓冲区边读边解压，内存占用与条目大小无关，支持Zip64
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class ZipExtractor implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int END_HEADER = 22;
+    private static final int LOCAL_HEADER = 30;
+    private static final int CENTRAL_HEADER = 46;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final List<Entry> entries;
+
+    /**
+     * 构造
+     *
+     * @param zipFile Zip文件
+     * @param charset 文件名编码，条目标记为UTF-8时忽略
+     */
+    public ZipExtractor(File zipFile, Charset charset) {
+        this.charset = ObjectKit.defaultIfNull(charset, Charset.defaultCharset());
+        try {
+            this.channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+        try {
+            this.entries = readCentral();
+        } catch (IOException | RuntimeException e) {
+            IoKit.close(channel);
+            throw e instanceof InstrumentException ? (InstrumentException) e : new InstrumentException(e);
+        }
+    }
+
+    /**
+     * 创建解压器
+     *
+     * @param zipFile Zip文件
+     * @param charset 文件名编码，null表示平台默认编码
+     * @return this
+     */
+    public static ZipExtractor of(File zipFile, Charset charset) {
+        return new ZipExtractor(zipFile, charset);
+    }
+
+    /**
+     * 获取所有条目
+     *
+     * @return 条目列表
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * 解压全部条目到目录
+     *
+     * @param outDir   解压到的目录
+     * @param progress 进度回调，进度为已写出的解压后字节数，可为null
+     * @return 解压的目录
+     */
+    public File extract(File outDir, StreamProgress progress) {
+        if (outDir.exists() && outDir.isFile()) {
+            throw new InstrumentException("Target path [{}] exist!", outDir.getAbsolutePath());
+        }
+        if (null != progress) {
+            progress.start();
+        }
+        long total = 0;
+        final byte[] input = new byte[BUFFER_SIZE];
+        final byte[] output = new byte[BUFFER_SIZE];
+        final Inflater inflater = new Inflater(true);
+        try {
+            for (Entry entry : entries) {
+                // FileKit.file会检查slip漏洞
+                final File outItemFile = FileKit.file(outDir, entry.name);
+                if (entry.isDirectory()) {
+                    outItemFile.mkdirs();
+                    continue;
+                }
+                FileKit.mkParentDirs(outItemFile);
+                try (FileChannel out = FileChannel.open(outItemFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    final long start = dataOffset(entry);
+                    if (0 == entry.method) {
+                        for (long position = 0; position < entry.size; ) {
+                            final long count = channel.transferTo(start + position, entry.size - position, out);
+                            if (count <= 0) {
+                                throw new InstrumentException("Zip entry [{}] is truncated", entry.name);
+                            }
+                            position += count;
+                            total += count;
+                            if (null != progress) {
+                                progress.progress(total);
+                            }
+                        }
+                    } else if (8 == entry.method) {
+                        inflater.reset();
+                        total = inflate(entry, start, out, inflater, input, output, total, progress);
+                    } else {
+                        throw new InstrumentException("Unsupported compression method [{}] of zip entry [{}]", entry.method, entry.name);
+                    }
+                }
+            }
+        } catch (IOException | DataFormatException e) {
+            throw new InstrumentException(e);
+        } finally {
+            inflater.end();
+        }
+        if (null != progress) {
+            progress.finish();
+        }
+        return outDir;
+    }
+
+    @Override
+    public void close() {
+        IoKit.close(channel);
+    }
+
+    /**
+     * 以固定缓冲区解压条目并校验CRC
+     *
+     * @return 累计写出的字节数
+     */
+    private long inflate(Entry entry, long start, FileChannel out, Inflater inflater, byte[] input, byte[] output,
+                         long total, StreamProgress progress) throws IOException, DataFormatException {
+        final CRC32 crc = new CRC32();
+        long position = 0;
+        boolean dummy = false;
+        while (false == inflater.finished()) {
+            if (inflater.needsInput()) {
+                if (position < entry.compressedSize) {
+                    final ByteBuffer buffer = ByteBuffer.wrap(input, 0, (int) Math.min(input.length, entry.compressedSize - position));
+                    final int read = channel.read(buffer, start + position);
+                    if (read <= 0) {
+                        throw new InstrumentException("Zip entry [{}] is truncated", entry.name);
+                    }
+                    position += read;
+                    inflater.setInput(input, 0, read);
+                } else if (false == dummy) {
+                    // 无包装的Inflater在数据末尾可能需要一个额外的字节
+                    dummy = true;
+                    input[0] = 0;
+                    inflater.setInput(input, 0, 1);
+                } else {
+                    throw new InstrumentException("Zip entry [{}] is truncated", entry.name);
+                }
+            }
+            final int count = inflater.inflate(output);
+            if (count > 0) {
+                crc.update(output, 0, count);
+                final ByteBuffer buffer = ByteBuffer.wrap(output, 0, count);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                total += count;
+                if (null != progress) {
+                    progress.progress(total);
+                }
+            } else if (inflater.needsDictionary()) {
+                throw new InstrumentException("Zip entry [{}] requires a preset dictionary", entry.name);
+            }
+        }
+        if (crc.getValue() != entry.crc) {
+            throw new InstrumentException("CRC mismatch of zip entry [{}]", entry.name);
+        }
+        return total;
+    }
+
+    /**
+     * 根据本地文件头计算条目数据的起始位置
+     *
+     * @param entry 条目
+     * @return 数据起始位置
+     * @throws IOException IO异常
+     */
+    private long dataOffset(Entry entry) throws IOException {
+        final ByteBuffer header = read(entry.offset, LOCAL_HEADER);
+        if (header.getInt(0) != 0x04034b50) {
+            throw new InstrumentException("Invalid local header of zip entry [{}]", entry.name);
+        }
+        return entry.offset + LOCAL_HEADER + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    }
+
+    /**
+     * 读取中央目录
+     *
+     * @return 条目列表
+     * @throws IOException IO异常
+     */
+    private List<Entry> readCentral() throws IOException {
+        final long fileSize = channel.size();
+        final int tailSize = (int) Math.min(fileSize, END_HEADER + 0xFFFF);
+        final ByteBuffer tail = read(fileSize - tailSize, tailSize);
+        int end = tailSize - END_HEADER;
+        while (end >= 0 && tail.getInt(end) != 0x06054b50) {
+            end--;
+        }
+        if (end < 0) {
+            throw new InstrumentException("Zip end of central directory not found");
+        }
+        long count = tail.getShort(end + 10) & 0xFFFF;
+        long size = tail.getInt(end + 12) & ZIP64_MAGIC;
+        long offset = tail.getInt(end + 16) & ZIP64_MAGIC;
+
+        final long endPosition = fileSize - tailSize + end;
+        if ((0xFFFF == count || ZIP64_MAGIC == size || ZIP64_MAGIC == offset) && endPosition >= 20) {
+            final ByteBuffer locator = read(endPosition - 20, 20);
+            if (locator.getInt(0) == 0x07064b50) {
+                final ByteBuffer record = read(locator.getLong(8), 56);
+                if (record.getInt(0) != 0x06064b50) {
+                    throw new InstrumentException("Invalid zip64 end of central directory");
+                }
+                count = record.getLong(32);
+                size = record.getLong(40);
+                offset = record.getLong(48);
+            }
+        }
+
+        final ByteBuffer central = channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+        final List<Entry> result = new ArrayList<>((int) Math.min(count, 1 << 16));
+        int position = 0;
+        for (long i = 0; i < count; i++) {
+            if (central.getInt(position) != 0x02014b50) {
+                throw new InstrumentException("Invalid zip central directory header");
+            }
+            final Entry entry = new Entry();
+            final int flags = central.getShort(position + 8) & 0xFFFF;
+            if ((flags & 1) != 0) {
+                throw new InstrumentException("Encrypted zip entries are not supported");
+            }
+            entry.method = central.getShort(position + 10) & 0xFFFF;
+            entry.crc = central.getInt(position + 16) & ZIP64_MAGIC;
+            entry.compressedSize = central.getInt(position + 20) & ZIP64_MAGIC;
+            entry.size = central.getInt(position + 24) & ZIP64_MAGIC;
+            final int nameLength = central.getShort(position + 28) & 0xFFFF;
+            final int extraLength = central.getShort(position + 30) & 0xFFFF;
+            final int commentLength = central.getShort(position + 32) & 0xFFFF;
+            entry.offset = central.getInt(position + 42) & ZIP64_MAGIC;
+
+            final byte[] name = new byte[nameLength];
+            central.position(position + CENTRAL_HEADER);
+            central.get(name);
+            entry.name = new String(name, (flags & 0x0800) != 0 ? StandardCharsets.UTF_8 : charset);
+
+            // Zip64扩展信息，按原始大小、压缩后大小、偏移的顺序出现
+            int extra = position + CENTRAL_HEADER + nameLength;
+            final int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                final int id = central.getShort(extra) & 0xFFFF;
+                final int length = central.getShort(extra + 2) & 0xFFFF;
+                if (0x0001 == id) {
+                    int field = extra + 4;
+                    if (ZIP64_MAGIC == entry.size) {
+                        entry.size = central.getLong(field);
+                        field += 8;
+                    }
+                    if (ZIP64_MAGIC == entry.compressedSize) {
+                        entry.compressedSize = central.getLong(field);
+                        field += 8;
+                    }
+                    if (ZIP64_MAGIC == entry.offset) {
+                        entry.offset = central.getLong(field);
+                    }
+                }
+                extra += 4 + length;
+            }
+            result.add(entry);
+            position = extraEnd + commentLength;
+        }
+        return result;
+    }
+
+    /**
+     * 读取指定位置的数据
+     *
+     * @param position 位置
+     * @param length   长度
+     * @return 小端序的{@link ByteBuffer}
+     * @throws IOException IO异常
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new InstrumentException("Unexpected end of zip file");
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Zip条目信息
+     */
+    public static class Entry {
+
+        private String name;
+        private int method;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private long offset;
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+}
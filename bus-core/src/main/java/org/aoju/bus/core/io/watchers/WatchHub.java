@@ -0,0 +1,434 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.io.watchers;
+
+import org.aoju.bus.core.lang.Assert;
+import org.aoju.bus.core.lang.Console;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.toolkit.ArrayKit;
+import org.aoju.bus.core.toolkit.IoKit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享的文件监听中心
+ * 所有订阅的路径注册在同一个{@link WatchService}上，由一个守护线程统一获取事件并分发给订阅者，
+ * 同一目录被多次订阅时只注册一次；订阅时可指定合并窗口，窗口内同一文件的同类事件只触发一次，
+ * 窗口从首个事件开始计时，持续写入的文件也会按窗口周期触发
+ * 事件在监听线程中回调，耗时的处理应自行异步执行
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class WatchHub implements Closeable {
+
+    /**
+     * 默认的事件合并窗口(毫秒)
+     */
+    public static final long DEFAULT_DELAY = 200;
+    private static final WatchEvent.Kind<?>[] EVENTS = {
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE
+    };
+
+    /**
+     * 目录与注册信息的对应表
+     */
+    private final Map<Path, Registration> registrations = new ConcurrentHashMap<>();
+    /**
+     * WatchKey与注册信息的对应表
+     */
+    private final Map<WatchKey, Registration> keys = new ConcurrentHashMap<>();
+    /**
+     * 等待合并触发的事件，仅由监听线程访问
+     */
+    private final Map<List<Object>, Pending> pendings = new HashMap<>();
+    /**
+     * 按触发时间排序的等待事件
+     */
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>((a, b) -> Long.signum(a.deadline - b.deadline));
+    private final String name;
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * 构造
+     *
+     * @param name 监听线程名称
+     */
+    public WatchHub(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 获取全局共享的监听中心
+     *
+     * @return 监听中心
+     */
+    public static WatchHub getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 订阅文件或目录的所有事件，事件不合并
+     *
+     * @param path    文件或目录，监听目录时不递归子目录
+     * @param watcher 监听器
+     * @return 订阅，关闭即取消订阅
+     */
+    public Subscription subscribe(Path path, Watcher watcher) {
+        return subscribe(path, watcher, 0);
+    }
+
+    /**
+     * 订阅文件或目录
+     * 文件不存在时按WatchMonitor的规则判断：带扩展名的视为文件，其余视为目录，并创建不存在的目录
+     *
+     * @param path    文件或目录，监听目录时不递归子目录
+     * @param watcher 监听器
+     * @param delay   事件合并窗口(毫秒)，小于1表示不合并
+     * @param events  关注的事件，为空表示创建、修改、删除及溢出事件
+     * @return 订阅，关闭即取消订阅
+     */
+    public Subscription subscribe(Path path, Watcher watcher, long delay, WatchEvent.Kind<?>... events) {
+        Assert.notNull(path, "Path must not be null");
+        Assert.notNull(watcher, "Watcher must not be null");
+
+        Path dir = path.toAbsolutePath().normalize();
+        Path file = null;
+        if (Files.isRegularFile(dir, LinkOption.NOFOLLOW_LINKS)
+                || (false == Files.exists(dir, LinkOption.NOFOLLOW_LINKS) && isFileName(dir))) {
+            file = dir.getFileName();
+            dir = dir.getParent();
+        }
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+
+        final Subscription subscription = new Subscription(dir, file, watcher, delay,
+                ArrayKit.isEmpty(events) ? null : new HashSet<>(Arrays.asList(events)));
+        synchronized (this) {
+            if (closed) {
+                throw new InstrumentException("Watch hub is closed !");
+            }
+            start();
+            Registration registration = registrations.get(dir);
+            if (null == registration) {
+                final WatchKey key;
+                try {
+                    key = dir.register(watchService, EVENTS);
+                } catch (IOException e) {
+                    throw new InstrumentException(e);
+                }
+                registration = new Registration(dir, key);
+                registrations.put(dir, registration);
+                keys.put(key, registration);
+            }
+            registration.subscriptions.add(subscription);
+        }
+        return subscription;
+    }
+
+    /**
+     * 当前注册的目录数
+     *
+     * @return 目录数
+     */
+    public int getDirectoryCount() {
+        return registrations.size();
+    }
+
+    /**
+     * 关闭监听中心，所有订阅失效
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        registrations.clear();
+        keys.clear();
+        IoKit.close(watchService);
+        if (null != thread) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 取消订阅，目录无订阅时取消其注册
+     *
+     * @param subscription 订阅
+     */
+    private synchronized void unsubscribe(Subscription subscription) {
+        final Registration registration = registrations.get(subscription.dir);
+        if (null != registration && registration.subscriptions.remove(subscription)
+                && registration.subscriptions.isEmpty()) {
+            registrations.remove(subscription.dir);
+            keys.remove(registration.key);
+            registration.key.cancel();
+        }
+    }
+
+    /**
+     * 首次订阅时创建{@link WatchService}并启动监听线程
+     */
+    private void start() {
+        if (null != thread) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+        thread = new Thread(this::loop, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 监听循环，有待触发的合并事件时按最近的触发时间限时等待
+     */
+    private void loop() {
+        while (false == closed) {
+            final WatchKey key;
+            try {
+                if (queue.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    final long wait = queue.peek().deadline - System.nanoTime();
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : watchService.poll();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (null != key) {
+                final Registration registration = keys.get(key);
+                final List<WatchEvent<?>> events = key.pollEvents();
+                key.reset();
+                if (null != registration) {
+                    for (WatchEvent<?> event : events) {
+                        for (Subscription subscription : registration.subscriptions) {
+                            if (subscription.accept(event)) {
+                                dispatch(subscription, event);
+                            }
+                        }
+                    }
+                }
+            }
+            firePending();
+        }
+    }
+
+    /**
+     * 分发事件，需要合并的事件加入等待队列，窗口内的后续事件覆盖之前的事件
+     *
+     * @param subscription 订阅
+     * @param event        事件
+     */
+    private void dispatch(Subscription subscription, WatchEvent<?> event) {
+        if (subscription.delay < 1) {
+            notify(subscription, event);
+            return;
+        }
+        final List<Object> id = Arrays.asList(subscription, event.kind(), event.context());
+        final Pending pending = pendings.get(id);
+        if (null == pending) {
+            final Pending added = new Pending(id, subscription, event,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(subscription.delay));
+            pendings.put(id, added);
+            queue.add(added);
+        } else {
+            pending.event = event;
+        }
+    }
+
+    /**
+     * 触发已到期的合并事件
+     */
+    private void firePending() {
+        final long now = System.nanoTime();
+        while (false == queue.isEmpty() && queue.peek().deadline - now <= 0) {
+            final Pending pending = queue.poll();
+            pendings.remove(pending.id);
+            notify(pending.subscription, pending.event);
+        }
+    }
+
+    /**
+     * 回调监听器，订阅已取消时忽略，异常不影响其它订阅
+     *
+     * @param subscription 订阅
+     * @param event        事件
+     */
+    private void notify(Subscription subscription, WatchEvent<?> event) {
+        if (subscription.cancelled) {
+            return;
+        }
+        final Watcher watcher = subscription.watcher;
+        final WatchEvent.Kind<?> kind = event.kind();
+        try {
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                watcher.onCreate(event, subscription.dir);
+            } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+                watcher.onModify(event, subscription.dir);
+            } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                watcher.onDelete(event, subscription.dir);
+            } else if (kind == StandardWatchEventKinds.OVERFLOW) {
+                watcher.onOverflow(event, subscription.dir);
+            }
+        } catch (Throwable e) {
+            Console.error(e, "Watcher of [{}] failed", subscription.dir);
+        }
+    }
+
+    /**
+     * 不存在的路径，带有点表示有扩展名，按照未创建的文件对待，Linux下.d的为目录
+     *
+     * @param path 路径
+     * @return 是否按文件对待
+     */
+    private static boolean isFileName(Path path) {
+        final Path name = path.getFileName();
+        if (null == name) {
+            return false;
+        }
+        final String value = name.toString();
+        return value.indexOf('.') > 0 && false == value.toLowerCase().endsWith(".d");
+    }
+
+    /**
+     * 全局实例
+     */
+    private static class Holder {
+        private static final WatchHub INSTANCE = new WatchHub("bus-watch-hub");
+    }
+
+    /**
+     * 目录注册信息
+     */
+    private static class Registration {
+
+        private final Path dir;
+        private final WatchKey key;
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+        Registration(Path dir, WatchKey key) {
+            this.dir = dir;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 等待触发的事件
+     */
+    private static class Pending {
+
+        private final List<Object> id;
+        private final Subscription subscription;
+        private final long deadline;
+        private WatchEvent<?> event;
+
+        Pending(List<Object> id, Subscription subscription, WatchEvent<?> event, long deadline) {
+            this.id = id;
+            this.subscription = subscription;
+            this.event = event;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 订阅，关闭即取消订阅
+     */
+    public class Subscription implements Closeable {
+
+        private final Path dir;
+        private final Path file;
+        private final Watcher watcher;
+        private final long delay;
+        private final Set<WatchEvent.Kind<?>> events;
+        private volatile boolean cancelled;
+
+        Subscription(Path dir, Path file, Watcher watcher, long delay, Set<WatchEvent.Kind<?>> events) {
+            this.dir = dir;
+            this.file = file;
+            this.watcher = watcher;
+            this.delay = delay;
+            this.events = events;
+        }
+
+        /**
+         * 获取监听的目录
+         *
+         * @return 目录
+         */
+        public Path getDir() {
+            return dir;
+        }
+
+        /**
+         * 获取监听的文件名，监听目录时为null
+         *
+         * @return 文件名
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * 事件是否属于此订阅，溢出事件总是接收
+         *
+         * @param event 事件
+         * @return 是否接收
+         */
+        boolean accept(WatchEvent<?> event) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return null == events || events.contains(StandardWatchEventKinds.OVERFLOW);
+            }
+            if (null != events && false == events.contains(event.kind())) {
+                return false;
+            }
+            return null == file || file.equals(event.context());
+        }
+
+        @Override
+        public void close() {
+            cancelled = true;
+            unsubscribe(this);
+        }
+    }
+
+}
@@ -30,6 +30,8 @@ import org.aoju.bus.core.toolkit.StringKit;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
 
 /**
  * 分布式自增Id生成器（基于Twitter的Snowflake算法实现分布式高效有序ID）
@@ -45,6 +47,8 @@ import java.util.Date;
  * 加起来刚好64位，为一个Long型。
  * SnowFlake的优点是，整体上按照时间自增排序，并且整个分布式系统内不会产生ID碰撞(由数据中心ID和机器ID作区分)，并且效率较高，
  * 经测试，SnowFlake每秒能够产生26万ID左右
+ * 时间戳与序列号打包在一个{@link AtomicLong}中通过CAS更新，无需加锁；
+ * 毫秒内序列号用尽或发生小幅时钟回拨时，借用后续毫秒继续生成，不阻塞调用线程
  * </pre>
  *
  * @author Kimi Liu
@@ -95,11 +99,26 @@ public class Snowflake implements Serializable {
      */
     private final long sequenceMask = -1L ^ (-1L << sequenceBits);
 
+    /**
+     * 允许的时钟回拨及借用未来时间的最大毫秒数
+     */
+    private final long timeOffset = 2000L;
+
     private final long workerId;
     private final long dataCenterId;
     private final boolean isClock;
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
+    /**
+     * 数据中心及机器节点部分，构造时预先计算
+     */
+    private final long node;
+    /**
+     * 状态：(时间戳偏移量 &lt;&lt; sequenceBits) | 序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+    /**
+     * 已观测到的最大系统时间偏移量，用于区分时钟回拨和序列号借用
+     */
+    private final AtomicLong lastTimestamp = new AtomicLong(-1L);
 
     /**
      * 构造
@@ -143,6 +162,7 @@ public class Snowflake implements Serializable {
         this.workerId = workerId;
         this.dataCenterId = dataCenterId;
         this.isClock = isClock;
+        this.node = (dataCenterId << dataCenterIdShift) | (workerId << workerIdShift);
     }
 
     /**
@@ -180,43 +200,37 @@ public class Snowflake implements Serializable {
      *
      * @return ID
      */
-    public synchronized long nextId() {
-        long timestamp = genTime();
-
-        // 闰秒：如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过这个时候应当抛出异常
-        if (timestamp < lastTimestamp) {
-            if (lastTimestamp - timestamp < 2000) {
-                // 容忍2秒内的回拨，避免NTP校时造成的异常
-                timestamp = lastTimestamp;
-            } else {
-                // 如果服务器时间有问题(时钟后退) 报错。
-                throw new IllegalStateException(StringKit.format("Clock moved backwards. Refusing to generate id for {}ms", lastTimestamp - timestamp));
-            }
-        }
+    public long nextId() {
+        return toId(reserve(1));
+    }
 
-        // 解决跨毫秒生成ID序列号始终为偶数的缺陷:如果是同一时间生成的，则进行毫秒内序列
-        if (timestamp == lastTimestamp) {
-            // 通过位与运算保证计算的结果范围始终是 0-4095
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
-            }
-        } else {
-            // 时间戳改变，毫秒内序列重置
-            sequence = 0L;
+    /**
+     * 批量获取ID，一次CAS预留连续的序列号区间
+     * 单次最多获取一毫秒的序列号空间(4096个)，避免一次借用过多后续毫秒
+     *
+     * @param count ID数量
+     * @return ID数组，按生成顺序递增
+     * @throws IllegalArgumentException count小于1或超过一毫秒的序列号空间
+     */
+    public long[] nextIds(int count) {
+        final long first = reserve(count);
+        final long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = toId(first + i);
         }
+        return ids;
+    }
 
-        lastTimestamp = timestamp;
-
-        /*
-         * 1.左移运算是为了将数值移动到对应的段(41、5、5，12那段因为本来就在最右，因此不用左移)
-         * 2.然后对每个左移后的值(la、lb、lc、sequence)做位或运算，是为了把各个短的数据合并起来，合并成一个二进制数
-         * 3.最后转换成10进制，就是最终生成的id
-         */
-        return ((timestamp - startTime) << timestampLeftShift) |
-                (dataCenterId << dataCenterIdShift) |
-                (workerId << workerIdShift) |
-                sequence;
+    /**
+     * 批量获取ID流，一次CAS预留连续的序列号区间，数量限制同{@link #nextIds(int)}
+     *
+     * @param count ID数量
+     * @return ID流，按生成顺序递增
+     * @throws IllegalArgumentException count小于1或超过一毫秒的序列号空间
+     */
+    public LongStream nextIdStream(int count) {
+        final long first = reserve(count);
+        return LongStream.range(first, first + count).map(this::toId);
     }
 
     /**
@@ -229,17 +243,62 @@ public class Snowflake implements Serializable {
     }
 
     /**
-     * 保证返回的毫秒数在参数之后(阻塞到下一个毫秒，直到获得新的时间戳)
+     * 预留指定数量的连续状态值
+     * 毫秒内序列号溢出时进位到时间戳部分，即借用后续毫秒；
+     * 小于{@link #timeOffset}的时钟回拨沿用已有的时间戳继续分配
      *
-     * @param lastTimestamp 上次记录的时间
-     * @return 下一个时间
+     * @param count 数量
+     * @return 预留区间的第一个状态值
      */
-    private long tilNextMillis(long lastTimestamp) {
-        long timestamp = genTime();
-        while (timestamp <= lastTimestamp) {
-            timestamp = genTime();
+    private long reserve(int count) {
+        if (count < 1 || count > sequenceMask + 1) {
+            throw new IllegalArgumentException(StringKit.format(
+                    "count must be between 1 and {}, but was {}", sequenceMask + 1, count));
+        }
+        long current, first, timestamp, last;
+        for (; ; ) {
+            current = state.get();
+            timestamp = genTime() - startTime;
+            last = current >>> sequenceBits;
+            if (timestamp > last) {
+                // 时间戳改变，毫秒内序列重置
+                first = timestamp << sequenceBits;
+            } else {
+                // 闰秒：如果当前时间小于上一次观测的时间，说明系统时钟回退过
+                final long observed = lastTimestamp.get();
+                if (observed - timestamp > timeOffset) {
+                    // 如果服务器时间有问题(时钟后退) 报错。
+                    throw new IllegalStateException(StringKit.format("Clock moved backwards. Refusing to generate id for {}ms", observed - timestamp));
+                }
+                if (last - timestamp > timeOffset) {
+                    // 借用的时间过多，让出CPU等待系统时间追上
+                    Thread.yield();
+                    continue;
+                }
+                first = current + 1;
+            }
+            if (state.compareAndSet(current, first + count - 1)) {
+                break;
+            }
         }
-        return timestamp;
+
+        if (timestamp > lastTimestamp.get()) {
+            // 并发更新时只能前进，不能被较旧的观测值覆盖
+            lastTimestamp.accumulateAndGet(timestamp, Math::max);
+        }
+        return first;
+    }
+
+    /**
+     * 将状态值转换为ID
+     * 1.左移运算是为了将数值移动到对应的段(41、5、5，12那段因为本来就在最右，因此不用左移)
+     * 2.然后对每个左移后的值做位或运算，是为了把各个短的数据合并起来，合并成一个二进制数
+     *
+     * @param state 状态值
+     * @return ID
+     */
+    private long toId(long state) {
+        return ((state >>> sequenceBits) << timestampLeftShift) | node | (state & sequenceMask);
     }
 
     /**
@@ -0,0 +1,142 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.key;
+
+import org.aoju.bus.core.toolkit.StringKit;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.stream.LongStream;
+
+/**
+ * 分段Snowflake生成器
+ * 持有多个使用不同workerId的{@link Snowflake}实例，按线程分配实例，
+ * 降低高并发下对同一状态的CAS竞争；各实例workerId不同，生成的ID不会重复，
+ * 但不同线程间生成的ID不再保证全局单调递增，仅保证单个线程内递增
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class StripedSnowflake implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * workerId可以使用的最大数值：31
+     */
+    private static final long MAX_WORKER_ID = 31L;
+
+    private final Snowflake[] stripes;
+
+    /**
+     * 构造
+     *
+     * @param fromWorkerId 起始工作机器ID,各实例依次使用 fromWorkerId ~ fromWorkerId + stripes - 1
+     * @param dataCenterId 数据中心ID,数据范围为0~31
+     * @param stripes      实例数量
+     */
+    public StripedSnowflake(long fromWorkerId, long dataCenterId, int stripes) {
+        this(null, fromWorkerId, dataCenterId, stripes, false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param epochDate    初始化时间起点(null表示默认起始日期)
+     * @param fromWorkerId 起始工作机器ID,各实例依次使用 fromWorkerId ~ fromWorkerId + stripes - 1
+     * @param dataCenterId 数据中心ID,数据范围为0~31
+     * @param stripes      实例数量
+     * @param isClock      是否使用{@link org.aoju.bus.core.date.NonClock} 获取当前时间戳
+     */
+    public StripedSnowflake(Date epochDate, long fromWorkerId, long dataCenterId, int stripes, boolean isClock) {
+        if (stripes < 1 || fromWorkerId < 0 || fromWorkerId + stripes - 1 > MAX_WORKER_ID) {
+            throw new IllegalArgumentException(StringKit.format("worker Id range [{}, {}] must be within 0 and {}",
+                    fromWorkerId, fromWorkerId + stripes - 1, MAX_WORKER_ID));
+        }
+        this.stripes = new Snowflake[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Snowflake(epochDate, fromWorkerId + i, dataCenterId, isClock);
+        }
+    }
+
+    /**
+     * 下一个ID
+     *
+     * @return ID
+     */
+    public long nextId() {
+        return current().nextId();
+    }
+
+    /**
+     * 下一个ID(字符串形式)
+     *
+     * @return ID 字符串形式
+     */
+    public String nextIdStr() {
+        return current().nextIdStr();
+    }
+
+    /**
+     * 批量获取ID
+     *
+     * @param count ID数量
+     * @return ID数组，按生成顺序递增
+     */
+    public long[] nextIds(int count) {
+        return current().nextIds(count);
+    }
+
+    /**
+     * 批量获取ID流
+     *
+     * @param count ID数量
+     * @return ID流，按生成顺序递增
+     */
+    public LongStream nextIdStream(int count) {
+        return current().nextIdStream(count);
+    }
+
+    /**
+     * 获取当前线程对应的实例
+     *
+     * @return {@link Snowflake}
+     */
+    public Snowflake current() {
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+    /**
+     * 实例数量
+     *
+     * @return 实例数量
+     */
+    public int size() {
+        return stripes.length;
+    }
+
+}
@@ -25,17 +25,21 @@
  ********************************************************************************/
 package org.aoju.bus.core.lang;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * 简单缓存,无超时实现,使用{@link WeakHashMap}实现缓存自动清理
+ * 简单缓存,无超时实现,默认使用弱引用键实现缓存自动清理
+ * <p>
+ * 默认基于{@link ConcurrentHashMap}实现,读取无锁,null键使用占位键存放;
+ * 缺失时通过{@link ConcurrentHashMap#computeIfAbsent(Object, java.util.function.Function)}加载,
+ * 同一个键并发加载时只会执行一次;通过{@link #SimpleCache(Map)}构造时直接使用传入的Map
  *
  * @param <K> 键类型
  * @param <V> 值类型
@@ -48,80 +52,103 @@ public class SimpleCache<K, V> implements Iterable<Map.Entry<K, V>>, Serializabl
     private static final long serialVersionUID = 1L;
 
     /**
-     * 缓存池
+     * null键在缓存池中的占位键
      */
-    private final Map<K, V> cache;
+    private static final Object NULL_KEY = new Object();
+
     /**
-     * 乐观读写锁
+     * 是否使用弱引用键,键被回收后对应的缓存自动清理(如类加载器卸载后的Class)
      */
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-
+    private final boolean weakKeys;
+    /**
+     * 最大缓存数量,小于等于0表示不限制
+     */
+    private final int maximumSize;
+    /**
+     * 是否直接使用构造时传入的Map,此时所有操作在该Map上同步执行
+     */
+    private final boolean backed;
+    /**
+     * 缓存池,弱引用键模式下键为{@link WeakKey}
+     */
+    private transient Map<Object, V> cache;
     /**
-     * 写的时候每个key一把锁，降低锁的粒度
+     * 已被回收的键
      */
-    protected final Map<K, Lock> keyLockMap = new ConcurrentHashMap<>();
+    private transient ReferenceQueue<K> queue = new ReferenceQueue<>();
 
     /**
-     * 构造，默认使用{@link WeakHashMap}实现缓存自动清理
+     * 构造,默认使用弱引用键实现缓存自动清理
      */
     public SimpleCache() {
-        this(new WeakHashMap<>());
+        this(true, 0);
     }
 
     /**
-     * 通过自定义Map初始化，可以自定义缓存实现
-     * 比如使用{@link WeakHashMap}则会自动清理key，使用HashMap则不会清理
-     * 同时，传入的Map对象也可以自带初始化的键值对，防止在get时创建
+     * 通过自定义Map初始化,可以自定义缓存实现
+     * 比如使用{@link WeakHashMap}则会自动清理key,使用HashMap则不会清理
+     * 缓存直接读写传入的Map(在该Map上同步),Map自带的键值对即为初始缓存
      *
-     * @param initMap 初始Map，用于定义Map类型
+     * @param initMap 初始Map,用于定义Map类型
      */
     public SimpleCache(Map<K, V> initMap) {
-        this.cache = initMap;
+        this.weakKeys = false;
+        this.maximumSize = 0;
+        this.backed = true;
+        this.cache = (Map<Object, V>) initMap;
+    }
+
+    /**
+     * 构造
+     *
+     * @param weakKeys    是否使用弱引用键
+     * @param maximumSize 最大缓存数量,超出后淘汰部分已有缓存,小于等于0表示不限制
+     */
+    public SimpleCache(boolean weakKeys, int maximumSize) {
+        this.weakKeys = weakKeys;
+        this.maximumSize = maximumSize;
+        this.backed = false;
+        this.cache = new ConcurrentHashMap<>();
     }
 
     /**
      * 从缓存池中查找值
      *
-     * @param key 键
+     * @param key 键,可以为null
      * @return 值
      */
     public V get(K key) {
-        lock.readLock().lock();
-        try {
-            return cache.get(key);
-        } finally {
-            lock.readLock().unlock();
+        if (backed) {
+            synchronized (cache) {
+                return cache.get(key);
+            }
         }
+        return cache.get(lookup(key));
     }
 
     /**
-     * 从缓存中获得对象，当对象不在缓存中或已经过期返回Func0回调产生的对象
+     * 从缓存中获得对象,当对象不在缓存中或已经过期返回Func0回调产生的对象
      *
-     * @param key      键
-     * @param supplier 如果不存在回调方法，用于生产值对象
+     * @param key      键,可以为null
+     * @param supplier 如果不存在回调方法,用于生产值对象
      * @return 值对象
      */
     public V get(K key, Func.Func0<V> supplier) {
         V v = get(key);
         if (null == v && null != supplier) {
-            // 每个key单独获取一把锁，降低锁的粒度提高并发能力
-            final Lock keyLock = keyLockMap.computeIfAbsent(key, k -> new ReentrantLock());
-            keyLock.lock();
-            try {
-                // 双重检查，防止在竞争锁的过程中已经有其它线程写入
-                v = cache.get(key);
-                if (null == v) {
-                    try {
-                        v = supplier.call();
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
+            if (backed) {
+                synchronized (cache) {
+                    v = cache.get(key);
+                    if (null == v) {
+                        v = call(supplier);
+                        cache.put(key, v);
                     }
-                    put(key, v);
                 }
-            } finally {
-                keyLock.unlock();
-                keyLockMap.remove(key);
+                return v;
             }
+            expungeStaleEntries();
+            v = cache.computeIfAbsent(wrap(key), k -> call(supplier));
+            evictIfNecessary();
         }
 
         return v;
@@ -130,17 +157,24 @@ public class SimpleCache<K, V> implements Iterable<Map.Entry<K, V>>, Serializabl
     /**
      * 放入缓存
      *
-     * @param key   键
-     * @param value 值
+     * @param key   键,可以为null
+     * @param value 值,为null时移除该键(使用传入的Map时按该Map的规则存放)
      * @return 值
      */
     public V put(K key, V value) {
-        lock.writeLock().lock();
-        try {
-            cache.put(key, value);
-        } finally {
-            lock.writeLock().unlock();
+        if (backed) {
+            synchronized (cache) {
+                cache.put(key, value);
+            }
+            return value;
         }
+        if (null == value) {
+            remove(key);
+            return null;
+        }
+        expungeStaleEntries();
+        cache.put(wrap(key), value);
+        evictIfNecessary();
         return value;
     }
 
@@ -151,29 +185,270 @@ public class SimpleCache<K, V> implements Iterable<Map.Entry<K, V>>, Serializabl
      * @return 移除的值
      */
     public V remove(K key) {
-        lock.writeLock().lock();
-        try {
-            return cache.remove(key);
-        } finally {
-            lock.writeLock().unlock();
+        if (backed) {
+            synchronized (cache) {
+                return cache.remove(key);
+            }
         }
+        return cache.remove(lookup(key));
     }
 
     /**
      * 清空缓存池
      */
     public void clear() {
-        lock.writeLock().lock();
-        try {
-            this.cache.clear();
-        } finally {
-            lock.writeLock().unlock();
+        if (backed) {
+            synchronized (cache) {
+                cache.clear();
+            }
+            return;
         }
+        this.cache.clear();
+    }
+
+    /**
+     * @return 缓存数量(弱引用键模式下可能包含键已被回收但尚未清理的缓存)
+     */
+    public int size() {
+        if (backed) {
+            synchronized (cache) {
+                return cache.size();
+            }
+        }
+        expungeStaleEntries();
+        return this.cache.size();
     }
 
     @Override
     public Iterator<Map.Entry<K, V>> iterator() {
-        return this.cache.entrySet().iterator();
+        if (backed) {
+            return ((Map<K, V>) (Map<?, V>) this.cache).entrySet().iterator();
+        }
+        final Iterator<Map.Entry<Object, V>> iterator = this.cache.entrySet().iterator();
+        return new Iterator<Map.Entry<K, V>>() {
+
+            private Map.Entry<K, V> next;
+
+            @Override
+            public boolean hasNext() {
+                while (null == next && iterator.hasNext()) {
+                    Map.Entry<Object, V> entry = iterator.next();
+                    K key = unwrap(entry.getKey());
+                    if (null != key || NULL_KEY == entry.getKey()) {
+                        next = new SimpleEntry(key, entry);
+                    }
+                }
+                return null != next;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<K, V> result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    private V call(Func.Func0<V> supplier) {
+        try {
+            return supplier.call();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Object lookup(K key) {
+        if (null == key) {
+            return NULL_KEY;
+        }
+        return weakKeys ? new LookupKey(key) : key;
+    }
+
+    private Object wrap(K key) {
+        if (null == key) {
+            return NULL_KEY;
+        }
+        return weakKeys ? new WeakKey<>(key, queue) : key;
+    }
+
+    private K unwrap(Object key) {
+        if (NULL_KEY == key) {
+            return null;
+        }
+        return weakKeys ? ((WeakKey<K>) key).get() : (K) key;
+    }
+
+    /**
+     * 清理键已被回收的缓存
+     */
+    private void expungeStaleEntries() {
+        if (!weakKeys) {
+            return;
+        }
+        Object ref;
+        while (null != (ref = queue.poll())) {
+            cache.remove(ref);
+        }
+    }
+
+    /**
+     * 超出最大数量时按遍历顺序淘汰,对于按类缓存反射信息的场景近似随机淘汰即可
+     */
+    private void evictIfNecessary() {
+        if (maximumSize <= 0 || cache.size() <= maximumSize) {
+            return;
+        }
+        Iterator<Object> iterator = cache.keySet().iterator();
+        while (cache.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 序列化时写出键值对本身,弱引用键不会被序列化
+     *
+     * @param out 输出流
+     * @throws IOException IO异常
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        if (backed) {
+            synchronized (cache) {
+                out.writeObject(cache);
+            }
+            return;
+        }
+        final List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Map.Entry<K, V> entry : this) {
+            entries.add(entry);
+        }
+        out.writeInt(entries.size());
+        for (Map.Entry<K, V> entry : entries) {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+    }
+
+    /**
+     * 反序列化时重建缓存池及引用队列
+     *
+     * @param in 输入流
+     * @throws IOException            IO异常
+     * @throws ClassNotFoundException 类未找到
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.queue = new ReferenceQueue<>();
+        if (backed) {
+            this.cache = (Map<Object, V>) in.readObject();
+            return;
+        }
+        this.cache = new ConcurrentHashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            final K key = (K) in.readObject();
+            final V value = (V) in.readObject();
+            put(key, value);
+        }
+    }
+
+    /**
+     * 弱引用键,以被引用对象的hashCode及equals判断相等
+     */
+    private static final class WeakKey<K> extends WeakReference<K> {
+
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            Object key = get();
+            if (null == key) {
+                return false;
+            }
+            if (obj instanceof WeakKey) {
+                return key.equals(((WeakKey<?>) obj).get());
+            }
+            if (obj instanceof LookupKey) {
+                return key.equals(((LookupKey) obj).key);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 查询时使用的强引用键,避免每次查询创建{@link WeakReference}
+     */
+    private static final class LookupKey {
+
+        private final Object key;
+
+        LookupKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof WeakKey) {
+                return key.equals(((WeakKey<?>) obj).get());
+            }
+            return obj instanceof LookupKey && key.equals(((LookupKey) obj).key);
+        }
+    }
+
+    /**
+     * 对外暴露的缓存项,setValue直接写回缓存池
+     */
+    private final class SimpleEntry implements Map.Entry<K, V> {
+
+        private final K key;
+        private final Map.Entry<Object, V> entry;
+
+        SimpleEntry(K key, Map.Entry<Object, V> entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return entry.getValue();
+        }
+
+        @Override
+        public V setValue(V value) {
+            return entry.setValue(value);
+        }
     }
 
 }
@@ -0,0 +1,306 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.lang.tree;
+
+import org.aoju.bus.core.lang.tree.parser.NodeParser;
+import org.aoju.bus.core.toolkit.CollKit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 树构建器
+ * 一次遍历按父ID建立索引,仅对同级节点排序,整体复杂度为O(n log n);
+ * 节点数量较大时可选择在ForkJoin线程池中并行挂载子树
+ *
+ * @param <E> ID类型
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class TreeBuilder<E> {
+
+    /**
+     * 默认开启并行构建的节点数量阈值
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+    private final E rootId;
+    private final TreeEntity treeEntity;
+    /**
+     * 全部节点,保持源数据顺序
+     */
+    private final List<TreeMap<E>> nodes = new ArrayList<>();
+    /**
+     * ID索引,ID重复时保留第一个节点
+     */
+    private final Map<E, TreeMap<E>> idMap = new HashMap<>();
+
+    private boolean parallel;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private ForkJoinPool pool;
+
+    /**
+     * 构造
+     *
+     * @param rootId     最顶层父id值 一般为 0 之类
+     * @param treeEntity 配置
+     */
+    public TreeBuilder(E rootId, TreeEntity treeEntity) {
+        this.rootId = rootId;
+        this.treeEntity = null == treeEntity ? TreeEntity.DEFAULT : treeEntity;
+    }
+
+    /**
+     * 创建树构建器
+     *
+     * @param <E>    ID类型
+     * @param rootId 最顶层父id值 一般为 0 之类
+     * @return this
+     */
+    public static <E> TreeBuilder<E> of(E rootId) {
+        return of(rootId, null);
+    }
+
+    /**
+     * 创建树构建器
+     *
+     * @param <E>        ID类型
+     * @param rootId     最顶层父id值 一般为 0 之类
+     * @param treeEntity 配置
+     * @return this
+     */
+    public static <E> TreeBuilder<E> of(E rootId, TreeEntity treeEntity) {
+        return new TreeBuilder<>(rootId, treeEntity);
+    }
+
+    /**
+     * 设置是否允许并行构建,仅当节点数量达到阈值时生效
+     *
+     * @param parallel 是否并行
+     * @return this
+     */
+    public TreeBuilder<E> setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * 设置并行构建的节点数量阈值
+     *
+     * @param parallelThreshold 节点数量阈值
+     * @return this
+     */
+    public TreeBuilder<E> setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * 设置并行构建使用的线程池,默认使用{@link ForkJoinPool#commonPool()}
+     *
+     * @param pool 线程池
+     * @return this
+     */
+    public TreeBuilder<E> setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * 增加节点
+     *
+     * @param <T>        转换的实体 为数据源里的对象类型
+     * @param list       源数据集合
+     * @param nodeParser 转换器
+     * @return this
+     */
+    public <T> TreeBuilder<E> append(List<T> list, NodeParser<T, E> nodeParser) {
+        TreeMap<E> treeMap;
+        for (T obj : list) {
+            treeMap = new TreeMap<>(this.treeEntity);
+            nodeParser.parse(obj, treeMap);
+            append(treeMap);
+        }
+        return this;
+    }
+
+    /**
+     * 增加已转换的节点
+     *
+     * @param treeMap 节点
+     * @return this
+     */
+    public TreeBuilder<E> append(TreeMap<E> treeMap) {
+        this.nodes.add(treeMap);
+        this.idMap.putIfAbsent(treeMap.getId(), treeMap);
+        return this;
+    }
+
+    /**
+     * 根据ID索引获取节点,如果有多个ID相同的节点,只返回第一个
+     *
+     * @param id 节点ID
+     * @return 节点, 不存在返回null
+     */
+    public TreeMap<E> getNode(E id) {
+        return this.idMap.get(id);
+    }
+
+    /**
+     * 构建树
+     *
+     * @return 最顶层节点列表(已排序)
+     */
+    public List<TreeMap<E>> build() {
+        // 一次遍历按父ID分组,组内保持源数据顺序
+        final Map<E, List<TreeMap<E>>> childrenMap = new HashMap<>();
+        for (TreeMap<E> node : this.nodes) {
+            node.index = this.idMap;
+            childrenMap.computeIfAbsent(node.getParentId(), key -> new ArrayList<>()).add(node);
+        }
+
+        // 顶层节点不再作为任何节点的子节点,避免ID与rootId相同的节点形成环
+        final List<TreeMap<E>> roots = childrenMap.remove(this.rootId);
+        if (CollKit.isEmpty(roots)) {
+            return new ArrayList<>();
+        }
+        // 父ID为null的节点无法挂载到任何节点下
+        childrenMap.remove(null);
+        // 稳定排序,与源数据中同级节点的相对顺序一致;每组只在此排序一次,挂载时不再修改分组
+        Collections.sort(roots);
+        for (List<TreeMap<E>> children : childrenMap.values()) {
+            Collections.sort(children);
+        }
+
+        final boolean parallel = this.parallel && this.nodes.size() >= this.parallelThreshold;
+        final Linker<E> linker = new Linker<>(parallel ? new ConcurrentHashMap<>(childrenMap) : childrenMap,
+                this.idMap, roots, 0, this.treeEntity.getDeep(), parallel);
+        if (parallel) {
+            (null == this.pool ? ForkJoinPool.commonPool() : this.pool).invoke(linker);
+        } else {
+            linker.compute();
+        }
+        return roots;
+    }
+
+    /**
+     * 子节点挂载任务,每组子节点只挂载到ID相同的第一个节点下,且挂载时从分组中取出,
+     * 因此每组仅由一个任务处理一次,ID重复或父ID指向自身形成环时也能结束
+     * 层级在任务内以迭代方式处理,避免深层树导致栈溢出
+     *
+     * @param <E> ID类型
+     */
+    private static class Linker<E> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 仅在此深度以内拆分子任务,更深的层级由当前任务迭代处理
+         */
+        private static final int FORK_DEEP = 32;
+
+        private final Map<E, List<TreeMap<E>>> childrenMap;
+        private final Map<E, TreeMap<E>> idMap;
+        private final List<TreeMap<E>> parents;
+        private final int deep;
+        private final Integer maxDeep;
+        private final boolean parallel;
+
+        /**
+         * 构造
+         *
+         * @param childrenMap 按父ID分组并已排序的节点,并行时须支持并发删除
+         * @param idMap       ID索引,ID重复时为第一个节点
+         * @param parents     当前层级的节点
+         * @param deep        当前层级深度
+         * @param maxDeep     最大递归深度 可能为null即不限制
+         * @param parallel    是否拆分为并行子任务
+         */
+        Linker(Map<E, List<TreeMap<E>>> childrenMap, Map<E, TreeMap<E>> idMap, List<TreeMap<E>> parents,
+               int deep, Integer maxDeep, boolean parallel) {
+            this.childrenMap = childrenMap;
+            this.idMap = idMap;
+            this.parents = parents;
+            this.deep = deep;
+            this.maxDeep = maxDeep;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected void compute() {
+            final Deque<Linker<E>> pending = new ArrayDeque<>();
+            List<Linker<E>> forked = null;
+            pending.push(this);
+
+            Linker<E> level;
+            List<TreeMap<E>> children;
+            while (null != (level = pending.poll())) {
+                if (null != maxDeep && level.deep >= maxDeep) {
+                    continue;
+                }
+                for (TreeMap<E> parent : level.parents) {
+                    if (null == parent.getId() || idMap.get(parent.getId()) != parent) {
+                        continue;
+                    }
+                    children = childrenMap.remove(parent.getId());
+                    if (CollKit.isEmpty(children)) {
+                        continue;
+                    }
+                    for (TreeMap<E> child : children) {
+                        child.setParent(parent);
+                    }
+                    parent.setChildren(children);
+
+                    final Linker<E> next = new Linker<>(childrenMap, idMap, children, level.deep + 1, maxDeep, parallel);
+                    if (parallel && level.deep < FORK_DEEP && getSurplusQueuedTaskCount() <= 2) {
+                        next.fork();
+                        if (null == forked) {
+                            forked = new ArrayList<>();
+                        }
+                        forked.add(next);
+                    } else {
+                        pending.push(next);
+                    }
+                }
+            }
+            if (null != forked) {
+                for (Linker<E> task : forked) {
+                    task.join();
+                }
+            }
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ import org.aoju.bus.core.toolkit.TreeKit;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 通过转换器将你的实体转化为TreeNodeMap节点实体 属性都存在此处,属性有序，可支持排序
@@ -46,6 +47,10 @@ public class TreeMap<T> extends LinkedHashMap<String, Object> implements Node<T>
 
     private final TreeEntity TreeEntity;
     private TreeMap<T> parent;
+    /**
+     * 构建时生成的ID索引,由{@link TreeBuilder}设置
+     */
+    transient Map<T, TreeMap<T>> index;
 
     public TreeMap() {
         this(null);
@@ -87,12 +92,21 @@ public class TreeMap<T> extends LinkedHashMap<String, Object> implements Node<T>
 
     /**
      * 获取ID对应的节点，如果有多个ID相同的节点，只返回第一个。
-     * 此方法只查找此节点及子节点，采用广度优先遍历。
+     * 此方法只查找此节点及子节点，优先使用构建时的ID索引，未命中时采用深度优先遍历。
      *
      * @param id ID
      * @return 节点
      */
     public TreeMap<T> getNode(T id) {
+        if (null != this.index) {
+            final TreeMap<T> node = this.index.get(id);
+            // 确认索引中的节点位于当前节点之下
+            for (TreeMap<T> current = node; null != current; current = current.getParent()) {
+                if (this == current) {
+                    return node;
+                }
+            }
+        }
         return TreeKit.getNode(this, id);
     }
 
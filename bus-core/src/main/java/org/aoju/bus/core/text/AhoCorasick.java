@@ -0,0 +1,526 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.text;
+
+import org.aoju.bus.core.lang.Assert;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 基于双数组Trie的Aho-Corasick多模式匹配自动机
+ * 词典一次编译为base、check、fail等基本类型数组，查找及替换的耗时与文本长度线性相关，与词数无关
+ * 编译后的实例不可变，可被多个线程并发查询；增删词通过{@link #add(Collection)}、{@link #remove(Collection)}
+ * 在原词典基础上重新编译为新实例，旧实例仍可继续使用
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public final class AhoCorasick implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 词典，下标为词的ID
+     */
+    private final String[] words;
+    /**
+     * 是否忽略大小写
+     */
+    private final boolean ignoreCase;
+    /**
+     * 字符到编码的映射，编码从1开始，0表示不在字母表中
+     */
+    private final int[] codes;
+    private final int[] base;
+    /**
+     * check[t] = s + 1 表示t是s的子状态
+     */
+    private final int[] check;
+    /**
+     * 失配跳转状态
+     */
+    private final int[] fail;
+    /**
+     * 以此状态结尾的词ID，无为-1
+     */
+    private final int[] output;
+    /**
+     * 沿失配链最近的可输出状态，无为-1
+     */
+    private final int[] outLink;
+
+    /**
+     * 构造
+     *
+     * @param words      词典
+     * @param ignoreCase 是否忽略大小写
+     */
+    private AhoCorasick(String[] words, boolean ignoreCase) {
+        this.words = words;
+        this.ignoreCase = ignoreCase;
+
+        // 字母表
+        int maxChar = 0;
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                maxChar = Math.max(maxChar, normalize(word.charAt(i)));
+            }
+        }
+        this.codes = new int[maxChar + 1];
+        int code = 0;
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                final char c = normalize(word.charAt(i));
+                if (0 == codes[c]) {
+                    codes[c] = ++code;
+                }
+            }
+        }
+
+        // 临时Trie
+        final Node root = new Node();
+        for (int id = 0; id < words.length; id++) {
+            Node node = root;
+            final String word = words[id];
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(codes[normalize(word.charAt(i))], key -> new Node());
+            }
+            if (node.word < 0) {
+                node.word = id;
+            }
+        }
+
+        // 按广度优先压缩为双数组
+        final Builder builder = new Builder(Math.max(64, code * 2));
+        builder.check[0] = -1;
+        final Deque<Node> queue = new ArrayDeque<>();
+        final List<Node> order = new ArrayList<>();
+        queue.add(root);
+        while (false == queue.isEmpty()) {
+            final Node node = queue.poll();
+            order.add(node);
+            builder.place(node);
+            queue.addAll(node.children.values());
+        }
+
+        final int size = builder.size;
+        this.base = Arrays.copyOf(builder.base, size);
+        this.check = Arrays.copyOf(builder.check, size);
+        this.fail = new int[size];
+        this.output = new int[size];
+        this.outLink = new int[size];
+        Arrays.fill(output, -1);
+        Arrays.fill(outLink, -1);
+
+        for (Node node : order) {
+            output[node.state] = node.word;
+        }
+        // 失配链及输出链,按广度优先顺序计算
+        for (Node node : order) {
+            final int state = node.state;
+            for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+                final int child = entry.getValue().state;
+                if (0 == state) {
+                    fail[child] = 0;
+                } else {
+                    int f = fail[state];
+                    int next;
+                    while ((next = transition(f, entry.getKey())) < 0 && 0 != f) {
+                        f = fail[f];
+                    }
+                    fail[child] = Math.max(next, 0);
+                }
+                // 失配状态的层级更浅，已在此前计算完成
+                final int f = fail[child];
+                if (f > 0) {
+                    outLink[child] = output[f] >= 0 ? f : outLink[f];
+                }
+            }
+        }
+    }
+
+    /**
+     * 编译词典
+     *
+     * @param words 词典
+     * @return 自动机
+     */
+    public static AhoCorasick of(String... words) {
+        return of(Arrays.asList(words), false);
+    }
+
+    /**
+     * 编译词典
+     *
+     * @param words 词典
+     * @return 自动机
+     */
+    public static AhoCorasick of(Collection<String> words) {
+        return of(words, false);
+    }
+
+    /**
+     * 编译词典，空词及重复的词被忽略
+     *
+     * @param words      词典
+     * @param ignoreCase 是否忽略大小写
+     * @return 自动机
+     */
+    public static AhoCorasick of(Collection<String> words, boolean ignoreCase) {
+        Assert.notNull(words, "words must not be null");
+        final Set<String> set = new LinkedHashSet<>(words.size());
+        for (String word : words) {
+            if (null != word && false == word.isEmpty()) {
+                set.add(word);
+            }
+        }
+        return new AhoCorasick(set.toArray(new String[0]), ignoreCase);
+    }
+
+    /**
+     * 在当前词典基础上增加词并重新编译，当前实例不变
+     *
+     * @param words 新增的词
+     * @return 新的自动机
+     */
+    public AhoCorasick add(Collection<String> words) {
+        final List<String> all = new ArrayList<>(this.words.length + words.size());
+        Collections.addAll(all, this.words);
+        all.addAll(words);
+        return of(all, ignoreCase);
+    }
+
+    /**
+     * 在当前词典基础上删除词并重新编译，当前实例不变
+     *
+     * @param words 删除的词
+     * @return 新的自动机
+     */
+    public AhoCorasick remove(Collection<String> words) {
+        final Set<String> all = new LinkedHashSet<>(Arrays.asList(this.words));
+        all.removeAll(words);
+        return of(all, ignoreCase);
+    }
+
+    /**
+     * 获取词典
+     *
+     * @return 词典
+     */
+    public List<String> getWords() {
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    /**
+     * 文本中是否包含任意词
+     *
+     * @param text 文本
+     * @return 是否包含
+     */
+    public boolean isMatch(CharSequence text) {
+        return null != findFirst(text);
+    }
+
+    /**
+     * 查找文本中第一个出现的词(结束位置最靠前，同一结束位置取最长的词)
+     *
+     * @param text 文本
+     * @return 匹配结果，无匹配返回null
+     */
+    public Hit findFirst(CharSequence text) {
+        final Hit[] result = new Hit[1];
+        scan(text, (start, end, id) -> {
+            result[0] = new Hit(start, end, words[id]);
+            return false;
+        });
+        return result[0];
+    }
+
+    /**
+     * 查找文本中出现的所有词，包括相互重叠的词，按结束位置排序
+     *
+     * @param text 文本
+     * @return 匹配结果列表
+     */
+    public List<Hit> findAll(CharSequence text) {
+        final List<Hit> result = new ArrayList<>();
+        scan(text, (start, end, id) -> result.add(new Hit(start, end, words[id])));
+        return result;
+    }
+
+    /**
+     * 扫描文本，每匹配到一个词回调一次，不创建匹配结果对象
+     *
+     * @param text    文本
+     * @param handler 回调，返回false时停止扫描
+     */
+    public void scan(CharSequence text, HitHandler handler) {
+        if (null == text || words.length == 0) {
+            return;
+        }
+        final int length = text.length();
+        int state = 0;
+        int id;
+        for (int i = 0; i < length; i++) {
+            state = next(state, code(text.charAt(i)));
+            for (int s = output[state] >= 0 ? state : outLink[state]; s > 0; s = outLink[s]) {
+                id = output[s];
+                if (false == handler.hit(i + 1 - words[id].length(), i + 1, id)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 替换文本中的词，重叠时优先替换起始位置最靠前、其次最长的词
+     *
+     * @param text         文本
+     * @param replacements 词与替换内容的映射，映射中不存在的词保持原样
+     * @return 替换后的文本
+     */
+    public String replaceAll(CharSequence text, Map<String, ? extends CharSequence> replacements) {
+        return replaceAll(text, replacements::get);
+    }
+
+    /**
+     * 替换文本中的词，重叠时优先替换起始位置最靠前、其次最长的词
+     *
+     * @param text     文本
+     * @param replacer 根据匹配的词生成替换内容，返回null时保留原文
+     * @return 替换后的文本
+     */
+    public String replaceAll(CharSequence text, Function<String, ? extends CharSequence> replacer) {
+        if (null == text) {
+            return null;
+        }
+        final int length = text.length();
+        // 每个起始位置上最长匹配的结束位置及词ID
+        final int[] ends = new int[length];
+        final int[] ids = new int[length];
+        final boolean[] found = new boolean[1];
+        scan(text, (start, end, id) -> {
+            if (end > ends[start]) {
+                ends[start] = end;
+                ids[start] = id;
+                found[0] = true;
+            }
+            return true;
+        });
+        if (false == found[0]) {
+            return text.toString();
+        }
+
+        final StringBuilder builder = new StringBuilder(length + 16);
+        int cursor = 0;
+        for (int start = 0; start < length; start++) {
+            if (start >= cursor && ends[start] > 0) {
+                final CharSequence replacement = replacer.apply(words[ids[start]]);
+                if (null != replacement) {
+                    builder.append(text, cursor, start).append(replacement);
+                    cursor = ends[start];
+                }
+            }
+        }
+        return builder.append(text, cursor, length).toString();
+    }
+
+    /**
+     * 从当前状态按编码跳转，失配时沿失配链回退
+     *
+     * @param state 当前状态
+     * @param code  字符编码
+     * @return 下一状态
+     */
+    private int next(int state, int code) {
+        if (0 == code) {
+            return 0;
+        }
+        int next;
+        while ((next = transition(state, code)) < 0) {
+            if (0 == state) {
+                return 0;
+            }
+            state = fail[state];
+        }
+        return next;
+    }
+
+    /**
+     * 双数组中的直接跳转
+     *
+     * @param state 当前状态
+     * @param code  字符编码
+     * @return 子状态，不存在为-1
+     */
+    private int transition(int state, int code) {
+        final int t = base[state] + code;
+        return t < check.length && check[t] == state + 1 ? t : -1;
+    }
+
+    private int code(char c) {
+        c = normalize(c);
+        return c < codes.length ? codes[c] : 0;
+    }
+
+    private char normalize(char c) {
+        return ignoreCase ? Character.toLowerCase(c) : c;
+    }
+
+    /**
+     * 匹配回调
+     */
+    @FunctionalInterface
+    public interface HitHandler {
+
+        /**
+         * 匹配到词时回调
+         *
+         * @param start  起始位置(包含)
+         * @param end    结束位置(不包含)
+         * @param wordId 词ID，对应{@link #getWords()}的下标
+         * @return 是否继续扫描
+         */
+        boolean hit(int start, int end, int wordId);
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static final class Hit {
+
+        private final int start;
+        private final int end;
+        private final String word;
+
+        Hit(int start, int end, String word) {
+            this.start = start;
+            this.end = end;
+            this.word = word;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ") " + word;
+        }
+    }
+
+    /**
+     * 构建时使用的临时Trie节点
+     */
+    private static class Node {
+
+        private final TreeMap<Integer, Node> children = new TreeMap<>();
+        private int word = -1;
+        private int state;
+    }
+
+    /**
+     * 双数组构建器
+     */
+    private static class Builder {
+
+        private int[] base;
+        private int[] check;
+        /**
+         * 已使用的最大下标 + 1
+         */
+        private int size = 1;
+        /**
+         * 第一个可能空闲的位置
+         */
+        private int nextCheckPos = 1;
+
+        Builder(int capacity) {
+            this.base = new int[capacity];
+            this.check = new int[capacity];
+        }
+
+        /**
+         * 为节点的子节点寻找可用的base并占位
+         *
+         * @param node 节点，其state已确定
+         */
+        void place(Node node) {
+            if (node.children.isEmpty()) {
+                return;
+            }
+            final int first = node.children.firstKey();
+            final int last = node.children.lastKey();
+            int pos = Math.max(nextCheckPos, first + 1);
+            int begin;
+            outer:
+            for (; ; pos++) {
+                ensure(pos + last - first + 1);
+                if (0 != check[pos]) {
+                    continue;
+                }
+                begin = pos - first;
+                for (int code : node.children.keySet()) {
+                    if (0 != check[begin + code]) {
+                        continue outer;
+                    }
+                }
+                break;
+            }
+
+            base[node.state] = begin;
+            for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+                final int t = begin + entry.getKey();
+                check[t] = node.state + 1;
+                entry.getValue().state = t;
+                size = Math.max(size, t + 1);
+            }
+            while (nextCheckPos < check.length && 0 != check[nextCheckPos]) {
+                nextCheckPos++;
+            }
+        }
+
+        private void ensure(int capacity) {
+            if (capacity > check.length) {
+                final int newCapacity = Math.max(capacity, check.length << 1);
+                base = Arrays.copyOf(base, newCapacity);
+                check = Arrays.copyOf(check, newCapacity);
+            }
+        }
+    }
+
+}
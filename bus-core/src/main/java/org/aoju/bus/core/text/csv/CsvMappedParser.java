@@ -0,0 +1,528 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.text.csv;
+
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.thread.ExecutorBuilder;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+import org.aoju.bus.core.toolkit.StringKit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 基于内存映射的CSV并行解析器
+ * 顺序扫描文件确定记录边界(识别包装符内的换行及注释行)，按边界将文件切分为多个分块并行解析，
+ * 每个分块只记录字段的起止位置，回调时以{@link CsvView}引用映射内容
+ * 仅支持分隔符、包装符、注释符及换行符为单字节且不会出现在多字节字符中的编码，如UTF-8、GBK、ISO-8859-1等
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+final class CsvMappedParser {
+
+    /**
+     * 扫描记录边界时每次映射的字节数
+     */
+    private static final int SCAN_WINDOW = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CsvReadConfig config;
+    private final Charset charset;
+
+    private final byte fieldSeparator;
+    private final byte textDelimiter;
+    private final byte commentCharacter;
+
+    /**
+     * 标题Map
+     */
+    private Map<String, Integer> headerMap;
+    /**
+     * 第一行字段数,用于检查每行字段数是否一致
+     */
+    private int firstLineFieldCount = -1;
+
+    /**
+     * 构造
+     *
+     * @param channel 文件通道
+     * @param config  配置项
+     * @param charset 编码
+     * @throws IOException IO异常
+     */
+    CsvMappedParser(FileChannel channel, CsvReadConfig config, Charset charset) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.config = config;
+        this.charset = charset;
+        checkCharset(config, charset);
+        this.fieldSeparator = (byte) config.fieldSeparator;
+        this.textDelimiter = (byte) config.textDelimiter;
+        this.commentCharacter = (byte) config.commentCharacter;
+    }
+
+    /**
+     * 检查编码及分隔符是否可按字节解析
+     *
+     * @param config  配置项
+     * @param charset 编码
+     */
+    private static void checkCharset(CsvConfig config, Charset charset) {
+        final boolean utf8 = StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset);
+        final boolean singleByte = charset.newEncoder().maxBytesPerChar() == 1.0f;
+        for (char c : new char[]{config.fieldSeparator, config.textDelimiter, config.commentCharacter, Symbol.C_CR, Symbol.C_LF}) {
+            final byte[] bytes = String.valueOf(c).getBytes(charset);
+            // 多字节编码中,0x40以下的字节不会作为后续字节出现
+            if (bytes.length != 1 || bytes[0] != c || (false == utf8 && false == singleByte && c >= 0x40)) {
+                throw new InstrumentException(StringKit.format("Charset [{}] with char [{}] is not supported by mapped reading", charset, c));
+            }
+        }
+    }
+
+    /**
+     * 解析并回调每一行
+     *
+     * @param handler 行处理器
+     */
+    void parse(CsvViewHandler handler) {
+        final Scanner scanner = new Scanner();
+        long position = readHead(scanner, handler);
+        if (position >= size) {
+            return;
+        }
+
+        final int parallelism = Math.max(1, config.parallelism);
+        // 分块小于1字节时扫描位置不会前进
+        final int chunkSize = Math.max(1, config.chunkSize);
+        final boolean ordered = config.ordered;
+        final CsvView orderedView = ordered ? new CsvView(headerMap, config, charset) : null;
+        if (parallelism == 1) {
+            // 单线程时直接在当前线程中逐块解析
+            CsvView view = null == orderedView ? new CsvView(headerMap, config, charset) : orderedView;
+            long end;
+            while (position < size) {
+                end = scanner.next(position, chunkSize);
+                final Chunk chunk = new Chunk(position, end, scanner.chunkLineNumber);
+                chunk.tokenize();
+                chunk.deliver(view, handler);
+                position = end;
+            }
+            return;
+        }
+
+        final ExecutorService executor = ExecutorBuilder.create()
+                .setCorePoolSize(parallelism)
+                .setMaxPoolSize(parallelism)
+                .setThreadFactory(new NamedThreadFactory("csv-mapped-", true))
+                .build();
+        // 限制同时解析的分块数,避免有序回调较慢时占用过多内存
+        final int window = parallelism * 2;
+        final Deque<Future<Chunk>> pending = new ArrayDeque<>(window);
+        try {
+            long end;
+            while (position < size) {
+                end = scanner.next(position, chunkSize);
+                final Chunk chunk = new Chunk(position, end, scanner.chunkLineNumber);
+                pending.add(executor.submit(() -> {
+                    chunk.tokenize();
+                    if (false == ordered) {
+                        chunk.deliver(new CsvView(headerMap, config, charset), handler);
+                    }
+                    return chunk;
+                }));
+                if (pending.size() >= window) {
+                    complete(pending.poll(), orderedView, handler);
+                }
+                position = end;
+            }
+            while (false == pending.isEmpty()) {
+                complete(pending.poll(), orderedView, handler);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 在当前线程中读取开头的记录，直到获得标题行或第一个数据行
+     *
+     * @param scanner 边界扫描器
+     * @param handler 行处理器
+     * @return 后续数据的起始位置
+     */
+    private long readHead(Scanner scanner, CsvViewHandler handler) {
+        long position = 0;
+        long end;
+        while (position < size) {
+            end = scanner.next(position, 1);
+            final Chunk chunk = new Chunk(position, end, scanner.chunkLineNumber);
+            chunk.tokenize();
+            position = end;
+            if (chunk.rowCount == 0) {
+                // 空行或注释行
+                continue;
+            }
+            firstLineFieldCount = chunk.rowFieldCount(0);
+            if (config.containsHeader) {
+                initHeader(chunk);
+            } else {
+                chunk.deliver(new CsvView(null, config, charset), handler);
+            }
+            break;
+        }
+        return position;
+    }
+
+    /**
+     * 将首行做为标题行
+     *
+     * @param chunk 包含标题行的分块
+     */
+    private void initHeader(Chunk chunk) {
+        final CsvView view = new CsvView(null, config, charset);
+        chunk.reset(view, 0);
+        final Map<String, Integer> localHeaderMap = new LinkedHashMap<>(view.getFieldCount());
+        String field;
+        for (int i = 0; i < view.getFieldCount(); i++) {
+            field = view.getString(i);
+            if (StringKit.isNotEmpty(field) && false == localHeaderMap.containsKey(field)) {
+                localHeaderMap.put(field, i);
+            }
+        }
+        this.headerMap = Collections.unmodifiableMap(localHeaderMap);
+    }
+
+    /**
+     * 等待分块解析完成，有序模式下在当前线程中回调
+     *
+     * @param future  分块任务
+     * @param view    有序模式下复用的视图,无序模式为null
+     * @param handler 行处理器
+     */
+    private void complete(Future<Chunk> future, CsvView view, CsvViewHandler handler) {
+        final Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstrumentException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new InstrumentException(cause);
+        }
+        if (null != view) {
+            chunk.deliver(view, handler);
+        }
+    }
+
+    /**
+     * 映射文件区间
+     *
+     * @param position 起始位置
+     * @param length   长度
+     * @return 映射的缓冲区
+     */
+    private MappedByteBuffer map(long position, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
+    /**
+     * 记录边界扫描器，维护跨窗口的包装符、注释及换行状态
+     */
+    private class Scanner {
+
+        /**
+         * 已扫描的换行数
+         */
+        long lines;
+        /**
+         * 最近一次返回的分块的起始行号
+         */
+        long chunkLineNumber;
+
+        private boolean lineStart = true;
+        private boolean inQuotes;
+        private boolean inComment;
+        private boolean preCR;
+
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        /**
+         * 从指定位置开始扫描，返回不小于最小长度的第一个记录边界
+         *
+         * @param from    起始位置，必须为记录边界
+         * @param minSize 分块最小字节数
+         * @return 分块结束位置
+         */
+        long next(long from, long minSize) {
+            chunkLineNumber = lines + 1;
+            long p = from;
+            byte b;
+            while (p < size) {
+                if (p - from > Integer.MAX_VALUE - SCAN_WINDOW) {
+                    throw new InstrumentException(StringKit.format("Record at line {} is too large", chunkLineNumber));
+                }
+                if (null == window || p < windowStart || p >= windowStart + window.limit()) {
+                    windowStart = p;
+                    window = map(p, Math.min(SCAN_WINDOW, size - p));
+                }
+                final MappedByteBuffer window = this.window;
+                final int limit = window.limit();
+                for (int i = (int) (p - windowStart); i < limit; i++, p++) {
+                    b = window.get(i);
+                    if (preCR) {
+                        preCR = false;
+                        if (b == Symbol.C_LF) {
+                            // \r\n 作为一个换行
+                            continue;
+                        }
+                    }
+                    if (lineStart && p - from >= minSize) {
+                        return p;
+                    }
+                    if (inComment) {
+                        if (b == Symbol.C_CR || b == Symbol.C_LF) {
+                            inComment = false;
+                            lineStart = true;
+                            preCR = b == Symbol.C_CR;
+                            lines++;
+                        }
+                    } else if (inQuotes) {
+                        if (b == textDelimiter) {
+                            inQuotes = false;
+                        } else if (b == Symbol.C_CR || b == Symbol.C_LF) {
+                            preCR = b == Symbol.C_CR;
+                            lines++;
+                        }
+                    } else if (lineStart && b == commentCharacter) {
+                        inComment = true;
+                        lineStart = false;
+                    } else if (b == Symbol.C_CR || b == Symbol.C_LF) {
+                        lineStart = true;
+                        preCR = b == Symbol.C_CR;
+                        lines++;
+                    } else {
+                        lineStart = false;
+                        if (b == textDelimiter) {
+                            inQuotes = true;
+                        }
+                    }
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * 文件分块，解析后只保存字段在分块内的起止位置
+     */
+    private class Chunk {
+
+        private final long lineNumber;
+        private final ByteBuffer buffer;
+
+        /**
+         * 字段起止位置，每两个值为一个字段
+         */
+        private int[] bounds = new int[1024];
+        private int fieldCount;
+        /**
+         * 每行第一个字段的序号
+         */
+        private int[] rowStarts = new int[128];
+        /**
+         * 每行相对分块起始行的行号偏移
+         */
+        private int[] rowLines = new int[128];
+        private int rowCount;
+
+        Chunk(long position, long end, long lineNumber) {
+            this.lineNumber = lineNumber;
+            this.buffer = map(position, end - position);
+        }
+
+        /**
+         * 解析分块内的所有记录
+         */
+        void tokenize() {
+            final ByteBuffer buffer = this.buffer;
+            final int len = buffer.limit();
+            final byte fieldSeparator = CsvMappedParser.this.fieldSeparator;
+            final byte textDelimiter = CsvMappedParser.this.textDelimiter;
+            int p = 0;
+            int line = 0;
+            int rowLine;
+            int fieldStart;
+            int rowStart;
+            boolean inQuotes;
+            boolean ended;
+            byte b;
+            while (p < len) {
+                rowLine = line;
+                if (buffer.get(p) == commentCharacter) {
+                    // 注释行，跳过直到换行
+                    while (p < len) {
+                        b = buffer.get(p++);
+                        if (b == Symbol.C_CR || b == Symbol.C_LF) {
+                            if (b == Symbol.C_CR && p < len && buffer.get(p) == Symbol.C_LF) {
+                                p++;
+                            }
+                            line++;
+                            break;
+                        }
+                    }
+                    continue;
+                }
+
+                rowStart = fieldCount;
+                fieldStart = p;
+                inQuotes = false;
+                ended = false;
+                while (p < len) {
+                    b = buffer.get(p);
+                    if (inQuotes) {
+                        if (b == textDelimiter) {
+                            inQuotes = false;
+                        } else if (b == Symbol.C_CR || b == Symbol.C_LF) {
+                            if (b == Symbol.C_CR && p + 1 < len && buffer.get(p + 1) == Symbol.C_LF) {
+                                p++;
+                            }
+                            line++;
+                        }
+                        p++;
+                    } else if (b == fieldSeparator) {
+                        addField(fieldStart, p);
+                        fieldStart = ++p;
+                    } else if (b == textDelimiter) {
+                        inQuotes = true;
+                        p++;
+                    } else if (b == Symbol.C_CR || b == Symbol.C_LF) {
+                        addField(fieldStart, p);
+                        p++;
+                        if (b == Symbol.C_CR && p < len && buffer.get(p) == Symbol.C_LF) {
+                            p++;
+                        }
+                        line++;
+                        ended = true;
+                        break;
+                    } else {
+                        p++;
+                    }
+                }
+                if (false == ended) {
+                    // 文件末尾无换行，剩余部分作为一个字段
+                    addField(fieldStart, p);
+                }
+                endRow(rowStart, rowLine);
+            }
+        }
+
+        private void addField(int start, int end) {
+            final int index = fieldCount << 1;
+            if (index + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length << 1);
+            }
+            bounds[index] = start;
+            bounds[index + 1] = end;
+            fieldCount++;
+        }
+
+        private void endRow(int rowStart, int rowLine) {
+            final int count = fieldCount - rowStart;
+            // 跳过空行
+            if (config.skipEmptyRows && count == 1 && isEmptyField(rowStart)) {
+                fieldCount = rowStart;
+                return;
+            }
+            // 检查每行的字段数是否一致
+            if (config.errorOnDifferentFieldCount && firstLineFieldCount >= 0 && count != firstLineFieldCount) {
+                throw new InstrumentException(String.format("Line %d has %d fields, but first line has %d fields",
+                        lineNumber + rowLine, count, firstLineFieldCount));
+            }
+            if (rowCount == rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, rowCount << 1);
+                rowLines = Arrays.copyOf(rowLines, rowCount << 1);
+            }
+            rowStarts[rowCount] = rowStart;
+            rowLines[rowCount] = rowLine;
+            rowCount++;
+        }
+
+        private boolean isEmptyField(int field) {
+            final int start = bounds[field << 1];
+            final int length = bounds[(field << 1) + 1] - start;
+            return length == 0 || (length == 2 && buffer.get(start) == textDelimiter && buffer.get(start + 1) == textDelimiter);
+        }
+
+        int rowFieldCount(int row) {
+            return (row + 1 < rowCount ? rowStarts[row + 1] : fieldCount) - rowStarts[row];
+        }
+
+        void reset(CsvView view, int row) {
+            final int from = rowStarts[row];
+            view.reset(buffer, bounds, from, from + rowFieldCount(row), lineNumber + rowLines[row]);
+        }
+
+        /**
+         * 依次回调分块内的每一行
+         *
+         * @param view    复用的视图
+         * @param handler 行处理器
+         */
+        void deliver(CsvView view, CsvViewHandler handler) {
+            for (int row = 0; row < rowCount; row++) {
+                reset(view, row);
+                handler.handle(view);
+            }
+        }
+    }
+
+}
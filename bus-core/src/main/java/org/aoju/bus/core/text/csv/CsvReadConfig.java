@@ -25,6 +25,8 @@
  ********************************************************************************/
 package org.aoju.bus.core.text.csv;
 
+import org.aoju.bus.core.lang.Assert;
+
 import java.io.Serializable;
 
 /**
@@ -50,6 +52,18 @@ public class CsvReadConfig extends CsvConfig implements Serializable {
      * 每行字段个数不同时是否抛出异常,默认false
      */
     protected boolean errorOnDifferentFieldCount;
+    /**
+     * 内存映射读取时的并行线程数,默认为CPU核数
+     */
+    protected int parallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * 内存映射读取时是否按文件顺序回调,默认true
+     */
+    protected boolean ordered = true;
+    /**
+     * 内存映射读取时每个分块的最小字节数,默认8MB
+     */
+    protected int chunkSize = 8 * 1024 * 1024;
 
     /**
      * 默认配置
@@ -87,4 +101,37 @@ public class CsvReadConfig extends CsvConfig implements Serializable {
         this.errorOnDifferentFieldCount = errorOnDifferentFieldCount;
     }
 
+    /**
+     * 设置内存映射读取时的并行线程数,默认为CPU核数
+     *
+     * @param parallelism 并行线程数,1表示在当前线程中解析
+     * @throws IllegalArgumentException 并行线程数小于1
+     */
+    public void setParallelism(int parallelism) {
+        Assert.isTrue(parallelism > 0, "Parallelism must be greater than 0, but was {}", parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 设置内存映射读取时是否按文件顺序回调,默认true
+     * 为false时回调在解析线程中并发执行,处理器需保证线程安全
+     *
+     * @param ordered 是否按文件顺序回调
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * 设置内存映射读取时每个分块的最小字节数,默认8MB
+     * 分块总是在记录边界处切分,因此实际大小可能略大于此值
+     *
+     * @param chunkSize 分块字节数
+     * @throws IllegalArgumentException 分块字节数小于1
+     */
+    public void setChunkSize(int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be greater than 0, but was {}", chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
 }
@@ -36,7 +36,9 @@ import org.aoju.bus.core.toolkit.StringKit;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -165,6 +167,39 @@ public final class CsvReader {
         }
     }
 
+    /**
+     * 以内存映射方式读取CSV文件,默认UTF-8编码
+     * 文件按记录边界切分为多个分块并行解析,每行以可复用的{@link CsvView}回调
+     * 并行数、分块大小及是否按顺序回调见{@link CsvReadConfig}
+     *
+     * @param path    CSV文件
+     * @param handler 行视图处理器
+     * @throws InstrumentException IO异常
+     */
+    public void readMapped(Path path, CsvViewHandler handler) throws InstrumentException {
+        readMapped(path, Charset.UTF_8, handler);
+    }
+
+    /**
+     * 以内存映射方式读取CSV文件
+     * 文件按记录边界切分为多个分块并行解析,每行以可复用的{@link CsvView}回调
+     * 并行数、分块大小及是否按顺序回调见{@link CsvReadConfig}
+     *
+     * @param path    CSV文件
+     * @param charset 文件编码,须为UTF-8、GBK、ISO-8859-1等兼容ASCII的编码
+     * @param handler 行视图处理器
+     * @throws InstrumentException IO异常
+     */
+    public void readMapped(Path path, java.nio.charset.Charset charset, CsvViewHandler handler) throws InstrumentException {
+        Assert.notNull(path, "path must not be null");
+        Assert.notNull(handler, "handler must not be null");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            new CsvMappedParser(channel, config, charset).parse(handler);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
     /**
      * 从Reader中读取CSV数据,读取后关闭Reader
      *
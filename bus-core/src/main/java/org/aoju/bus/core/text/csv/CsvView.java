@@ -0,0 +1,455 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.text.csv;
+
+import org.aoju.bus.core.toolkit.BooleanKit;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV行视图，字段直接引用内存映射的文件内容，不为每行创建字符串及列表
+ * 视图及其字段在回调结束后会被复用，如需保留数据请调用{@link #toRow()}
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public final class CsvView {
+
+    private final Map<String, Integer> headerMap;
+    private final CsvConfig config;
+    private final CharsetDecoder decoder;
+
+    private ByteBuffer buffer;
+    private int[] bounds;
+    private int from;
+    private int size;
+    private long originalLineNumber;
+    private Field[] fields = new Field[16];
+
+    /**
+     * 构造
+     *
+     * @param headerMap 标题Map
+     * @param config    配置项
+     * @param charset   编码
+     */
+    CsvView(Map<String, Integer> headerMap, CsvConfig config, Charset charset) {
+        this.headerMap = headerMap;
+        this.config = config;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * 指向新的一行
+     *
+     * @param buffer             数据
+     * @param bounds             字段起止位置,每两个值为一个字段
+     * @param from               本行第一个字段在bounds中的序号
+     * @param to                 本行最后一个字段之后的序号
+     * @param originalLineNumber 行号
+     */
+    void reset(ByteBuffer buffer, int[] bounds, int from, int to, long originalLineNumber) {
+        this.buffer = buffer;
+        this.bounds = bounds;
+        this.from = from;
+        this.size = to - from;
+        this.originalLineNumber = originalLineNumber;
+        if (this.size > fields.length) {
+            Field[] newFields = new Field[Math.max(this.size, fields.length << 1)];
+            System.arraycopy(fields, 0, newFields, 0, fields.length);
+            fields = newFields;
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (null == fields[i]) {
+                fields[i] = new Field(this);
+            }
+            fields[i].reset(bounds[(from + i) << 1], bounds[((from + i) << 1) + 1]);
+        }
+    }
+
+    /**
+     * 获取原始行号,多行情况下为首行行号
+     *
+     * @return 行号
+     */
+    public long getOriginalLineNumber() {
+        return originalLineNumber;
+    }
+
+    /**
+     * 获取字段个数
+     *
+     * @return 字段个数
+     */
+    public int getFieldCount() {
+        return size;
+    }
+
+    /**
+     * 获取标题Map
+     *
+     * @return 标题Map, 无标题时为null
+     */
+    public Map<String, Integer> getHeaderMap() {
+        return headerMap;
+    }
+
+    /**
+     * 获取字段视图
+     *
+     * @param index 字段序号
+     * @return 字段视图, null表示无此字段
+     */
+    public Field get(int index) {
+        return index < 0 || index >= size ? null : fields[index];
+    }
+
+    /**
+     * 获取标题对应的字段视图
+     *
+     * @param name 标题名
+     * @return 字段视图, null表示无此字段
+     * @throws IllegalStateException CSV文件无标题行抛出此异常
+     */
+    public Field getByName(String name) {
+        if (headerMap == null) {
+            throw new IllegalStateException("No header available");
+        }
+        final Integer col = headerMap.get(name);
+        return null == col ? null : get(col);
+    }
+
+    /**
+     * 获取字段字符串值
+     *
+     * @param index 字段序号
+     * @return 字段值, null表示无此字段
+     */
+    public String getString(int index) {
+        final Field field = get(index);
+        return null == field ? null : field.toString();
+    }
+
+    /**
+     * 获取字段int值
+     *
+     * @param index 字段序号
+     * @return 字段值
+     * @throws NumberFormatException 字段不存在或格式错误
+     */
+    public int getInt(int index) {
+        return require(index).toInt();
+    }
+
+    /**
+     * 获取字段long值
+     *
+     * @param index 字段序号
+     * @return 字段值
+     * @throws NumberFormatException 字段不存在或格式错误
+     */
+    public long getLong(int index) {
+        return require(index).toLong();
+    }
+
+    /**
+     * 获取字段double值
+     *
+     * @param index 字段序号
+     * @return 字段值
+     * @throws NumberFormatException 字段不存在或格式错误
+     */
+    public double getDouble(int index) {
+        return require(index).toDouble();
+    }
+
+    /**
+     * 获取字段boolean值
+     *
+     * @param index 字段序号
+     * @return 字段值, 字段不存在返回false
+     */
+    public boolean getBoolean(int index) {
+        final Field field = get(index);
+        return null != field && field.toBoolean();
+    }
+
+    /**
+     * 复制为独立的{@link CsvRow}
+     *
+     * @return {@link CsvRow}
+     */
+    public CsvRow toRow() {
+        final List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(fields[i].toString());
+        }
+        return new CsvRow(originalLineNumber, headerMap, values);
+    }
+
+    @Override
+    public String toString() {
+        return toRow().toString();
+    }
+
+    private Field require(int index) {
+        final Field field = get(index);
+        if (null == field) {
+            throw new NumberFormatException("No field at index " + index);
+        }
+        return field;
+    }
+
+    /**
+     * 字段视图，引用文件中的字节区间，按需解码及去除包装符
+     * 纯ASCII且不含包装符的字段直接读取字节，不产生额外拷贝
+     */
+    public static final class Field implements CharSequence {
+
+        private final CsvView view;
+        private int start;
+        private int end;
+        /**
+         * 是否为纯ASCII字段
+         */
+        private boolean ascii;
+        /**
+         * 是否已检查字段内容
+         */
+        private boolean checked;
+        private char[] chars = new char[0];
+        private int length;
+
+        Field(CsvView view) {
+            this.view = view;
+        }
+
+        void reset(int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.checked = false;
+        }
+
+        @Override
+        public int length() {
+            prepare();
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            prepare();
+            if (index < 0 || index >= length) {
+                throw new StringIndexOutOfBoundsException(index);
+            }
+            return ascii ? (char) view.buffer.get(start + index) : chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        /**
+         * 是否为空字段
+         *
+         * @return 是否为空
+         */
+        public boolean isEmpty() {
+            return 0 == length();
+        }
+
+        /**
+         * 转换为int，直接解析字节，不创建字符串
+         *
+         * @return int值
+         * @throws NumberFormatException 格式错误
+         */
+        public int toInt() {
+            final long value = toLong();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Value out of int range: " + this);
+            }
+            return (int) value;
+        }
+
+        /**
+         * 转换为long，直接解析字节，不创建字符串
+         *
+         * @return long值
+         * @throws NumberFormatException 格式错误
+         */
+        public long toLong() {
+            prepare();
+            int i = 0;
+            int len = length;
+            while (i < len && Character.isWhitespace(charAt(i))) {
+                i++;
+            }
+            while (len > i && Character.isWhitespace(charAt(len - 1))) {
+                len--;
+            }
+            if (i == len) {
+                throw new NumberFormatException("Empty field");
+            }
+            boolean negative = false;
+            final char first = charAt(i);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                if (++i == len) {
+                    throw new NumberFormatException("For input string: \"" + this + "\"");
+                }
+            }
+            long result = 0;
+            int digit;
+            for (; i < len; i++) {
+                digit = charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + this + "\"");
+                }
+                try {
+                    result = Math.addExact(Math.multiplyExact(result, 10), negative ? -digit : digit);
+                } catch (ArithmeticException e) {
+                    throw new NumberFormatException("Value out of long range: " + this);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 转换为double
+         *
+         * @return double值
+         * @throws NumberFormatException 格式错误
+         */
+        public double toDouble() {
+            return Double.parseDouble(toString().trim());
+        }
+
+        /**
+         * 转换为boolean
+         *
+         * @return boolean值
+         * @see BooleanKit#toBoolean(String)
+         */
+        public boolean toBoolean() {
+            return BooleanKit.toBoolean(toString());
+        }
+
+        @Override
+        public String toString() {
+            prepare();
+            if (ascii) {
+                final char[] value = new char[length];
+                for (int i = 0; i < length; i++) {
+                    value[i] = (char) view.buffer.get(start + i);
+                }
+                return new String(value);
+            }
+            return new String(chars, 0, length);
+        }
+
+        /**
+         * 检查是否可直接读取字节，否则解码并去除包装符
+         */
+        private void prepare() {
+            if (checked) {
+                return;
+            }
+            checked = true;
+            final ByteBuffer buffer = view.buffer;
+            final byte textDelimiter = (byte) view.config.textDelimiter;
+            ascii = true;
+            byte b;
+            for (int i = start; i < end; i++) {
+                b = buffer.get(i);
+                if (b < 0 || b == textDelimiter) {
+                    ascii = false;
+                    break;
+                }
+            }
+            if (ascii) {
+                length = end - start;
+            } else {
+                decode();
+            }
+        }
+
+        private void decode() {
+            final ByteBuffer source = view.buffer.duplicate();
+            source.limit(end).position(start);
+            final CharsetDecoder decoder = view.decoder;
+            final int max = (int) Math.ceil((end - start) * (double) decoder.maxCharsPerByte()) + 1;
+            if (chars.length < max) {
+                chars = new char[max];
+            }
+            final CharBuffer target = CharBuffer.wrap(chars);
+            decoder.reset();
+            decoder.decode(source, target, true);
+            decoder.flush(target);
+            length = unescape(chars, target.position(), view.config.textDelimiter);
+        }
+
+        /**
+         * 去除包装符并将双写的包装符还原，与{@link CsvParser}处理一致
+         *
+         * @param chars         字符
+         * @param len           长度
+         * @param textDelimiter 包装符
+         * @return 处理后的长度
+         */
+        private static int unescape(char[] chars, int len, char textDelimiter) {
+            int offset = 0;
+            if (len >= 2 && chars[0] == textDelimiter && chars[len - 1] == textDelimiter) {
+                offset = 1;
+                len -= 1;
+            }
+            int j = 0;
+            for (int i = offset; i < len; i++) {
+                chars[j++] = chars[i];
+                if (chars[i] == textDelimiter && i + 1 < len && chars[i + 1] == textDelimiter) {
+                    i++;
+                }
+            }
+            if (j >= 2 && chars[0] == textDelimiter && chars[j - 1] == textDelimiter) {
+                System.arraycopy(chars, 1, chars, 0, j - 2);
+                j -= 2;
+            }
+            return j;
+        }
+    }
+
+}
@@ -25,6 +25,7 @@
  ********************************************************************************/
 package org.aoju.bus.core.text.csv;
 
+import org.aoju.bus.core.lang.Fields;
 import org.aoju.bus.core.lang.Symbol;
 
 import java.io.Serializable;
@@ -48,6 +49,10 @@ public class CsvWriteConfig extends CsvConfig implements Serializable {
      * 换行符
      */
     protected char[] lineDelimiter = {Symbol.C_CR, Symbol.C_LF};
+    /**
+     * 日期字段的格式,默认yyyy-MM-dd HH:mm:ss
+     */
+    protected String datePattern = Fields.NORM_DATETIME_PATTERN;
 
     /**
      * 默认配置
@@ -76,4 +81,13 @@ public class CsvWriteConfig extends CsvConfig implements Serializable {
         this.lineDelimiter = lineDelimiter;
     }
 
+    /**
+     * 设置日期字段的格式,默认yyyy-MM-dd HH:mm:ss
+     *
+     * @param datePattern 日期格式,参考{@link java.time.format.DateTimeFormatter}
+     */
+    public void setDatePattern(String datePattern) {
+        this.datePattern = datePattern;
+    }
+
 }
@@ -25,13 +25,23 @@
  ********************************************************************************/
 package org.aoju.bus.core.text.csv;
 
+import org.aoju.bus.core.beans.copier.CopyPlan;
+import org.aoju.bus.core.io.BufferSink;
+import org.aoju.bus.core.io.GzipSink;
 import org.aoju.bus.core.lang.Charset;
 import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.core.lang.exception.InstrumentException;
 import org.aoju.bus.core.toolkit.*;
 
 import java.io.*;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * CSV数据写出器
@@ -50,10 +60,26 @@ public final class CsvWriter implements Closeable, Flushable {
      * 写出配置
      */
     private final CsvWriteConfig config;
+    /**
+     * 字符缓冲,字段直接写入此缓冲后批量写出
+     */
+    private final char[] buffer = new char[IoKit.DEFAULT_BUFFER_SIZE];
+    /**
+     * 数值及日期格式化使用的复用缓冲
+     */
+    private final StringBuilder scratch = new StringBuilder(64);
+    /**
+     * 缓冲中已写入的字符数
+     */
+    private int position;
     /**
      * 是否处于新行开始
      */
     private boolean newline = true;
+    /**
+     * 日期格式化器
+     */
+    private DateTimeFormatter dateFormatter;
 
     /**
      * 构造,覆盖已有文件(如果存在),默认编码UTF-8
@@ -155,17 +181,48 @@ public final class CsvWriter implements Closeable, Flushable {
      * @param config 写出配置,null则使用默认配置
      */
     public CsvWriter(Writer writer, CsvWriteConfig config) {
-        this.writer = (writer instanceof BufferedWriter) ? writer : new BufferedWriter(writer);
+        // 内部已有字符缓冲,无需再包装为BufferedWriter
+        this.writer = writer;
         this.config = ObjectKit.defaultIfNull(config, CsvWriteConfig.defaultConfig());
     }
 
+    /**
+     * 创建以gzip压缩写出的CSV写出器,覆盖已有文件(如果存在)
+     *
+     * @param file    CSV文件,一般以.csv.gz结尾
+     * @param charset 编码
+     * @param config  写出配置,null则使用默认配置
+     * @return CsvWriter
+     * @throws InstrumentException IO异常
+     */
+    public static CsvWriter gzip(File file, java.nio.charset.Charset charset, CsvWriteConfig config) throws InstrumentException {
+        try {
+            return gzip(new FileOutputStream(FileKit.touch(file)), charset, config);
+        } catch (FileNotFoundException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
+    /**
+     * 创建以gzip压缩写出的CSV写出器,关闭写出器时关闭输出流
+     *
+     * @param out     输出流
+     * @param charset 编码
+     * @param config  写出配置,null则使用默认配置
+     * @return CsvWriter
+     */
+    public static CsvWriter gzip(OutputStream out, java.nio.charset.Charset charset, CsvWriteConfig config) {
+        final BufferSink sink = IoKit.buffer(new GzipSink(IoKit.sink(out)));
+        return new CsvWriter(new OutputStreamWriter(sink.outputStream(), charset), config);
+    }
+
     /**
      * 设置是否始终使用文本分隔符,文本包装符,默认false,按需添加
      *
      * @param alwaysDelimitText 是否始终使用文本分隔符,文本包装符,默认false,按需添加
      */
     public void setAlwaysDelimitText(boolean alwaysDelimitText) {
-        this.setAlwaysDelimitText(alwaysDelimitText);
+        this.config.setAlwaysDelimitText(alwaysDelimitText);
     }
 
     /**
@@ -174,7 +231,7 @@ public final class CsvWriter implements Closeable, Flushable {
      * @param lineDelimiter 换行符
      */
     public void setLineDelimiter(char[] lineDelimiter) {
-        this.setLineDelimiter(lineDelimiter);
+        this.config.setLineDelimiter(lineDelimiter);
     }
 
     /**
@@ -212,127 +269,131 @@ public final class CsvWriter implements Closeable, Flushable {
     }
 
     /**
-     * 写出一行
+     * 将Bean集合写出,首行为第一个Bean的属性名,属性通过缓存的访问器读取
      *
-     * @param fields 字段列表 ({@code null} 值会被做为空值追加)
+     * @param beans Bean集合
      * @return this
      * @throws InstrumentException IO异常
      */
-    public CsvWriter writeLine(String... fields) throws InstrumentException {
-        if (ArrayKit.isEmpty(fields)) {
-            return writeLine();
+    public CsvWriter writeBeans(Iterable<?> beans) throws InstrumentException {
+        if (null != beans) {
+            final Iterator<?> iterator = beans.iterator();
+            if (iterator.hasNext()) {
+                final Object first = iterator.next();
+                writeHeader(first.getClass());
+                writeBean(first);
+                while (iterator.hasNext()) {
+                    writeBean(iterator.next());
+                }
+            }
+            flush();
         }
-        appendLine(fields);
         return this;
     }
 
     /**
-     * 追加新行(换行)
+     * 写出Bean的属性名作为标题行
      *
+     * @param beanClass Bean类型
      * @return this
      * @throws InstrumentException IO异常
      */
-    public CsvWriter writeLine() throws InstrumentException {
-        try {
-            writer.write(config.lineDelimiter);
-        } catch (IOException e) {
-            throw new InstrumentException(e);
+    public CsvWriter writeHeader(Class<?> beanClass) throws InstrumentException {
+        for (CopyPlan.Reader reader : CopyPlan.readers(beanClass)) {
+            writeField(reader.getFieldName());
         }
-        newline = true;
-        return this;
+        return writeLine();
     }
 
     /**
-     * 写出一行注释，注释符号可自定义
+     * 将Bean的属性值写出为一行,属性通过缓存的访问器读取
      *
-     * @param comment 注释内容
+     * @param bean Bean
      * @return this
+     * @throws InstrumentException IO异常
      */
-    public CsvWriter writeComment(String comment) {
-        try {
-            writer.write(this.config.commentCharacter);
-            writer.write(comment);
-            writer.write(config.lineDelimiter);
-            newline = true;
-        } catch (IOException e) {
-            throw new InstrumentException(e);
+    public CsvWriter writeBean(Object bean) throws InstrumentException {
+        final List<CopyPlan.Reader> readers = CopyPlan.readers(bean.getClass());
+        for (CopyPlan.Reader reader : readers) {
+            writeValue(reader.read(bean));
         }
-        return this;
-    }
-
-    @Override
-    public void close() {
-        IoKit.close(this.writer);
+        return writeLine();
     }
 
-    @Override
-    public void flush() throws InstrumentException {
-        try {
-            writer.flush();
-        } catch (IOException e) {
-            throw new InstrumentException(e);
+    /**
+     * 写出一行
+     *
+     * @param fields 字段列表 ({@code null} 值会被做为空值追加)
+     * @return this
+     * @throws InstrumentException IO异常
+     */
+    public CsvWriter writeLine(String... fields) throws InstrumentException {
+        if (ArrayKit.isEmpty(fields)) {
+            return writeLine();
         }
+        appendLine(fields);
+        return this;
     }
 
     /**
-     * 追加一行,末尾会自动换行,但是追加前不会换行
+     * 追加新行(换行)
+     * 与{@link #writeField(CharSequence)}等方法配合使用时,用于结束当前行
      *
-     * @param fields 字段列表 ({@code null} 值会被做为空值追加)
+     * @return this
      * @throws InstrumentException IO异常
      */
-    private void appendLine(final String... fields) throws InstrumentException {
-        try {
-            doAppendLine(fields);
-        } catch (IOException e) {
-            throw new InstrumentException(e);
-        }
+    public CsvWriter writeLine() throws InstrumentException {
+        put(config.lineDelimiter);
+        newline = true;
+        return this;
     }
 
     /**
-     * 追加一行,末尾会自动换行,但是追加前不会换行
+     * 写出一行注释，注释符号可自定义
      *
-     * @param fields 字段列表 ({@code null} 值会被做为空值追加)
-     * @throws IOException IO异常
+     * @param comment 注释内容
+     * @return this
      */
-    private void doAppendLine(final String... fields) throws IOException {
-        if (null != fields) {
-            for (String field : fields) {
-                appendField(field);
-            }
-            writer.write(config.lineDelimiter);
-            newline = true;
-        }
+    public CsvWriter writeComment(String comment) {
+        put(this.config.commentCharacter);
+        put(comment, 0, comment.length());
+        put(config.lineDelimiter);
+        newline = true;
+        return this;
     }
 
     /**
-     * 在当前行追加字段值,自动添加字段分隔符,如果有必要,自动包装字段
+     * 在当前行追加字段值,自动添加字段分隔符,仅在需要时包装及转义字段
      *
      * @param value 字段值,{@code null} 会被做为空串写出
-     * @throws IOException IO异常
+     * @return this
+     * @throws InstrumentException IO异常
      */
-    private void appendField(final String value) throws IOException {
-        boolean alwaysDelimitText = config.alwaysDelimitText;
-        char textDelimiter = config.textDelimiter;
-        char fieldSeparator = config.fieldSeparator;
+    public CsvWriter writeField(CharSequence value) throws InstrumentException {
+        final boolean alwaysDelimitText = config.alwaysDelimitText;
+        final char textDelimiter = config.textDelimiter;
+        final char fieldSeparator = config.fieldSeparator;
 
         if (false == newline) {
-            writer.write(fieldSeparator);
+            put(fieldSeparator);
         } else {
             newline = false;
         }
 
         if (null == value) {
             if (alwaysDelimitText) {
-                writer.write(new char[]{textDelimiter, textDelimiter});
+                put(textDelimiter);
+                put(textDelimiter);
             }
-            return;
+            return this;
         }
 
-        final char[] valueChars = value.toCharArray();
+        final int length = value.length();
         boolean needsTextDelimiter = alwaysDelimitText;
         boolean containsTextDelimiter = false;
-
-        for (final char c : valueChars) {
+        char c;
+        for (int i = 0; i < length; i++) {
+            c = value.charAt(i);
             if (c == textDelimiter) {
                 // 字段值中存在包装符
                 containsTextDelimiter = needsTextDelimiter = true;
@@ -345,25 +406,231 @@ public final class CsvWriter implements Closeable, Flushable {
 
         // 包装符开始
         if (needsTextDelimiter) {
-            writer.write(textDelimiter);
+            put(textDelimiter);
         }
 
         // 正文
         if (containsTextDelimiter) {
-            for (final char c : valueChars) {
+            for (int i = 0; i < length; i++) {
+                c = value.charAt(i);
                 // 转义文本包装符
                 if (c == textDelimiter) {
-                    writer.write(textDelimiter);
+                    put(textDelimiter);
                 }
-                writer.write(c);
+                put(c);
             }
         } else {
-            writer.write(valueChars);
+            put(value, 0, length);
         }
 
         // 包装符结尾
         if (needsTextDelimiter) {
-            writer.write(textDelimiter);
+            put(textDelimiter);
+        }
+        return this;
+    }
+
+    /**
+     * 在当前行追加int字段值,直接格式化到缓冲
+     *
+     * @param value 字段值
+     * @return this
+     * @throws InstrumentException IO异常
+     */
+    public CsvWriter writeInt(int value) throws InstrumentException {
+        scratch.setLength(0);
+        return writeField(scratch.append(value));
+    }
+
+    /**
+     * 在当前行追加long字段值,直接格式化到缓冲
+     *
+     * @param value 字段值
+     * @return this
+     * @throws InstrumentException IO异常
+     */
+    public CsvWriter writeLong(long value) throws InstrumentException {
+        scratch.setLength(0);
+        return writeField(scratch.append(value));
+    }
+
+    /**
+     * 在当前行追加double字段值,直接格式化到缓冲,格式与{@link Double#toString(double)}一致
+     *
+     * @param value 字段值
+     * @return this
+     * @throws InstrumentException IO异常
+     */
+    public CsvWriter writeDouble(double value) throws InstrumentException {
+        scratch.setLength(0);
+        return writeField(scratch.append(value));
+    }
+
+    /**
+     * 在当前行追加日期字段值,使用{@link CsvWriteConfig#setDatePattern(String)}指定的格式
+     *
+     * @param value 字段值,{@code null} 会被做为空串写出
+     * @return this
+     * @throws InstrumentException IO异常
+     */
+    public CsvWriter writeDate(Date value) throws InstrumentException {
+        if (null == value) {
+            return writeField(null);
+        }
+        return writeDate(value.toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * 在当前行追加日期字段值,使用{@link CsvWriteConfig#setDatePattern(String)}指定的格式
+     * 日期对象不包含格式所需的字段时(如{@link java.time.LocalDate}),使用其toString()结果
+     *
+     * @param value 字段值,{@code null} 会被做为空串写出
+     * @return this
+     * @throws InstrumentException IO异常
+     */
+    public CsvWriter writeDate(TemporalAccessor value) throws InstrumentException {
+        if (null == value) {
+            return writeField(null);
+        }
+        if (null == dateFormatter) {
+            dateFormatter = DateTimeFormatter.ofPattern(config.datePattern);
+        }
+        scratch.setLength(0);
+        try {
+            dateFormatter.formatTo(value, scratch);
+        } catch (DateTimeException e) {
+            scratch.setLength(0);
+            scratch.append(value);
+        }
+        return writeField(scratch);
+    }
+
+    /**
+     * 在当前行追加任意类型的字段值,数值及日期类型使用对应的格式化方法
+     *
+     * @param value 字段值,{@code null} 会被做为空串写出
+     * @return this
+     * @throws InstrumentException IO异常
+     */
+    public CsvWriter writeValue(Object value) throws InstrumentException {
+        if (null == value || value instanceof CharSequence) {
+            return writeField((CharSequence) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return writeLong(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            return writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            scratch.setLength(0);
+            return writeField(scratch.append(((Float) value).floatValue()));
+        } else if (value instanceof Date) {
+            return writeDate((Date) value);
+        } else if (value instanceof TemporalAccessor) {
+            return writeDate((TemporalAccessor) value);
+        }
+        scratch.setLength(0);
+        return writeField(scratch.append(value));
+    }
+
+    @Override
+    public void close() {
+        try {
+            flushBuffer();
+        } catch (InstrumentException e) {
+            IoKit.close(this.writer);
+            throw e;
+        }
+        IoKit.close(this.writer);
+    }
+
+    @Override
+    public void flush() throws InstrumentException {
+        flushBuffer();
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
+    /**
+     * 追加一行,末尾会自动换行,但是追加前不会换行
+     *
+     * @param fields 字段列表 ({@code null} 值会被做为空值追加)
+     * @throws InstrumentException IO异常
+     */
+    private void appendLine(final String... fields) throws InstrumentException {
+        if (null != fields) {
+            for (String field : fields) {
+                writeField(field);
+            }
+            writeLine();
+        }
+    }
+
+    /**
+     * 写入单个字符到缓冲
+     *
+     * @param c 字符
+     */
+    private void put(char c) {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = c;
+    }
+
+    /**
+     * 写入字符数组到缓冲
+     *
+     * @param chars 字符数组
+     */
+    private void put(char[] chars) {
+        for (char c : chars) {
+            put(c);
+        }
+    }
+
+    /**
+     * 写入字符序列的指定区间到缓冲,String及StringBuilder批量拷贝
+     *
+     * @param value 字符序列
+     * @param start 起始位置
+     * @param end   结束位置
+     */
+    private void put(CharSequence value, int start, int end) {
+        int length;
+        while (start < end) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            length = Math.min(end - start, buffer.length - position);
+            if (value instanceof String) {
+                ((String) value).getChars(start, start + length, buffer, position);
+            } else if (value instanceof StringBuilder) {
+                ((StringBuilder) value).getChars(start, start + length, buffer, position);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    buffer[position + i] = value.charAt(start + i);
+                }
+            }
+            position += length;
+            start += length;
+        }
+    }
+
+    /**
+     * 将缓冲中的字符写出到Writer
+     *
+     * @throws InstrumentException IO异常
+     */
+    private void flushBuffer() throws InstrumentException {
+        if (position > 0) {
+            try {
+                writer.write(buffer, 0, position);
+            } catch (IOException e) {
+                throw new InstrumentException(e);
+            }
+            position = 0;
         }
     }
 
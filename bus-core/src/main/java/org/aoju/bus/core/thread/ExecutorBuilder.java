@@ -78,6 +78,14 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
      * 线程执行超时后是否回收线程
      */
     private Boolean allowCoreThreadTimeOut;
+    /**
+     * 线程池名称，设置名称或监听器时构建{@link ManagedExecutor}
+     */
+    private String name;
+    /**
+     * 线程池监听器
+     */
+    private ExecutorListener listener;
 
     /**
      * 创建ExecutorBuilder，开始构建
@@ -108,14 +116,28 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
         final ThreadFactory threadFactory = (null != builder.threadFactory) ? builder.threadFactory : Executors.defaultThreadFactory();
         RejectedExecutionHandler handler = ObjectKit.defaultIfNull(builder.handler, new ThreadPoolExecutor.AbortPolicy());
 
-        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(//
-                corePoolSize,
-                maxPoolSize,
-                keepAliveTime, TimeUnit.NANOSECONDS,
-                workQueue,
-                threadFactory,
-                handler
-        );
+        final ThreadPoolExecutor threadPoolExecutor;
+        if (null != builder.name || null != builder.listener) {
+            threadPoolExecutor = new ManagedExecutor(
+                    ObjectKit.defaultIfNull(builder.name, "executor"),
+                    corePoolSize,
+                    maxPoolSize,
+                    keepAliveTime,
+                    workQueue,
+                    threadFactory,
+                    handler,
+                    builder.listener
+            );
+        } else {
+            threadPoolExecutor = new ThreadPoolExecutor(//
+                    corePoolSize,
+                    maxPoolSize,
+                    keepAliveTime, TimeUnit.NANOSECONDS,
+                    workQueue,
+                    threadFactory,
+                    handler
+            );
+        }
         if (null != builder.allowCoreThreadTimeOut) {
             threadPoolExecutor.allowCoreThreadTimeOut(builder.allowCoreThreadTimeOut);
         }
@@ -254,6 +276,28 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
         return this;
     }
 
+    /**
+     * 设置线程池名称，构建带运行指标的{@link ManagedExecutor}
+     *
+     * @param name 线程池名称
+     * @return this
+     */
+    public ExecutorBuilder setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * 设置线程池监听器，构建带运行指标的{@link ManagedExecutor}
+     *
+     * @param listener 监听器
+     * @return this
+     */
+    public ExecutorBuilder setListener(ExecutorListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
     /**
      * 构建ThreadPoolExecutor
      */
@@ -0,0 +1,71 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.thread;
+
+/**
+ * 线程池监听器，用于采集队列深度、活跃线程、拒绝次数及等待/执行耗时等指标
+ * 回调在提交线程或工作线程中同步执行，实现应尽量轻量且线程安全
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public interface ExecutorListener {
+
+    /**
+     * 任务开始执行前回调
+     *
+     * @param executor  线程池
+     * @param task      任务
+     * @param waitNanos 任务在队列中等待的纳秒数
+     */
+    default void beforeExecute(ManagedExecutor executor, Runnable task, long waitNanos) {
+
+    }
+
+    /**
+     * 任务执行结束后回调
+     *
+     * @param executor     线程池
+     * @param task         任务
+     * @param error        执行中抛出的异常，无异常为null
+     * @param executeNanos 任务执行的纳秒数
+     */
+    default void afterExecute(ManagedExecutor executor, Runnable task, Throwable error, long executeNanos) {
+
+    }
+
+    /**
+     * 任务被拒绝时回调，在拒绝策略执行前调用
+     *
+     * @param executor 线程池
+     * @param task     任务
+     */
+    default void rejected(ManagedExecutor executor, Runnable task) {
+
+    }
+
+}
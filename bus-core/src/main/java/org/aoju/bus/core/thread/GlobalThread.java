@@ -26,13 +26,29 @@
 package org.aoju.bus.core.thread;
 
 import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.toolkit.StringKit;
 
+import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 全局公共线程池
+ * <pre>
+ *     1. 通用线程池: 直接移交任务, 空闲线程不足时创建新线程, 线程数达到上限时由提交线程执行
+ *     2. 计算线程池: {@link ForkJoinPool}工作窃取模式, 适用于CPU密集型任务
+ *     3. IO线程池: 弹性线程池, 适用于阻塞IO任务; 开启 bus.thread.virtual 且运行于JDK21+时使用虚拟线程
+ *     4. 命名线程池: 按名称创建并复用的有界线程池
+ * </pre>
+ * 线程数可通过系统属性 bus.thread.core、bus.thread.max、bus.thread.io.max 配置
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -40,7 +56,17 @@ import java.util.concurrent.Future;
  */
 public class GlobalThread {
 
-    private static ExecutorService executor;
+    private static final int CPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 命名线程池
+     */
+    private static final Map<String, ManagedExecutor> POOLS = new ConcurrentHashMap<>();
+
+    private static ManagedExecutor executor;
+    private static ForkJoinPool cpuExecutor;
+    private static ExecutorService ioExecutor;
+    private static volatile ExecutorListener listener;
 
     static {
         init();
@@ -53,10 +79,40 @@ public class GlobalThread {
      * 初始化全局线程池
      */
     synchronized public static void init() {
-        if (null != executor) {
-            executor.shutdownNow();
+        shutdown(true);
+        final int core = Integer.getInteger("bus.thread.core", Math.max(4, CPU * 2));
+        executor = (ManagedExecutor) ExecutorBuilder.create()
+                .setName("global")
+                .setListener(listener)
+                .setCorePoolSize(core)
+                // 长期运行或阻塞的任务也会提交到此线程池, 使用同步队列保证任务不会排在它们之后等待
+                .setMaxPoolSize(Math.max(core, Integer.getInteger("bus.thread.max", Math.max(256, CPU * 32))))
+                .useSynchronousQueue()
+                .setAllowCoreThreadTimeOut(true)
+                .setThreadFactory(new NamedThreadFactory("global-", false))
+                .setHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+                .build();
+
+        cpuExecutor = new ForkJoinPool(CPU, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("global-cpu-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+
+        ioExecutor = Boolean.getBoolean("bus.thread.virtual") ? newVirtualExecutor("global-io-") : null;
+        if (null == ioExecutor) {
+            ioExecutor = ExecutorBuilder.create()
+                    .setName("global-io")
+                    .setListener(listener)
+                    .setCorePoolSize(CPU)
+                    .setMaxPoolSize(Math.max(CPU, Integer.getInteger("bus.thread.io.max", Math.max(64, CPU * 16))))
+                    .useSynchronousQueue()
+                    .setAllowCoreThreadTimeOut(true)
+                    .setThreadFactory(new NamedThreadFactory("global-io-", true))
+                    .setHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+                    .build();
         }
-        executor = ExecutorBuilder.create().useSynchronousQueue().build();
     }
 
     /**
@@ -65,13 +121,23 @@ public class GlobalThread {
      * @param isNow 是否立即关闭而不等待正在执行的线程
      */
     synchronized public static void shutdown(boolean isNow) {
-        if (null != executor) {
+        for (ExecutorService service : new ExecutorService[]{executor, cpuExecutor, ioExecutor}) {
+            if (null != service) {
+                if (isNow) {
+                    service.shutdownNow();
+                } else {
+                    service.shutdown();
+                }
+            }
+        }
+        POOLS.values().forEach(pool -> {
             if (isNow) {
-                executor.shutdownNow();
+                pool.shutdownNow();
             } else {
-                executor.shutdown();
+                pool.shutdown();
             }
-        }
+        });
+        POOLS.clear();
     }
 
     /**
@@ -83,6 +149,60 @@ public class GlobalThread {
         return executor;
     }
 
+    /**
+     * 获得用于CPU密集型任务的工作窃取线程池
+     *
+     * @return {@link ForkJoinPool}
+     */
+    public static ForkJoinPool getCpuExecutor() {
+        return cpuExecutor;
+    }
+
+    /**
+     * 获得用于阻塞IO任务的弹性线程池
+     *
+     * @return {@link ExecutorService}
+     */
+    public static ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * 获取或创建命名的有界线程池
+     * 同名线程池只创建一次, 全局线程池关闭时一并关闭
+     *
+     * @param name          线程池名称
+     * @param poolSize      线程数
+     * @param queueCapacity 队列容量, 队列满时由提交线程执行
+     * @return {@link ManagedExecutor}
+     */
+    public static ManagedExecutor getPool(String name, int poolSize, int queueCapacity) {
+        return POOLS.computeIfAbsent(name, key -> (ManagedExecutor) ExecutorBuilder.create()
+                .setName(key)
+                .setListener(listener)
+                .setCorePoolSize(poolSize)
+                .setMaxPoolSize(poolSize)
+                .useArrayBlockingQueue(queueCapacity)
+                .setAllowCoreThreadTimeOut(true)
+                .setThreadFactory(new NamedThreadFactory(StringKit.format("{}-", key), true))
+                .setHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+                .build());
+    }
+
+    /**
+     * 设置线程池监听器, 作用于通用、IO及命名线程池
+     *
+     * @param executorListener 监听器, null表示不监听
+     */
+    public static void setListener(ExecutorListener executorListener) {
+        listener = executorListener;
+        executor.setListener(executorListener);
+        if (ioExecutor instanceof ManagedExecutor) {
+            ((ManagedExecutor) ioExecutor).setListener(executorListener);
+        }
+        POOLS.values().forEach(pool -> pool.setListener(executorListener));
+    }
+
     /**
      * 直接在公共线程池中执行线程
      *
@@ -119,4 +239,48 @@ public class GlobalThread {
         return executor.submit(runnable);
     }
 
+    /**
+     * 在IO线程池中执行阻塞任务
+     *
+     * @param runnable 可运行对象
+     */
+    public static void executeIo(Runnable runnable) {
+        try {
+            ioExecutor.execute(runnable);
+        } catch (Exception e) {
+            throw new InstrumentException("Exception when running task!");
+        }
+    }
+
+    /**
+     * 在IO线程池中执行有返回值的阻塞任务
+     *
+     * @param <T>  执行的Task
+     * @param task {@link Callable}
+     * @return Future
+     */
+    public static <T> Future<T> submitIo(Callable<T> task) {
+        return ioExecutor.submit(task);
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器, 仅JDK21+可用
+     * 通过反射调用以保持JDK8编译及运行兼容
+     *
+     * @param prefix 线程名前缀
+     * @return 执行器, 当前JDK不支持时返回null
+     */
+    private static ExecutorService newVirtualExecutor(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            final ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            final Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) method.invoke(null, factory);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
 }
@@ -0,0 +1,243 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.core.thread;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带名称及运行指标的{@link ThreadPoolExecutor}
+ * 记录任务在队列中的等待时间、执行时间及拒绝次数，并通过{@link ExecutorListener}对外通知
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public class ManagedExecutor extends ThreadPoolExecutor {
+
+    /**
+     * 线程池名称
+     */
+    private final String name;
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder executeNanos = new LongAdder();
+    private final LongAdder executedCount = new LongAdder();
+    /**
+     * 任务的入队时间，以调用者提交的任务本身为键，队列中保存的仍是原任务
+     * 同一任务实例可能被多次提交，因此按提交顺序保存多个时间
+     */
+    private final ConcurrentMap<Runnable, Deque<Long>> enqueuedAt = new ConcurrentHashMap<>();
+    /**
+     * 当前线程正在执行的任务的开始时间
+     */
+    private final ThreadLocal<long[]> startedAt = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile ExecutorListener listener;
+
+    /**
+     * 构造
+     *
+     * @param name          线程池名称
+     * @param corePoolSize  初始池大小
+     * @param maxPoolSize   最大池大小
+     * @param keepAliveTime 线程存活纳秒数
+     * @param workQueue     队列
+     * @param threadFactory 线程工厂
+     * @param handler       拒绝策略
+     * @param listener      监听器，可为null
+     */
+    public ManagedExecutor(String name, int corePoolSize, int maxPoolSize, long keepAliveTime,
+                           BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory,
+                           RejectedExecutionHandler handler, ExecutorListener listener) {
+        super(corePoolSize, maxPoolSize, keepAliveTime, TimeUnit.NANOSECONDS, workQueue, threadFactory, handler);
+        this.name = name;
+        this.listener = listener;
+        // 在原有拒绝策略前计数并通知监听器
+        setRejectedExecutionHandler((task, executor) -> {
+            rejectedCount.increment();
+            dequeue(task, false);
+            final ExecutorListener current = this.listener;
+            if (null != current) {
+                current.rejected(this, task);
+            }
+            handler.rejectedExecution(task, executor);
+        });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (null == command) {
+            throw new NullPointerException();
+        }
+        // 被拒绝时由拒绝策略清除入队时间
+        final long now = System.nanoTime();
+        enqueuedAt.compute(command, (key, times) -> {
+            final Deque<Long> result = null == times ? new ArrayDeque<>(1) : times;
+            result.addLast(now);
+            return result;
+        });
+        super.execute(command);
+    }
+
+    @Override
+    public boolean remove(Runnable task) {
+        final boolean removed = super.remove(task);
+        if (removed) {
+            dequeue(task, false);
+        }
+        return removed;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        final List<Runnable> tasks = super.shutdownNow();
+        for (Runnable task : tasks) {
+            dequeue(task, false);
+        }
+        return tasks;
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        final long started = System.nanoTime();
+        startedAt.get()[0] = started;
+        final Long enqueued = dequeue(task, true);
+        final long wait = null == enqueued ? 0 : started - enqueued;
+        waitNanos.add(wait);
+        final ExecutorListener current = this.listener;
+        if (null != current) {
+            current.beforeExecute(this, task, wait);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable error) {
+        final long elapsed = System.nanoTime() - startedAt.get()[0];
+        executeNanos.add(elapsed);
+        executedCount.increment();
+        final ExecutorListener current = this.listener;
+        if (null != current) {
+            current.afterExecute(this, task, error, elapsed);
+        }
+    }
+
+    /**
+     * 取出任务的一个入队时间
+     *
+     * @param task  任务
+     * @param first true取最早的时间(开始执行)，false取最近的时间(撤销提交)
+     * @return 入队时间，未记录时为null
+     */
+    private Long dequeue(Runnable task, boolean first) {
+        final Long[] result = new Long[1];
+        enqueuedAt.computeIfPresent(task, (key, times) -> {
+            result[0] = first ? times.pollFirst() : times.pollLast();
+            return times.isEmpty() ? null : times;
+        });
+        return result[0];
+    }
+
+    /**
+     * 获取线程池名称
+     *
+     * @return 名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取当前队列中等待的任务数
+     *
+     * @return 队列深度
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /**
+     * 获取被拒绝的任务数
+     *
+     * @return 拒绝次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 获取任务在队列中的平均等待纳秒数
+     *
+     * @return 平均等待纳秒数
+     */
+    public long getAverageWaitNanos() {
+        final long count = executedCount.sum();
+        return 0 == count ? 0 : waitNanos.sum() / count;
+    }
+
+    /**
+     * 获取任务的平均执行纳秒数
+     *
+     * @return 平均执行纳秒数
+     */
+    public long getAverageExecuteNanos() {
+        final long count = executedCount.sum();
+        return 0 == count ? 0 : executeNanos.sum() / count;
+    }
+
+    /**
+     * 获取监听器
+     *
+     * @return 监听器
+     */
+    public ExecutorListener getListener() {
+        return listener;
+    }
+
+    /**
+     * 设置监听器
+     *
+     * @param listener 监听器，null表示不监听
+     */
+    public void setListener(ExecutorListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[pool=" + getPoolSize() + ", active=" + getActiveCount() + ", queue=" + getQueueDepth()
+                + ", completed=" + getCompletedTaskCount() + ", rejected=" + getRejectedCount() + "]";
+    }
+
+}
@@ -25,6 +25,7 @@
  ********************************************************************************/
 package org.aoju.bus.core.toolkit;
 
+import org.aoju.bus.core.io.watchers.WatchHub;
 import org.aoju.bus.core.io.watchers.WatchMonitor;
 import org.aoju.bus.core.io.watchers.Watcher;
 
@@ -394,4 +395,43 @@ public class WatchKit {
         return watchMonitor;
     }
 
+    /**
+     * 通过共享的{@link WatchHub}订阅文件或目录的变更，多个订阅共用同一个监听线程
+     *
+     * @param url     URL
+     * @param watcher {@link Watcher}
+     * @param delay   事件合并窗口(毫秒)，小于1表示不合并
+     * @param events  关注的事件，为空表示全部事件
+     * @return 订阅，关闭即取消订阅
+     */
+    public static WatchHub.Subscription subscribe(URL url, Watcher watcher, long delay, WatchEvent.Kind<?>... events) {
+        return subscribe(Paths.get(UriKit.toURI(url)), watcher, delay, events);
+    }
+
+    /**
+     * 通过共享的{@link WatchHub}订阅文件或目录的变更，多个订阅共用同一个监听线程
+     *
+     * @param file    文件或目录
+     * @param watcher {@link Watcher}
+     * @param delay   事件合并窗口(毫秒)，小于1表示不合并
+     * @param events  关注的事件，为空表示全部事件
+     * @return 订阅，关闭即取消订阅
+     */
+    public static WatchHub.Subscription subscribe(File file, Watcher watcher, long delay, WatchEvent.Kind<?>... events) {
+        return subscribe(file.toPath(), watcher, delay, events);
+    }
+
+    /**
+     * 通过共享的{@link WatchHub}订阅文件或目录的变更，多个订阅共用同一个监听线程
+     *
+     * @param path    路径
+     * @param watcher {@link Watcher}
+     * @param delay   事件合并窗口(毫秒)，小于1表示不合并
+     * @param events  关注的事件，为空表示全部事件
+     * @return 订阅，关闭即取消订阅
+     */
+    public static WatchHub.Subscription subscribe(Path path, Watcher watcher, long delay, WatchEvent.Kind<?>... events) {
+        return WatchHub.getInstance().subscribe(path, watcher, delay, events);
+    }
+
 }
@@ -25,6 +25,9 @@
  ********************************************************************************/
 package org.aoju.bus.core.toolkit;
 
+import org.aoju.bus.core.io.StreamProgress;
+import org.aoju.bus.core.io.file.ZipCompressor;
+import org.aoju.bus.core.io.file.ZipExtractor;
 import org.aoju.bus.core.io.resource.Resource;
 import org.aoju.bus.core.lang.Console;
 import org.aoju.bus.core.lang.Symbol;
@@ -196,6 +199,24 @@ public class ZipKit {
         return zipFile;
     }
 
+    /**
+     * 并行压缩文件或目录
+     * 大文件按块并行压缩后按顺序写出，适用于大体积文件的打包，生成的Zip文件与普通方式兼容
+     *
+     * @param zipFile    生成的Zip文件，包括文件名。注意：zipPath不能是srcPath路径下的子文件夹
+     * @param charset    编码
+     * @param withSrcDir 是否包含被打包目录，只针对压缩目录有效。若为false，则只压缩目录下的文件或目录，为true则将本目录也压缩
+     * @param filter     文件过滤器，通过实现此接口，自定义要过滤的文件（过滤掉哪些文件或文件夹不加入压缩）
+     * @param srcFiles   要压缩的源文件或目录
+     * @return 压缩文件
+     * @throws InstrumentException IO异常
+     * @see ZipCompressor
+     */
+    public static File parallelZip(File zipFile, java.nio.charset.Charset charset, boolean withSrcDir, FileFilter filter, File... srcFiles) throws InstrumentException {
+        validateFiles(zipFile, srcFiles);
+        return ZipCompressor.create(charset).setFilter(filter).zip(zipFile, withSrcDir, srcFiles);
+    }
+
     /**
      * 对文件或文件目录进行压缩
      *
@@ -487,6 +508,23 @@ public class ZipKit {
         return unzip(zipFile(zipFile, charset), outFile);
     }
 
+    /**
+     * 基于{@link java.nio.channels.FileChannel}流式解压，未压缩的条目零拷贝写出
+     *
+     * @param zipFile  zip文件
+     * @param outFile  解压到的目录
+     * @param charset  编码
+     * @param progress 进度回调，进度为已解压的字节数，可为null
+     * @return 解压的目录
+     * @throws InstrumentException IO异常
+     * @see ZipExtractor
+     */
+    public static File unzip(File zipFile, File outFile, java.nio.charset.Charset charset, StreamProgress progress) throws InstrumentException {
+        try (ZipExtractor extractor = ZipExtractor.of(zipFile, charset)) {
+            return extractor.extract(outFile, progress);
+        }
+    }
+
     /**
      * 解压
      *
@@ -229,6 +229,17 @@ public interface Results {
          */
         Download toFile(File file);
 
+        /**
+         * 分段下载到指定文件，响应支持字节范围请求时按{@code segments}段并发下载，
+         * 否则与{@link #toFile(File)}相同
+         * 同一个 Body 对象的 toXXX 类方法只可使用一个并且只能调用一次
+         *
+         * @param file     目标文件
+         * @param segments 分段数量
+         * @return 下载过程 #Download
+         */
+        Download toFile(File file, int segments);
+
         /**
          * 下载到指定文件夹
          * 同一个 Body 对象的 toXXX 类方法只可使用一个并且只能调用一次
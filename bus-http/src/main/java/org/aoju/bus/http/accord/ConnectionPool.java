@@ -38,11 +38,14 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 管理HTTP和HTTP/2连接的重用，以减少网络延迟。 共享相同的
  * {@link Address}的HTTP请求可能共享一个{@link Connection}
  * 该类实现了哪些连接保持开放以供将来使用的策略
+ * 连接按{@link Address}分组，每组维护最近空闲优先的空闲栈及多路复用连接，获取连接只查找目标地址的分组；
+ * 所有空闲连接另按空闲先后排列，清理时只检查最早空闲的连接，使用中的连接仅在每个保活周期检查一次泄漏
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -57,14 +60,46 @@ public final class ConnectionPool {
     private static final Executor executor = new ThreadPoolExecutor(0,
             Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
             new SynchronousQueue<>(), Builder.threadFactory("Httpd ConnectionPool", true));
-    public final Deque<RealConnection> connections = new ArrayDeque<>();
     public final RouteDatabase routeDatabase = new RouteDatabase();
     /**
-     * 每个地址的最大空闲连接数.
+     * 池中的所有连接
+     */
+    private final Set<RealConnection> connections = new HashSet<>();
+    /**
+     * 按地址分组的连接
+     */
+    private final Map<Address, Bucket> buckets = new HashMap<>();
+    /**
+     * 所有空闲连接，按空闲的先后排列
+     */
+    private final Set<RealConnection> idleConnections = new LinkedHashSet<>();
+    /**
+     * 所有多路复用连接，用于HTTP/2连接合并
+     */
+    private final Set<RealConnection> multiplexedConnections = new LinkedHashSet<>();
+    /**
+     * 已移出连接池、等待清理线程关闭的连接
+     */
+    private final List<RealConnection> evictedConnections = new ArrayList<>();
+    /**
+     * 最大空闲连接数
      */
     private final int maxIdleConnections;
+    /**
+     * 每个地址的最大空闲连接数
+     */
+    private final int maxIdlePerAddress;
     private final long keepAliveDurationNs;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
     boolean cleanupRunning;
+    /**
+     * 上次检查使用中连接泄漏的时间
+     */
+    private long lastSweepNanos;
     private final Runnable cleanupRunnable = () -> {
         while (true) {
             long waitNanos = cleanup(System.nanoTime());
@@ -73,9 +108,12 @@ public final class ConnectionPool {
                 long waitMillis = waitNanos / 1000000L;
                 waitNanos -= (waitMillis * 1000000L);
                 synchronized (ConnectionPool.this) {
-                    try {
-                        ConnectionPool.this.wait(waitMillis, (int) waitNanos);
-                    } catch (InterruptedException ignored) {
+                    // 计算等待时间后又有连接被移出时立即处理，避免错过唤醒
+                    if (evictedConnections.isEmpty()) {
+                        try {
+                            ConnectionPool.this.wait(waitMillis, (int) waitNanos);
+                        } catch (InterruptedException ignored) {
+                        }
                     }
                 }
             }
@@ -92,7 +130,20 @@ public final class ConnectionPool {
     }
 
     public ConnectionPool(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit) {
+        this(maxIdleConnections, maxIdleConnections, keepAliveDuration, timeUnit);
+    }
+
+    /**
+     * 构造
+     *
+     * @param maxIdleConnections 最大空闲连接数
+     * @param maxIdlePerAddress  每个地址的最大空闲连接数，超出时关闭该地址空闲最久的连接
+     * @param keepAliveDuration  空闲连接的保活时长
+     * @param timeUnit           时间单位
+     */
+    public ConnectionPool(int maxIdleConnections, int maxIdlePerAddress, long keepAliveDuration, TimeUnit timeUnit) {
         this.maxIdleConnections = maxIdleConnections;
+        this.maxIdlePerAddress = maxIdlePerAddress;
         this.keepAliveDurationNs = timeUnit.toNanos(keepAliveDuration);
 
         if (keepAliveDuration <= 0) {
@@ -106,11 +157,7 @@ public final class ConnectionPool {
      * @return 连接的数量
      */
     public synchronized int idleConnectionCount() {
-        int total = 0;
-        for (RealConnection connection : connections) {
-            if (connection.allocations.isEmpty()) total++;
-        }
-        return total;
+        return idleConnections.size();
     }
 
     /**
@@ -124,6 +171,79 @@ public final class ConnectionPool {
         return connections.size();
     }
 
+    /**
+     * 返回池中正在使用的连接数量
+     *
+     * @return 连接的数量
+     */
+    public synchronized int inUseConnectionCount() {
+        return connections.size() - idleConnections.size();
+    }
+
+    /**
+     * 返回池中连接涉及的地址数量
+     *
+     * @return 地址的数量
+     */
+    public synchronized int addressCount() {
+        return buckets.size();
+    }
+
+    /**
+     * 返回从池中获取到连接的次数
+     *
+     * @return 次数
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 返回池中没有可用连接的次数
+     *
+     * @return 次数
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 返回因超时或超出空闲数量限制而关闭的连接数
+     *
+     * @return 连接数
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 返回获取连接(包括从池中获取或新建连接)的平均耗时
+     *
+     * @return 纳秒数
+     */
+    public long averageAcquireNanos() {
+        final long count = acquireCount.sum();
+        return 0 == count ? 0 : acquireNanos.sum() / count;
+    }
+
+    /**
+     * 记录一次获取连接的耗时
+     *
+     * @param nanos 纳秒数
+     */
+    void recordAcquire(long nanos) {
+        acquireCount.increment();
+        acquireNanos.add(nanos);
+    }
+
+    /**
+     * 记录一次池中没有可用连接而需新建连接的获取
+     * 一次获取可能按地址及各路由多次查找连接池，只在最终未命中时记录
+     */
+    void recordMiss() {
+        missCount.increment();
+    }
+
     /**
      * 返回一个循环连接到{@code address}，如果不存在这样的连接，
      * 则返回null。如果地址尚未被路由，则路由为空.
@@ -135,10 +255,34 @@ public final class ConnectionPool {
      */
     public RealConnection get(Address address, StreamAllocation streamAllocation, Route route) {
         assert (Thread.holdsLock(this));
-        for (RealConnection connection : connections) {
-            if (connection.isEligible(address, route)) {
-                streamAllocation.acquire(connection, true);
-                return connection;
+        final Bucket bucket = buckets.get(address);
+        if (null != bucket) {
+            // 多路复用连接可同时承载多个流
+            for (RealConnection connection : bucket.multiplexed) {
+                if (connection.isEligible(address, route)) {
+                    return acquire(connection, streamAllocation);
+                }
+            }
+            // 最近空闲的连接优先
+            for (Iterator<RealConnection> i = bucket.idle.iterator(); i.hasNext(); ) {
+                RealConnection connection = i.next();
+                if (connection.isEligible(address, route)) {
+                    return acquire(connection, streamAllocation);
+                }
+                if (connection.noNewStreams) {
+                    // 不再接受新流的空闲连接，唤醒清理线程尽快在锁外关闭
+                    i.remove();
+                    evict(connection);
+                    notifyAll();
+                }
+            }
+        }
+        if (null != route) {
+            // 按IP及证书合并到其它地址的HTTP/2连接
+            for (RealConnection connection : multiplexedConnections) {
+                if (connection.isEligible(address, route)) {
+                    return acquire(connection, streamAllocation);
+                }
             }
         }
         return null;
@@ -154,10 +298,14 @@ public final class ConnectionPool {
      */
     public Socket deduplicate(Address address, StreamAllocation streamAllocation) {
         assert (Thread.holdsLock(this));
-        for (RealConnection connection : connections) {
+        final Bucket bucket = buckets.get(address);
+        if (null == bucket) {
+            return null;
+        }
+        for (RealConnection connection : bucket.multiplexed) {
             if (connection.isEligible(address, null)
-                    && connection.isMultiplexed()
                     && connection != streamAllocation.connection()) {
+                markInUse(connection);
                 return streamAllocation.releaseAndAcquire(connection);
             }
         }
@@ -168,9 +316,18 @@ public final class ConnectionPool {
         assert (Thread.holdsLock(this));
         if (!cleanupRunning) {
             cleanupRunning = true;
+            lastSweepNanos = System.nanoTime();
             executor.execute(cleanupRunnable);
         }
         connections.add(connection);
+        final Bucket bucket = buckets.computeIfAbsent(connection.route().address(), key -> new Bucket());
+        if (connection.isMultiplexed()) {
+            bucket.multiplexed.add(connection);
+            multiplexedConnections.add(connection);
+        }
+        if (connection.allocations.isEmpty()) {
+            markIdle(connection, bucket);
+        }
     }
 
     /**
@@ -182,32 +339,39 @@ public final class ConnectionPool {
     public boolean connectionBecameIdle(RealConnection connection) {
         assert (Thread.holdsLock(this));
         if (connection.noNewStreams || maxIdleConnections == 0) {
-            connections.remove(connection);
+            remove(connection);
             return true;
-        } else {
-            // 唤醒清理线程:可能已经超过了空闲连接限制
-            notifyAll();
+        }
+        final Bucket bucket = buckets.get(connection.route().address());
+        if (null == bucket || false == connections.contains(connection)) {
             return false;
         }
+        markIdle(connection, bucket);
+        if (bucket.idle.size() > maxIdlePerAddress) {
+            // 超出地址的空闲限制，关闭该地址空闲最久的连接
+            evict(bucket.idle.removeLast());
+        }
+        // 唤醒清理线程:可能已经超过了空闲连接限制
+        notifyAll();
+        return false;
     }
 
     /**
      * 关闭并删除池中的所有空闲连接.
      */
     public void evictAll() {
-        List<RealConnection> evictedConnections = new ArrayList<>();
+        List<RealConnection> evicted;
         synchronized (this) {
-            for (Iterator<RealConnection> i = connections.iterator(); i.hasNext(); ) {
-                RealConnection connection = i.next();
-                if (connection.allocations.isEmpty()) {
-                    connection.noNewStreams = true;
-                    evictedConnections.add(connection);
-                    i.remove();
-                }
+            evicted = new ArrayList<>(idleConnections);
+            evicted.addAll(evictedConnections);
+            evictedConnections.clear();
+            for (RealConnection connection : evicted) {
+                connection.noNewStreams = true;
+                remove(connection);
             }
         }
 
-        for (RealConnection connection : evictedConnections) {
+        for (RealConnection connection : evicted) {
             IoKit.close(connection.socket());
         }
     }
@@ -220,52 +384,125 @@ public final class ConnectionPool {
      * @return 睡眠时间
      */
     long cleanup(long now) {
-        int inUseConnectionCount = 0;
-        int idleConnectionCount = 0;
-        RealConnection longestIdleConnection = null;
-        long longestIdleDurationNs = Long.MIN_VALUE;
+        final List<RealConnection> toClose;
+        long waitNanos;
 
-        // 找到与清除的联系，或者下一次清除的时间
         synchronized (this) {
-            for (Iterator<RealConnection> i = connections.iterator(); i.hasNext(); ) {
-                RealConnection connection = i.next();
-
-                // 如果正在使用连接，请继续搜索.
-                if (pruneAndGetAllocationCount(connection, now) > 0) {
-                    inUseConnectionCount++;
-                    continue;
+            // 定期检查使用中的连接是否泄漏，泄漏的连接可立即收回
+            if (now - lastSweepNanos >= keepAliveDurationNs) {
+                lastSweepNanos = now;
+                for (RealConnection connection : new ArrayList<>(connections)) {
+                    if (false == idleConnections.contains(connection)
+                            && false == connection.allocations.isEmpty()
+                            && pruneAndGetAllocationCount(connection, now) == 0) {
+                        evict(connection);
+                    }
                 }
+            }
 
-                idleConnectionCount++;
-
-                // 如果连接准备好被驱逐，我们就完成了
-                long idleDurationNs = now - connection.idleAtNanos;
-                if (idleDurationNs > longestIdleDurationNs) {
-                    longestIdleDurationNs = idleDurationNs;
-                    longestIdleConnection = connection;
+            // 只检查最早空闲的连接，直到遇到未过期且未超出数量限制的连接
+            for (Iterator<RealConnection> i = idleConnections.iterator(); i.hasNext(); ) {
+                RealConnection connection = i.next();
+                if (now - connection.idleAtNanos < keepAliveDurationNs
+                        && idleConnections.size() <= maxIdleConnections) {
+                    break;
                 }
+                i.remove();
+                evict(connection);
             }
 
-            if (longestIdleDurationNs >= this.keepAliveDurationNs
-                    || idleConnectionCount > this.maxIdleConnections) {
-                // 我们发现了与驱逐有关的证据。将它从列表中移除，然后在下面(同步块外部)关闭它
-                connections.remove(longestIdleConnection);
-            } else if (idleConnectionCount > 0) {
+            toClose = new ArrayList<>(evictedConnections);
+            evictedConnections.clear();
+
+            if (!idleConnections.isEmpty()) {
                 // 一个连接将准备驱逐很快.
-                return keepAliveDurationNs - longestIdleDurationNs;
-            } else if (inUseConnectionCount > 0) {
-                // 所有连接都在使用中。至少能维持生命直到我们再次运行.
-                return keepAliveDurationNs;
+                waitNanos = Math.min(keepAliveDurationNs - (now - idleConnections.iterator().next().idleAtNanos),
+                        keepAliveDurationNs - (now - lastSweepNanos));
+            } else if (!connections.isEmpty()) {
+                // 所有连接都在使用中。至少能维持生命直到下次检查泄漏.
+                waitNanos = keepAliveDurationNs - (now - lastSweepNanos);
             } else {
                 // 没有连接，空闲或正在使用
                 cleanupRunning = false;
-                return -1;
+                waitNanos = -1;
             }
         }
 
-        IoKit.close(longestIdleConnection.socket());
-        // 立即清理.
-        return 0;
+        for (RealConnection connection : toClose) {
+            IoKit.close(connection.socket());
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 将连接分配给{@code streamAllocation}
+     *
+     * @param connection       连接
+     * @param streamAllocation 协调者
+     * @return 连接
+     */
+    private RealConnection acquire(RealConnection connection, StreamAllocation streamAllocation) {
+        markInUse(connection);
+        streamAllocation.acquire(connection, true);
+        hitCount.increment();
+        return connection;
+    }
+
+    /**
+     * 标记连接为空闲，放在地址空闲栈的栈顶及全局空闲队列的末尾
+     *
+     * @param connection 连接
+     * @param bucket     地址分组
+     */
+    private void markIdle(RealConnection connection, Bucket bucket) {
+        idleConnections.remove(connection);
+        idleConnections.add(connection);
+        bucket.idle.remove(connection);
+        bucket.idle.addFirst(connection);
+    }
+
+    /**
+     * 连接被重新使用时移出空闲队列
+     *
+     * @param connection 连接
+     */
+    private void markInUse(RealConnection connection) {
+        if (idleConnections.remove(connection)) {
+            buckets.get(connection.route().address()).idle.remove(connection);
+        }
+    }
+
+    /**
+     * 将连接移出连接池
+     *
+     * @param connection 连接
+     */
+    private void remove(RealConnection connection) {
+        if (false == connections.remove(connection)) {
+            return;
+        }
+        idleConnections.remove(connection);
+        multiplexedConnections.remove(connection);
+        final Address address = connection.route().address();
+        final Bucket bucket = buckets.get(address);
+        if (null != bucket) {
+            bucket.idle.remove(connection);
+            bucket.multiplexed.remove(connection);
+            if (bucket.isEmpty()) {
+                buckets.remove(address);
+            }
+        }
+    }
+
+    /**
+     * 移出连接池并交给清理线程在锁外关闭
+     *
+     * @param connection 连接
+     */
+    private void evict(RealConnection connection) {
+        remove(connection);
+        evictedConnections.add(connection);
+        evictionCount.increment();
     }
 
     /**
@@ -305,4 +542,23 @@ public final class ConnectionPool {
         return references.size();
     }
 
+    /**
+     * 同一地址的连接
+     */
+    private static class Bucket {
+
+        /**
+         * 空闲连接，栈顶为最近空闲的连接
+         */
+        private final Deque<RealConnection> idle = new ArrayDeque<>();
+        /**
+         * 多路复用连接
+         */
+        private final List<RealConnection> multiplexed = new ArrayList<>();
+
+        boolean isEmpty() {
+            return idle.isEmpty() && multiplexed.isEmpty();
+        }
+    }
+
 }
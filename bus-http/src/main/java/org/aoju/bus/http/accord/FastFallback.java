@@ -0,0 +1,247 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.http.accord;
+
+import org.aoju.bus.core.toolkit.IoKit;
+import org.aoju.bus.http.Builder;
+import org.aoju.bus.http.NewCall;
+import org.aoju.bus.http.Route;
+import org.aoju.bus.http.accord.platform.Platform;
+import org.aoju.bus.http.metric.EventListener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.Proxy;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 按RFC 8305交错发起TCP连接：首个地址在{@link #ATTEMPT_DELAY_MILLIS}内未连通或已失败时，
+ * 并行尝试下一个地址，先连通者胜出，其余尝试随即关闭
+ * 仅用于直连路由，代理与隧道仍逐个尝试
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+final class FastFallback {
+
+    /**
+     * 两次连接尝试之间的间隔
+     */
+    static final long ATTEMPT_DELAY_MILLIS = 250;
+
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), Builder.threadFactory("Httpd FastFallback", true));
+
+    private final RouteSelector.Selection selection;
+    private final RouteDatabase routeDatabase;
+    private final BlockingQueue<Attempt> results = new LinkedBlockingQueue<>();
+    /**
+     * 仍在连接中的尝试，由this保护
+     */
+    private final List<Attempt> pending = new ArrayList<>();
+    /**
+     * 已产生结果或已取消，由this保护
+     */
+    private boolean decided;
+
+    FastFallback(RouteSelector.Selection selection, RouteDatabase routeDatabase) {
+        this.selection = selection;
+        this.routeDatabase = routeDatabase;
+    }
+
+    /**
+     * 路由能否参与交错连接
+     *
+     * @param route 路由
+     * @return 直连且无需隧道时为true
+     */
+    static boolean eligible(Route route) {
+        return route.proxy().type() == Proxy.Type.DIRECT && !route.requiresTunnel();
+    }
+
+    /**
+     * 从首个路由开始交错连接，直到某个地址连通或全部失败
+     *
+     * @param first          首个路由
+     * @param connectTimeout 连接超时时间
+     * @param readTimeout    读取超时时间
+     * @param call           调用者信息
+     * @param eventListener  监听器
+     * @return 胜出的尝试
+     * @throws IOException 全部失败或已取消
+     */
+    Attempt race(Route first, int connectTimeout, int readTimeout, NewCall call,
+                 EventListener eventListener) throws IOException {
+        List<IOException> failures = new ArrayList<>();
+        IOException firstFailure = null;
+        int running = start(first, connectTimeout, readTimeout, call, eventListener) ? 1 : 0;
+        try {
+            while (running > 0) {
+                boolean next = hasNext();
+                Attempt attempt;
+                if (next) {
+                    attempt = results.poll(ATTEMPT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                } else if (connectTimeout > 0) {
+                    // 每个尝试自身受连接超时限制，这里只是兜底，避免结果丢失时永久等待
+                    attempt = results.poll(connectTimeout, TimeUnit.MILLISECONDS);
+                } else {
+                    attempt = results.take();
+                }
+                if (attempt == null) {
+                    if (!next) {
+                        failures.add(new SocketTimeoutException("connect timed out"));
+                        break;
+                    }
+                    // 当前尝试迟迟未连通，交错发起下一个
+                    if (start(selection.next(), connectTimeout, readTimeout, call, eventListener)) running++;
+                    continue;
+                }
+                running--;
+
+                if (attempt.failure == null && claim(attempt)) {
+                    if (firstFailure != null) {
+                        eventListener.connectFailed(call, first.socketAddress(), first.proxy(), null, firstFailure);
+                    }
+                    return attempt;
+                }
+                if (attempt.failure != null) {
+                    // 首个路由整体失败时由RealConnection上报，这里只上报其余路由
+                    if (attempt.route != first) {
+                        eventListener.connectFailed(call, attempt.route.socketAddress(),
+                                attempt.route.proxy(), null, attempt.failure);
+                    } else {
+                        firstFailure = attempt.failure;
+                    }
+                    routeDatabase.failed(attempt.route);
+                    failures.add(attempt.failure);
+                }
+                // 失败时不必等待间隔，立即尝试下一个地址
+                if (running == 0 && hasNext()
+                        && start(selection.next(), connectTimeout, readTimeout, call, eventListener)) {
+                    running++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            cancel();
+        }
+        if (failures.isEmpty()) {
+            throw new IOException("Canceled");
+        }
+        // 以首个路由的异常为主，与RealConnection上报的路由保持一致
+        IOException failure = firstFailure != null ? firstFailure : failures.get(0);
+        for (IOException e : failures) {
+            if (e != failure) failure.addSuppressed(e);
+        }
+        throw failure;
+    }
+
+    /**
+     * 关闭所有未胜出的尝试，可由其它线程调用
+     * 结果队列留给{@link #race}处理，被关闭的尝试仍会以失败结果入队
+     */
+    void cancel() {
+        List<Attempt> losers;
+        synchronized (this) {
+            decided = true;
+            losers = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (Attempt attempt : losers) {
+            IoKit.close(attempt.socket);
+        }
+    }
+
+    private boolean hasNext() {
+        return selection.hasNext() && eligible(selection.peek());
+    }
+
+    private synchronized boolean claim(Attempt attempt) {
+        if (decided) {
+            IoKit.close(attempt.socket);
+            return false;
+        }
+        decided = true;
+        pending.remove(attempt);
+        return true;
+    }
+
+    private boolean start(Route route, int connectTimeout, int readTimeout, NewCall call,
+                          EventListener eventListener) throws IOException {
+        Socket socket = route.address().socketFactory().createSocket();
+        Attempt attempt = new Attempt(route, socket);
+        synchronized (this) {
+            if (decided) {
+                IoKit.close(socket);
+                return false;
+            }
+            pending.add(attempt);
+        }
+
+        eventListener.connectStart(call, route.socketAddress(), route.proxy());
+        EXECUTOR.execute(() -> {
+            try {
+                socket.setSoTimeout(readTimeout);
+                Platform.get().connectSocket(socket, route.socketAddress(), connectTimeout);
+            } catch (Throwable e) {
+                // 任何异常都须作为失败结果入队，否则race会一直等待该尝试
+                IoKit.close(socket);
+                ConnectException ce = new ConnectException("Failed to connect to " + route.socketAddress());
+                ce.initCause(e);
+                attempt.failure = ce;
+            }
+            synchronized (FastFallback.this) {
+                if (attempt.failure != null) {
+                    pending.remove(attempt);
+                } else if (decided) {
+                    IoKit.close(socket);
+                }
+            }
+            results.add(attempt);
+        });
+        return true;
+    }
+
+    static final class Attempt {
+        final Route route;
+        final Socket socket;
+        volatile IOException failure;
+
+        Attempt(Route route, Socket socket) {
+            this.route = route;
+            this.socket = socket;
+        }
+    }
+
+}
@@ -76,9 +76,9 @@ public final class RealConnection extends Http2Connection.Listener implements Co
     private final ConnectionPool connectionPool;
 
     /**
-     * 下面的字段由connect()初始化，并且从不重新分配
+     * 交错连接时可能在connect()中换为先连通的路由，此后不再重新分配
      */
-    private final Route route;
+    private volatile Route route;
     /**
      * 如果为真，则不能在此连接上创建新的流
      */
@@ -111,6 +111,12 @@ public final class RealConnection extends Http2Connection.Listener implements Co
     private Http2Connection http2Connection;
     private BufferSource source;
     private BufferSink sink;
+    /**
+     * 可供交错连接的后续路由，仅在首次建立套接字时使用
+     */
+    private RouteSelector.Selection fallbackRoutes;
+    private RouteDatabase fallbackDatabase;
+    private volatile FastFallback fastFallback;
 
     public RealConnection(ConnectionPool connectionPool, Route route) {
         this.connectionPool = connectionPool;
@@ -125,6 +131,17 @@ public final class RealConnection extends Http2Connection.Listener implements Co
         return result;
     }
 
+    /**
+     * 设置后续路由，直连地址在{@link FastFallback#ATTEMPT_DELAY_MILLIS}内未连通时并行尝试下一个
+     *
+     * @param selection     当前路由选择，胜出前会从中取出后续路由
+     * @param routeDatabase 记录失败路由
+     */
+    void fallback(RouteSelector.Selection selection, RouteDatabase routeDatabase) {
+        this.fallbackRoutes = selection;
+        this.fallbackDatabase = routeDatabase;
+    }
+
     public void connect(int connectTimeout, int readTimeout, int writeTimeout,
                         int pingIntervalMillis, boolean connectionRetryEnabled, NewCall call,
                         EventListener eventListener) {
@@ -247,6 +264,24 @@ public final class RealConnection extends Http2Connection.Listener implements Co
      */
     private void connectSocket(int connectTimeout, int readTimeout, NewCall call,
                                EventListener eventListener) throws IOException {
+        RouteSelector.Selection selection = fallbackRoutes;
+        fallbackRoutes = null;
+        if (selection != null && selection.hasNext() && FastFallback.eligible(route)
+                && FastFallback.eligible(selection.peek())) {
+            FastFallback racer = new FastFallback(selection, fallbackDatabase);
+            fastFallback = racer;
+            try {
+                FastFallback.Attempt winner = racer.race(route, connectTimeout, readTimeout, call, eventListener);
+                route = winner.route;
+                rawSocket = winner.socket;
+            } finally {
+                fastFallback = null;
+            }
+            source = IoKit.buffer(IoKit.source(rawSocket));
+            sink = IoKit.buffer(IoKit.sink(rawSocket));
+            return;
+        }
+
         Proxy proxy = route.proxy();
         Address address = route.address();
 
@@ -554,6 +589,10 @@ public final class RealConnection extends Http2Connection.Listener implements Co
     }
 
     public void cancel() {
+        FastFallback racer = fastFallback;
+        if (racer != null) {
+            racer.cancel();
+        }
         IoKit.close(rawSocket);
     }
 
@@ -241,6 +241,7 @@ public final class RouteSelector {
 
             eventListener.dnsEnd(call, socketHost, addresses);
 
+            addresses = interleave(addresses);
             for (int i = 0, size = addresses.size(); i < size; i++) {
                 InetAddress inetAddress = addresses.get(i);
                 inetSocketAddresses.add(new InetSocketAddress(inetAddress, socketPort));
@@ -248,6 +249,40 @@ public final class RouteSelector {
         }
     }
 
+    /**
+     * 按RFC 8305交替排列IPv6和IPv4地址，以第一个地址的协议族开始
+     * 某一协议族不可达时，下一次尝试即切换到另一协议族，而不必先耗尽该协议族的全部地址
+     *
+     * @param addresses DNS返回的地址
+     * @return 交替排列后的地址
+     */
+    static List<InetAddress> interleave(List<InetAddress> addresses) {
+        if (addresses.size() < 2) {
+            return addresses;
+        }
+
+        List<InetAddress> first = new ArrayList<>();
+        List<InetAddress> second = new ArrayList<>();
+        boolean firstIsV6 = addresses.get(0) instanceof Inet6Address;
+        for (InetAddress inetAddress : addresses) {
+            if ((inetAddress instanceof Inet6Address) == firstIsV6) {
+                first.add(inetAddress);
+            } else {
+                second.add(inetAddress);
+            }
+        }
+        if (second.isEmpty()) {
+            return addresses;
+        }
+
+        List<InetAddress> result = new ArrayList<>(addresses.size());
+        for (int i = 0, size = Math.max(first.size(), second.size()); i < size; i++) {
+            if (i < first.size()) result.add(first.get(i));
+            if (i < second.size()) result.add(second.get(i));
+        }
+        return result;
+    }
+
     /**
      * 选定的路由
      */
@@ -270,6 +305,13 @@ public final class RouteSelector {
             return routes.get(nextRouteIndex++);
         }
 
+        Route peek() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return routes.get(nextRouteIndex);
+        }
+
         public List<Route> getAll() {
             return new ArrayList<>(routes);
         }
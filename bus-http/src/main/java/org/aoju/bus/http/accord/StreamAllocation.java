@@ -148,6 +148,7 @@ public final class StreamAllocation {
      */
     private RealConnection findConnection(int connectTimeout, int readTimeout, int writeTimeout,
                                           int pingIntervalMillis, boolean connectionRetryEnabled) throws IOException {
+        final long startNanos = System.nanoTime();
         boolean foundPooledConnection = false;
         RealConnection result = null;
         Route selectedRoute = null;
@@ -192,6 +193,7 @@ public final class StreamAllocation {
         }
         if (result != null) {
             route = connection.route();
+            connectionPool.recordAcquire(System.nanoTime() - startNanos);
             return result;
         }
 
@@ -221,6 +223,7 @@ public final class StreamAllocation {
             }
 
             if (!foundPooledConnection) {
+                connectionPool.recordMiss();
                 if (selectedRoute == null) {
                     selectedRoute = routeSelection.next();
                 }
@@ -236,10 +239,14 @@ public final class StreamAllocation {
         // 如果在第二次找到池连接，就完成了。
         if (foundPooledConnection) {
             eventListener.connectionAcquired(call, result);
+            connectionPool.recordAcquire(System.nanoTime() - startNanos);
             return result;
         }
 
-        // TCP + TLS握手，这是一个阻塞操作
+        // TCP + TLS握手，这是一个阻塞操作；直连地址按间隔交错尝试，先连通者胜出
+        if (routeSelection != null) {
+            result.fallback(routeSelection, routeDatabase());
+        }
         result.connect(connectTimeout, readTimeout, writeTimeout, pingIntervalMillis,
                 connectionRetryEnabled, call, eventListener);
         routeDatabase().connected(result.route());
@@ -247,6 +254,7 @@ public final class StreamAllocation {
         Socket socket = null;
         synchronized (connectionPool) {
             reportedAcquired = true;
+            route = result.route();
 
             // 连接池信息
             Builder.instance.put(connectionPool, result);
@@ -260,6 +268,7 @@ public final class StreamAllocation {
         IoKit.close(socket);
 
         eventListener.connectionAcquired(call, result);
+        connectionPool.recordAcquire(System.nanoTime() - startNanos);
         return result;
     }
 
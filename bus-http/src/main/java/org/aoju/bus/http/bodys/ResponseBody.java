@@ -37,6 +37,8 @@ import org.aoju.bus.http.NewCall;
 import org.aoju.bus.http.Response;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * 从源服务器到客户机应用程序的一次性流，包含响应主体的原始字节。 到web服务器的活动连接支持每个响应主体。
@@ -173,6 +175,31 @@ public abstract class ResponseBody implements Closeable {
         return bytes;
     }
 
+    /**
+     * 将响应体的剩余内容写入{@code target}，完成后关闭响应体
+     *
+     * @param target 目标通道
+     * @return 写入的字节数
+     * @throws IOException 异常
+     */
+    public long writeTo(WritableByteChannel target) throws IOException {
+        BufferSource source = source();
+        try {
+            long total = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    total += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return total;
+        } finally {
+            IoKit.close(source);
+        }
+    }
+
     public final Reader charStream() {
         Reader r = reader;
         return r != null ? r : (reader = new BomAwareReader(source(), charset()));
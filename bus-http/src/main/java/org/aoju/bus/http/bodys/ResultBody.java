@@ -28,6 +28,7 @@ package org.aoju.bus.http.bodys;
 import org.aoju.bus.core.io.Buffer;
 import org.aoju.bus.core.io.ByteString;
 import org.aoju.bus.core.lang.Charset;
+import org.aoju.bus.core.lang.Header;
 import org.aoju.bus.core.lang.MimeType;
 import org.aoju.bus.core.lang.Normal;
 import org.aoju.bus.core.lang.Symbol;
@@ -205,6 +206,33 @@ public class ResultBody extends AbstractBody implements Body {
         if (taskExecutor == null) {
             throw new IllegalStateException("Task executor is null!");
         }
+        createFile(file);
+        return taskExecutor.download(coverHttp, file, toByteStream(),
+                getRangeStart());
+    }
+
+    @Override
+    public Download toFile(File file, int segments) {
+        if (segments <= 1 || cached || response.code() != HttpURLConnection.HTTP_OK
+                || getLength() <= 0 || !"bytes".equalsIgnoreCase(response.header(Header.ACCEPT_RANGES))) {
+            return toFile(file);
+        }
+        if (taskExecutor == null) {
+            throw new IllegalStateException("Task executor is null!");
+        }
+        createFile(file);
+        Download download = taskExecutor.download(coverHttp, file, response, coverHttp.httpv.httpd(), segments);
+        if (onProcess != null) {
+            long totalBytes = getLength();
+            if (stepRate > 0 && stepRate <= 1) {
+                stepBytes = (long) (totalBytes * stepRate);
+            }
+            download.setOnProcess(onProcess, stepBytes, taskExecutor.getExecutor(onIO));
+        }
+        return download;
+    }
+
+    private void createFile(File file) {
         if (!file.exists()) {
             try {
                 File parent = file.getParentFile();
@@ -217,8 +245,6 @@ public class ResultBody extends AbstractBody implements Body {
                 throw new InstrumentException("Cannot create file [" + file.getAbsolutePath() + "]", e);
             }
         }
-        return taskExecutor.download(coverHttp, file, toByteStream(),
-                getRangeStart());
     }
 
     @Override
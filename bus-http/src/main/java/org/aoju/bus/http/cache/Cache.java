@@ -46,6 +46,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
@@ -65,7 +66,7 @@ public final class Cache implements Closeable, Flushable {
     private static final int ENTRY_METADATA = 0;
     private static final int ENTRY_BODY = 1;
     private static final int ENTRY_COUNT = 2;
-    final DiskLruCache cache;
+    final ShardedDiskLruCache cache;
     int writeSuccessCount;
     int writeAbortCount;
     private int networkCount;
@@ -111,11 +112,27 @@ public final class Cache implements Closeable, Flushable {
      * @param maxSize   缓存的最大大小(以字节为单位)
      */
     public Cache(File directory, long maxSize) {
-        this(directory, maxSize, FileSystem.SYSTEM);
+        this(directory, maxSize, 1);
+    }
+
+    /**
+     * 在{@code directory}中创建最多{@code maxSize}字节的缓存，条目按键分布到{@code shardCount}个分片，
+     * 每个分片位于以序号命名的子目录中，拥有独立的日志和锁
+     *
+     * @param directory  目录
+     * @param maxSize    缓存的最大大小(以字节为单位)
+     * @param shardCount 分片数量
+     */
+    public Cache(File directory, long maxSize, int shardCount) {
+        this(directory, maxSize, FileSystem.SYSTEM, shardCount);
     }
 
     Cache(File directory, long maxSize, FileSystem fileSystem) {
-        this.cache = DiskLruCache.create(fileSystem, directory, VERSION, ENTRY_COUNT, maxSize);
+        this(directory, maxSize, fileSystem, 1);
+    }
+
+    Cache(File directory, long maxSize, FileSystem fileSystem, int shardCount) {
+        this.cache = ShardedDiskLruCache.create(fileSystem, directory, VERSION, ENTRY_COUNT, maxSize, shardCount);
     }
 
     public static String key(UnoUrl url) {
@@ -376,6 +393,27 @@ public final class Cache implements Closeable, Flushable {
         return requestCount;
     }
 
+    /**
+     * @return 磁盘缓存中找到可读条目的次数
+     */
+    public long diskHitCount() {
+        return cache.hitCount();
+    }
+
+    /**
+     * @return 磁盘缓存中未找到可读条目的次数
+     */
+    public long diskMissCount() {
+        return cache.missCount();
+    }
+
+    /**
+     * @return 因超出最大容量而淘汰的条目数
+     */
+    public long evictionCount() {
+        return cache.evictionCount();
+    }
+
     private static final class Entry {
         /**
          * 合成响应标头:请求发送时的本地时间
@@ -657,6 +695,29 @@ public final class Cache implements Closeable, Flushable {
         public BufferSource source() {
             return bodySource;
         }
+
+        /**
+         * 先写出已读入缓冲区的部分，其余内容由快照的文件通道直接传输，不经过堆内存
+         */
+        @Override
+        public long writeTo(WritableByteChannel target) throws IOException {
+            try {
+                long total = 0;
+                Buffer buffered = bodySource.buffer();
+                java.nio.ByteBuffer bytes = java.nio.ByteBuffer.allocate(Segment.SIZE);
+                while (buffered.size() > 0) {
+                    bytes.clear();
+                    buffered.read(bytes);
+                    bytes.flip();
+                    while (bytes.hasRemaining()) {
+                        total += target.write(bytes);
+                    }
+                }
+                return total + snapshot.transferTo(ENTRY_BODY, target);
+            } finally {
+                IoKit.close(bodySource);
+            }
+        }
     }
 
     private final class CacheRequestImpl implements CacheRequest {
@@ -34,6 +34,11 @@ import org.aoju.bus.http.Builder;
 import org.aoju.bus.logger.Logger;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -95,6 +100,9 @@ public final class DiskLruCache implements Closeable, Flushable {
      * 当前用于在此缓存中存储值的字节数
      */
     private long size = 0;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
     private final Runnable cleanupRunnable = new Runnable() {
         public void run() {
             synchronized (DiskLruCache.this) {
@@ -378,11 +386,18 @@ public final class DiskLruCache implements Closeable, Flushable {
         checkNotClosed();
         validateKey(key);
         Entry entry = lruEntries.get(key);
-        if (entry == null || !entry.readable) return null;
+        if (entry == null || !entry.readable) {
+            missCount++;
+            return null;
+        }
 
         Snapshot snapshot = entry.snapshot();
-        if (snapshot == null) return null;
+        if (snapshot == null) {
+            missCount++;
+            return null;
+        }
 
+        hitCount++;
         redundantOpCount++;
         journalWriter.writeUtf8(READ).writeByte(Symbol.C_SPACE).writeUtf8(key).writeByte(Symbol.C_LF);
         if (journalRebuildRequired()) {
@@ -463,6 +478,27 @@ public final class DiskLruCache implements Closeable, Flushable {
         return size;
     }
 
+    /**
+     * @return 命中可读条目的次数
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return 未命中可读条目的次数
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return 因超出最大容量而淘汰的条目数
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
     synchronized void completeEdit(Editor editor, boolean success) throws IOException {
         Entry entry = editor.entry;
         if (entry.currentEditor != editor) {
@@ -616,6 +652,7 @@ public final class DiskLruCache implements Closeable, Flushable {
         while (size > maxSize) {
             Entry toEvict = lruEntries.values().iterator().next();
             removeEntry(toEvict);
+            evictionCount++;
         }
         mostRecentTrimFailed = false;
     }
@@ -729,12 +766,14 @@ public final class DiskLruCache implements Closeable, Flushable {
         private final String key;
         private final long sequenceNumber;
         private final Source[] sources;
+        private final FileChannel[] channels;
         private final long[] lengths;
 
-        Snapshot(String key, long sequenceNumber, Source[] sources, long[] lengths) {
+        Snapshot(String key, long sequenceNumber, Source[] sources, FileChannel[] channels, long[] lengths) {
             this.key = key;
             this.sequenceNumber = sequenceNumber;
             this.sources = sources;
+            this.channels = channels;
             this.lengths = lengths;
         }
 
@@ -754,6 +793,58 @@ public final class DiskLruCache implements Closeable, Flushable {
             return lengths[index];
         }
 
+        /**
+         * 返回值所在文件的通道，与{@link #getSource(int)}共享读取位置
+         *
+         * @param index 值索引
+         * @return 文件通道，文件系统不是{@link FileSystem#SYSTEM}时为null
+         */
+        public FileChannel getChannel(int index) {
+            return channels[index];
+        }
+
+        /**
+         * 将值从当前读取位置起的剩余内容写入{@code target}
+         * 有文件通道时使用{@link FileChannel#transferTo}，数据不经过堆内存
+         *
+         * @param index  值索引
+         * @param target 目标通道
+         * @return 写入的字节数
+         * @throws IOException 异常
+         */
+        public long transferTo(int index, WritableByteChannel target) throws IOException {
+            long total = 0;
+            FileChannel channel = channels[index];
+            if (channel != null) {
+                long position = channel.position();
+                long size = channel.size();
+                while (position < size) {
+                    long count = channel.transferTo(position, size - position, target);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                    total += count;
+                }
+                channel.position(position);
+                return total;
+            }
+
+            Buffer buffer = new Buffer();
+            ByteBuffer byteBuffer = ByteBuffer.allocate(Segment.SIZE);
+            while (sources[index].read(buffer, Segment.SIZE) != -1) {
+                while (buffer.size() > 0) {
+                    byteBuffer.clear();
+                    buffer.read(byteBuffer);
+                    byteBuffer.flip();
+                    while (byteBuffer.hasRemaining()) {
+                        total += target.write(byteBuffer);
+                    }
+                }
+            }
+            return total;
+        }
+
         public void close() {
             for (Source in : sources) {
                 IoKit.close(in);
@@ -932,13 +1023,20 @@ public final class DiskLruCache implements Closeable, Flushable {
             if (!Thread.holdsLock(DiskLruCache.this)) throw new AssertionError();
 
             Source[] sources = new Source[valueCount];
+            FileChannel[] channels = new FileChannel[valueCount];
             long[] lengths = this.lengths.clone();
             try {
                 for (int i = 0; i < valueCount; i++) {
-                    sources[i] = fileSystem.source(cleanFiles[i]);
+                    if (fileSystem == FileSystem.SYSTEM) {
+                        // 持有打开的通道，文件随后被替换或删除也不影响快照读取
+                        channels[i] = FileChannel.open(cleanFiles[i].toPath(), StandardOpenOption.READ);
+                        sources[i] = IoKit.source(Channels.newInputStream(channels[i]));
+                    } else {
+                        sources[i] = fileSystem.source(cleanFiles[i]);
+                    }
                 }
-                return new Snapshot(key, sequenceNumber, sources, lengths);
-            } catch (FileNotFoundException e) {
+                return new Snapshot(key, sequenceNumber, sources, channels, lengths);
+            } catch (IOException e) {
                 for (int i = 0; i < valueCount; i++) {
                     if (sources[i] != null) {
                         IoKit.close(sources[i]);
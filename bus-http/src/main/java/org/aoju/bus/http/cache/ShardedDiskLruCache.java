@@ -0,0 +1,362 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.http.cache;
+
+import org.aoju.bus.core.io.FileSystem;
+import org.aoju.bus.http.Builder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按键的哈希将条目分布到多个相互独立的{@link DiskLruCache}分片
+ * 每个分片拥有自己的目录、日志和锁，不同分片上的读写互不阻塞，
+ * 容量按分片均分，日志重建与容量修剪由共享的后台线程池执行
+ * 只有一个分片时直接使用缓存目录，与未分片的目录结构保持兼容；
+ * 首次使用时删除以其它分片数量创建的条目和日志，避免它们占用磁盘却不计入容量
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public final class ShardedDiskLruCache implements Closeable, Flushable {
+
+    private static final Pattern ENTRY_FILE_PATTERN = Pattern.compile("([a-z0-9_-]{1,120})\\.(\\d+)(\\.tmp)?");
+
+    private final FileSystem fileSystem;
+    private final File directory;
+    private final DiskLruCache[] shards;
+    private volatile boolean cleaned;
+
+    ShardedDiskLruCache(FileSystem fileSystem, File directory, DiskLruCache[] shards) {
+        this.fileSystem = fileSystem;
+        this.directory = directory;
+        this.shards = shards;
+    }
+
+    /**
+     * 创建一个驻留在{@code directory}中的分片缓存。各分片在第一次访问时惰性初始化
+     *
+     * @param fileSystem 读写文件
+     * @param directory  一个可写目录
+     * @param appVersion 版本信息
+     * @param valueCount 每个缓存条目的值数目
+     * @param maxSize    此缓存应用于存储的最大字节数
+     * @param shardCount 分片数量
+     * @return 分片缓存
+     */
+    public static ShardedDiskLruCache create(FileSystem fileSystem, File directory, int appVersion,
+                                             int valueCount, long maxSize, int shardCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (valueCount <= 0) {
+            throw new IllegalArgumentException("valueCount <= 0");
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount <= 0");
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(shardCount, shardCount, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Builder.threadFactory("Httpd DiskLruCache", true));
+        executor.allowCoreThreadTimeOut(true);
+
+        DiskLruCache[] shards = new DiskLruCache[shardCount];
+        long shardSize = shardSize(maxSize, shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            File shardDirectory = shardCount == 1 ? directory : new File(directory, Integer.toString(i));
+            shards[i] = new DiskLruCache(fileSystem, shardDirectory, appVersion, valueCount, shardSize, executor);
+        }
+        return new ShardedDiskLruCache(fileSystem, directory, shards);
+    }
+
+    private static long shardSize(long maxSize, int shardCount) {
+        return Math.max(1, (maxSize + shardCount - 1) / shardCount);
+    }
+
+    /**
+     * 返回{@code key}所在的分片
+     *
+     * @param key 缓存key
+     * @return 分片
+     */
+    DiskLruCache shard(String key) throws IOException {
+        cleanStaleLayout();
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return shards[(hash & Integer.MAX_VALUE) % shards.length];
+    }
+
+    public void initialize() throws IOException {
+        cleanStaleLayout();
+        for (DiskLruCache shard : shards) {
+            shard.initialize();
+        }
+    }
+
+    public DiskLruCache.Snapshot get(String key) throws IOException {
+        return shard(key).get(key);
+    }
+
+    public DiskLruCache.Editor edit(String key) throws IOException {
+        return shard(key).edit(key);
+    }
+
+    public boolean remove(String key) throws IOException {
+        return shard(key).remove(key);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public long getMaxSize() {
+        long maxSize = 0;
+        for (DiskLruCache shard : shards) {
+            maxSize += shard.getMaxSize();
+        }
+        return maxSize;
+    }
+
+    /**
+     * 更改缓存可以存储的最大字节数，容量在分片间均分
+     *
+     * @param maxSize 最大值
+     */
+    public void setMaxSize(long maxSize) {
+        long shardSize = shardSize(maxSize, shards.length);
+        for (DiskLruCache shard : shards) {
+            shard.setMaxSize(shardSize);
+        }
+    }
+
+    public long size() throws IOException {
+        cleanStaleLayout();
+        long size = 0;
+        for (DiskLruCache shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        long count = 0;
+        for (DiskLruCache shard : shards) {
+            count += shard.hitCount();
+        }
+        return count;
+    }
+
+    public long missCount() {
+        long count = 0;
+        for (DiskLruCache shard : shards) {
+            count += shard.missCount();
+        }
+        return count;
+    }
+
+    public long evictionCount() {
+        long count = 0;
+        for (DiskLruCache shard : shards) {
+            count += shard.evictionCount();
+        }
+        return count;
+    }
+
+    public boolean isClosed() {
+        for (DiskLruCache shard : shards) {
+            if (!shard.isClosed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (DiskLruCache shard : shards) {
+            shard.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (DiskLruCache shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 关闭缓存并删除其所有存储值。这将删除缓存目录中的所有文件，包括没有由缓存创建的文件
+     *
+     * @throws IOException 异常
+     */
+    public void delete() throws IOException {
+        close();
+        fileSystem.deleteContents(directory);
+    }
+
+    /**
+     * 从所有分片中删除所有存储值,飞行中的编辑将正常完成，但不会存储它们的值
+     *
+     * @throws IOException 异常
+     */
+    public void evictAll() throws IOException {
+        cleanStaleLayout();
+        for (DiskLruCache shard : shards) {
+            shard.evictAll();
+        }
+    }
+
+    /**
+     * 删除不属于当前分片布局的文件：单分片时删除序号子目录，
+     * 多分片时删除根目录下旧布局的日志和条目文件，以及序号超出分片数量的子目录
+     * 其它文件不是缓存创建的，保持不动
+     *
+     * @throws IOException 删除异常
+     */
+    private void cleanStaleLayout() throws IOException {
+        if (cleaned) {
+            return;
+        }
+        synchronized (this) {
+            if (cleaned) {
+                return;
+            }
+            for (File file : fileSystem.list(directory)) {
+                String name = file.getName();
+                int index = shardIndex(name);
+                if (index >= 0) {
+                    if (shards.length == 1 || index >= shards.length) {
+                        fileSystem.deleteContents(file);
+                        fileSystem.delete(file);
+                    }
+                } else if (shards.length > 1 && isLegacyFile(name)) {
+                    fileSystem.delete(file);
+                }
+            }
+            cleaned = true;
+        }
+    }
+
+    /**
+     * 未分片布局在缓存根目录中创建的文件：日志及其备份、临时文件，
+     * 以及{@code <key>.<n>}和{@code <key>.<n>.tmp}形式的条目文件
+     */
+    private boolean isLegacyFile(String name) {
+        if (DiskLruCache.JOURNAL_FILE.equals(name)
+                || DiskLruCache.JOURNAL_FILE_BACKUP.equals(name)
+                || DiskLruCache.JOURNAL_FILE_TEMP.equals(name)) {
+            return true;
+        }
+        Matcher matcher = ENTRY_FILE_PATTERN.matcher(name);
+        if (!matcher.matches()) {
+            return false;
+        }
+        int index = shardIndex(matcher.group(2));
+        return index >= 0 && index < shards[0].valueCount;
+    }
+
+    private static int shardIndex(String name) {
+        if (name.isEmpty() || name.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(name);
+    }
+
+    /**
+     * 依次返回各分片当前项的迭代器，约定与{@link DiskLruCache#snapshots()}相同
+     *
+     * @return 返回迭代器
+     * @throws IOException 异常
+     */
+    public Iterator<DiskLruCache.Snapshot> snapshots() throws IOException {
+        initialize();
+        return new Iterator<DiskLruCache.Snapshot>() {
+            int index;
+            Iterator<DiskLruCache.Snapshot> current;
+            Iterator<DiskLruCache.Snapshot> removeFrom;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (index == shards.length) {
+                        return false;
+                    }
+                    try {
+                        current = shards[index++].snapshots();
+                    } catch (IOException e) {
+                        current = null;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public DiskLruCache.Snapshot next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                removeFrom = current;
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                if (removeFrom == null) throw new IllegalStateException("remove() before next()");
+                removeFrom.remove();
+                removeFrom = null;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,280 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2021 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ *                                                                               *
+ ********************************************************************************/
+package org.aoju.bus.http.metric;
+
+import org.aoju.bus.http.Builder;
+import org.aoju.bus.http.DnsX;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带缓存的DNS实现，解析结果在有效期内直接从内存返回，
+ * 解析失败的主机在较短的有效期内直接抛出{@link UnknownHostException}
+ * 条目超过有效期的{@code refreshRatio}后仍被访问时，继续返回缓存结果并在后台重新解析，
+ * 同一主机的并发未命中只向上游发起一次解析
+ * 未指定有效期时沿用JVM的{@code networkaddress.cache.ttl}
+ * 及{@code networkaddress.cache.negative.ttl}配置
+ *
+ * @author Kimi Liu
+ * @version 6.2.0
+ * @since JDK 1.8+
+ */
+public final class CachingDns implements DnsX {
+
+    private static final long DEFAULT_TTL_SECONDS = 30;
+    private static final long DEFAULT_NEGATIVE_TTL_SECONDS = 10;
+    private static final double REFRESH_RATIO = 0.75;
+
+    private final DnsX upstream;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<Entry>> pending = new ConcurrentHashMap<>();
+    private final Executor executor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), Builder.threadFactory("Httpd CachingDns", true));
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+
+    /**
+     * 使用JVM配置的有效期缓存{@code upstream}的解析结果
+     *
+     * @param upstream 上游DNS
+     */
+    public CachingDns(DnsX upstream) {
+        this(upstream,
+                securityTtl("networkaddress.cache.ttl", DEFAULT_TTL_SECONDS),
+                securityTtl("networkaddress.cache.negative.ttl", DEFAULT_NEGATIVE_TTL_SECONDS),
+                TimeUnit.SECONDS, 1024);
+    }
+
+    /**
+     * @param upstream    上游DNS
+     * @param ttl         解析成功的有效期，为0时不缓存成功结果
+     * @param negativeTtl 解析失败的有效期，为0时不缓存失败结果
+     * @param unit        时间单位
+     * @param maxEntries  最多缓存的主机数
+     */
+    public CachingDns(DnsX upstream, long ttl, long negativeTtl, TimeUnit unit, int maxEntries) {
+        if (upstream == null) throw new NullPointerException("upstream == null");
+        if (ttl < 0) throw new IllegalArgumentException("ttl < 0: " + ttl);
+        if (negativeTtl < 0) throw new IllegalArgumentException("negativeTtl < 0: " + negativeTtl);
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries <= 0: " + maxEntries);
+        this.upstream = upstream;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.negativeTtlNanos = unit.toNanos(negativeTtl);
+        this.maxEntries = maxEntries;
+    }
+
+    private static long securityTtl(String name, long defaultSeconds) {
+        try {
+            String value = Security.getProperty(name);
+            if (value != null) {
+                long seconds = Long.parseLong(value.trim());
+                // 负数表示永久缓存，此处按一天处理；0表示不缓存
+                return seconds < 0 ? TimeUnit.DAYS.toSeconds(1) : seconds;
+            }
+        } catch (RuntimeException ignored) {
+        }
+        return defaultSeconds;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        if (hostname == null) throw new UnknownHostException("hostname == null");
+
+        long now = System.nanoTime();
+        Entry entry = entries.get(hostname);
+        if (entry != null && now - entry.expiresAt < 0) {
+            hitCount.increment();
+            if (entry.addresses != null && now - entry.refreshAt >= 0
+                    && entry.refreshing.compareAndSet(false, true)) {
+                refreshAsync(hostname, entry);
+            }
+            return entry.get(hostname);
+        }
+
+        missCount.increment();
+        return resolve(hostname).get(hostname);
+    }
+
+    /**
+     * 删除所有缓存的解析结果
+     */
+    public void evictAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long refreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * 向上游解析主机名并更新缓存，同一主机同时只有一次解析在进行
+     *
+     * @param hostname 主机名
+     * @return 解析结果
+     * @throws UnknownHostException 解析异常
+     */
+    private Entry resolve(String hostname) throws UnknownHostException {
+        FutureTask<Entry> task = new FutureTask<>(() -> load(hostname));
+        FutureTask<Entry> existing = pending.putIfAbsent(hostname, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                pending.remove(hostname, task);
+            }
+        } else {
+            task = existing;
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (UnknownHostException) new UnknownHostException(
+                    "Interrupted while resolving " + hostname).initCause(e);
+        } catch (ExecutionException e) {
+            throw (UnknownHostException) new UnknownHostException(
+                    "Failed to resolve " + hostname).initCause(e.getCause());
+        }
+    }
+
+    private void refreshAsync(String hostname, Entry entry) {
+        try {
+            executor.execute(() -> {
+                try {
+                    refreshCount.increment();
+                    resolve(hostname);
+                } catch (UnknownHostException ignored) {
+                    // 失败结果已经写入缓存
+                } finally {
+                    // 刷新失败时仍保留旧结果，须允许到期前再次刷新
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private Entry load(String hostname) {
+        long now = System.nanoTime();
+        Entry entry;
+        try {
+            List<InetAddress> addresses = upstream.lookup(hostname);
+            if (addresses == null || addresses.isEmpty()) {
+                throw new UnknownHostException(upstream + " returned no addresses for " + hostname);
+            }
+            entry = new Entry(Collections.unmodifiableList(addresses), null,
+                    now + ttlNanos, now + (long) (ttlNanos * REFRESH_RATIO));
+            if (ttlNanos == 0) {
+                entries.remove(hostname);
+                return entry;
+            }
+        } catch (UnknownHostException e) {
+            Entry existing = entries.get(hostname);
+            if (existing != null && existing.addresses != null && now - existing.expiresAt < 0) {
+                // 后台刷新失败时保留仍在有效期内的结果
+                return existing;
+            }
+            entry = new Entry(null, e.getMessage(), now + negativeTtlNanos, now + negativeTtlNanos);
+            if (negativeTtlNanos == 0) {
+                entries.remove(hostname);
+                return entry;
+            }
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(hostname)) {
+            trim(now);
+        }
+        entries.put(hostname, entry);
+        return entry;
+    }
+
+    /**
+     * 删除过期条目，仍然超出上限时删除任意条目
+     *
+     * @param now 当前时间
+     */
+    private void trim(long now) {
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 缓存条目，{@code addresses}为null时表示解析失败
+     */
+    private static final class Entry {
+
+        final List<InetAddress> addresses;
+        final String failure;
+        final long expiresAt;
+        final long refreshAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(List<InetAddress> addresses, String failure, long expiresAt, long refreshAt) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+        List<InetAddress> get(String hostname) throws UnknownHostException {
+            if (addresses == null) {
+                throw new UnknownHostException(failure != null ? failure : hostname);
+            }
+            return addresses;
+        }
+    }
+
+}
@@ -35,11 +35,15 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 关于何时执行异步请求的策略
  * 每个dispatcher使用一个{@link ExecutorService}在内部运行调用。
  * 如果您提供自己的执行程序，它应该能够并发地运行{@linkplain #getMaxRequests 配置的最大调用数}
+ * 等待的调用按主机分别排队并记录各主机运行中的调用数，只有未达到主机并发上限的主机参与调度，
+ * 提升调用时无需扫描等待队列；默认按入队顺序调度，开启公平调度后按主机权重轮转
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -48,19 +52,38 @@ import java.util.concurrent.TimeUnit;
 public final class Dispatcher {
 
     /**
-     * 准备异步调用的顺序，他们将被运行
+     * 按主机分组的等待调用
      */
-    private final Deque<AsyncCall> readyAsyncCalls = new ArrayDeque<>();
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+    /**
+     * 可调度的主机，按入队顺序调度时以主机最早的等待调用排序
+     */
+    private final PriorityQueue<HostQueue> orderedHosts = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.ready.peek().sequence, b.ready.peek().sequence));
+    /**
+     * 可调度的主机，公平调度时轮转
+     */
+    private final Deque<HostQueue> fairHosts = new ArrayDeque<>();
+    /**
+     * 主机权重
+     */
+    private final Map<String, Integer> weights = new HashMap<>();
     /**
      * 运行异步调用。包括尚未结束的已取消调用
      */
-    private final Deque<AsyncCall> runningAsyncCalls = new ArrayDeque<>();
+    private final Set<AsyncCall> runningAsyncCalls = new LinkedHashSet<>();
     /**
      * 运行同步调用。包括尚未结束的已取消调用
      */
-    private final Deque<RealCall> runningSyncCalls = new ArrayDeque<>();
+    private final Set<RealCall> runningSyncCalls = new LinkedHashSet<>();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder promotedCount = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
     private int maxRequests = 64;
     private int maxRequestsPerHost = 5;
+    private boolean fair;
+    private int queuedCount;
+    private long sequence;
     private Runnable idleCallback;
     /**
      * 执行调用
@@ -119,10 +142,45 @@ public final class Dispatcher {
         }
         synchronized (this) {
             this.maxRequestsPerHost = maxRequestsPerHost;
+            rebuildEligible();
         }
         promoteAndExecute();
     }
 
+    public synchronized boolean isFair() {
+        return fair;
+    }
+
+    /**
+     * 设置是否在主机间公平调度。开启后可调度的主机轮流提升调用，每轮提升的调用数为主机的权重，
+     * 避免单个主机的大量请求阻塞其它主机；关闭时按入队顺序调度
+     *
+     * @param fair 是否公平调度
+     */
+    public void setFair(boolean fair) {
+        synchronized (this) {
+            this.fair = fair;
+            rebuildEligible();
+        }
+        promoteAndExecute();
+    }
+
+    /**
+     * 设置主机的调度权重，仅在公平调度时生效
+     *
+     * @param host   主机名
+     * @param weight 权重，每轮连续提升的调用数
+     */
+    public synchronized void setHostWeight(String host, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight < 1: " + weight);
+        }
+        weights.put(host, weight);
+        final HostQueue queue = hosts.get(host);
+        if (null != queue) {
+            queue.weight = weight;
+        }
+    }
 
     /**
      * 设置一个回调，以便每次调度程序变为空闲时调用(当运行的调用数量返回零时)
@@ -135,7 +193,13 @@ public final class Dispatcher {
 
     public void enqueue(AsyncCall call) {
         synchronized (this) {
-            readyAsyncCalls.add(call);
+            final HostQueue queue = hosts.computeIfAbsent(call.host(),
+                    host -> new HostQueue(host, weights.getOrDefault(host, 1)));
+            queue.ready.add(new Queued(call, sequence++, System.nanoTime()));
+            queuedCount++;
+            if (!queue.eligible && isAvailable(queue)) {
+                offer(queue);
+            }
         }
         promoteAndExecute();
     }
@@ -146,8 +210,10 @@ public final class Dispatcher {
      * 执行的{@linkplain NewCall#enqueue}。
      */
     public synchronized void cancelAll() {
-        for (AsyncCall call : readyAsyncCalls) {
-            call.get().cancel();
+        for (HostQueue queue : hosts.values()) {
+            for (Queued queued : queue.ready) {
+                queued.call.get().cancel();
+            }
         }
 
         for (AsyncCall call : runningAsyncCalls) {
@@ -160,7 +226,7 @@ public final class Dispatcher {
     }
 
     /**
-     * 将符合条件的调用从{@link #readyAsyncCalls}提升到{@link #runningAsyncCalls}，
+     * 将可调度主机的等待调用提升到{@link #runningAsyncCalls}，
      * 并在executor服务上运行它们。必须不与同步调用，因为执行调用可以调用到用户代码
      *
      * @return 如果调度程序当前正在运行调用，则为true
@@ -171,15 +237,34 @@ public final class Dispatcher {
         List<AsyncCall> executableCalls = new ArrayList<>();
         boolean isRunning;
         synchronized (this) {
-            for (Iterator<AsyncCall> i = readyAsyncCalls.iterator(); i.hasNext(); ) {
-                AsyncCall asyncCall = i.next();
-
-                if (runningAsyncCalls.size() >= maxRequests) break; // Max capacity.
-                if (runningCallsForHost(asyncCall) >= maxRequestsPerHost) continue; // Host max capacity.
-
-                i.remove();
+            final long now = System.nanoTime();
+            while (runningAsyncCalls.size() < maxRequests) {
+                final HostQueue queue = fair ? fairHosts.poll() : orderedHosts.poll();
+                if (null == queue) {
+                    break;
+                }
+                final Queued queued = queue.ready.poll();
+                queuedCount--;
+                final AsyncCall asyncCall = queued.call;
+                if (!asyncCall.get().forWebSocket) {
+                    queue.running++;
+                }
                 executableCalls.add(asyncCall);
                 runningAsyncCalls.add(asyncCall);
+                recordWait(now - queued.enqueuedAt);
+
+                queue.eligible = false;
+                if (isAvailable(queue)) {
+                    if (fair && --queue.credit > 0) {
+                        // 本轮权重未用完，继续由该主机提升
+                        queue.eligible = true;
+                        fairHosts.addFirst(queue);
+                    } else {
+                        offer(queue);
+                    }
+                } else if (queue.isEmpty()) {
+                    hosts.remove(queue.host);
+                }
             }
             isRunning = runningCallsCount() > 0;
         }
@@ -192,49 +277,45 @@ public final class Dispatcher {
         return isRunning;
     }
 
-    /**
-     * @param call 回调信息
-     * @return 与{@code call}共享主机的运行调用的数量
-     */
-    private int runningCallsForHost(AsyncCall call) {
-        int result = 0;
-        for (AsyncCall c : runningAsyncCalls) {
-            if (c.get().forWebSocket) continue;
-            if (c.host().equals(call.host())) result++;
-        }
-        return result;
-    }
-
     public synchronized void executed(RealCall call) {
         runningSyncCalls.add(call);
     }
 
     public void finished(AsyncCall call) {
-        finished(runningAsyncCalls, call);
+        Runnable idleCallback;
+        synchronized (this) {
+            if (!runningAsyncCalls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
+            if (!call.get().forWebSocket) {
+                final HostQueue queue = hosts.get(call.host());
+                if (null != queue) {
+                    queue.running--;
+                    if (!queue.eligible && isAvailable(queue)) {
+                        offer(queue);
+                    } else if (queue.isEmpty()) {
+                        hosts.remove(queue.host);
+                    }
+                }
+            }
+            idleCallback = this.idleCallback;
+        }
+        idle(idleCallback);
     }
 
     public void finished(RealCall call) {
-        finished(runningSyncCalls, call);
-    }
-
-    private <T> void finished(Deque<T> calls, T call) {
         Runnable idleCallback;
         synchronized (this) {
-            if (!calls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
+            if (!runningSyncCalls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
             idleCallback = this.idleCallback;
         }
-
-        boolean isRunning = promoteAndExecute();
-
-        if (!isRunning && idleCallback != null) {
-            idleCallback.run();
-        }
+        idle(idleCallback);
     }
 
     public synchronized List<NewCall> queuedCalls() {
         List<NewCall> result = new ArrayList<>();
-        for (AsyncCall asyncCall : readyAsyncCalls) {
-            result.add(asyncCall.get());
+        for (HostQueue queue : hosts.values()) {
+            for (Queued queued : queue.ready) {
+                result.add(queued.call.get());
+            }
         }
         return Collections.unmodifiableList(result);
     }
@@ -249,11 +330,144 @@ public final class Dispatcher {
     }
 
     public synchronized int queuedCallsCount() {
-        return readyAsyncCalls.size();
+        return queuedCount;
     }
 
     public synchronized int runningCallsCount() {
         return runningAsyncCalls.size() + runningSyncCalls.size();
     }
 
+    /**
+     * @param host 主机名
+     * @return 该主机等待中的调用数量
+     */
+    public synchronized int queuedCallsCount(String host) {
+        final HostQueue queue = hosts.get(host);
+        return null == queue ? 0 : queue.ready.size();
+    }
+
+    /**
+     * @param host 主机名
+     * @return 该主机运行中的异步调用数量，不包括WebSocket调用
+     */
+    public synchronized int runningCallsCount(String host) {
+        final HostQueue queue = hosts.get(host);
+        return null == queue ? 0 : queue.running;
+    }
+
+    /**
+     * @return 异步调用在队列中的平均等待时间(纳秒)
+     */
+    public long averageQueueWaitNanos() {
+        final long count = promotedCount.sum();
+        return 0 == count ? 0 : queueWaitNanos.sum() / count;
+    }
+
+    /**
+     * @return 异步调用在队列中的最长等待时间(纳秒)
+     */
+    public long maxQueueWaitNanos() {
+        return maxQueueWaitNanos.get();
+    }
+
+    /**
+     * 调用结束后提升等待的调用，调度程序空闲时执行回调
+     *
+     * @param idleCallback 空闲回调
+     */
+    private void idle(Runnable idleCallback) {
+        boolean isRunning = promoteAndExecute();
+
+        if (!isRunning && idleCallback != null) {
+            idleCallback.run();
+        }
+    }
+
+    /**
+     * @param queue 主机队列
+     * @return 主机是否有等待的调用且未达到并发上限
+     */
+    private boolean isAvailable(HostQueue queue) {
+        return !queue.ready.isEmpty() && queue.running < maxRequestsPerHost;
+    }
+
+    /**
+     * 将主机加入可调度队列
+     *
+     * @param queue 主机队列
+     */
+    private void offer(HostQueue queue) {
+        queue.eligible = true;
+        if (fair) {
+            queue.credit = queue.weight;
+            fairHosts.addLast(queue);
+        } else {
+            orderedHosts.add(queue);
+        }
+    }
+
+    /**
+     * 并发上限或调度方式变化后重建可调度队列
+     */
+    private void rebuildEligible() {
+        orderedHosts.clear();
+        fairHosts.clear();
+        for (HostQueue queue : hosts.values()) {
+            queue.eligible = false;
+            if (isAvailable(queue)) {
+                offer(queue);
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        queueWaitNanos.add(nanos);
+        promotedCount.increment();
+        maxQueueWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * 等待中的调用
+     */
+    private static class Queued {
+
+        private final AsyncCall call;
+        private final long sequence;
+        private final long enqueuedAt;
+
+        Queued(AsyncCall call, long sequence, long enqueuedAt) {
+            this.call = call;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 同一主机的等待调用及运行数
+     */
+    private static class HostQueue {
+
+        private final String host;
+        private final Deque<Queued> ready = new ArrayDeque<>();
+        private int running;
+        private int weight;
+        /**
+         * 本轮剩余可提升的调用数
+         */
+        private int credit;
+        /**
+         * 是否在可调度队列中
+         */
+        private boolean eligible;
+
+        HostQueue(String host, int weight) {
+            this.host = host;
+            this.weight = weight;
+        }
+
+        boolean isEmpty() {
+            return ready.isEmpty() && 0 == running;
+        }
+    }
+
 }
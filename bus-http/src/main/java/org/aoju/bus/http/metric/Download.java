@@ -25,15 +25,33 @@
  ********************************************************************************/
 package org.aoju.bus.http.metric;
 
+import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.core.lang.exception.InstrumentException;
 import org.aoju.bus.core.toolkit.IoKit;
+import org.aoju.bus.http.Httpd;
 import org.aoju.bus.http.OnBack;
 import org.aoju.bus.http.Process;
+import org.aoju.bus.http.Request;
+import org.aoju.bus.http.Response;
+import org.aoju.bus.http.bodys.ResponseBody;
 
 import java.io.*;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 文件下载
+ * 分段模式下文件按字节范围切分为多段，由{@link Httpd}并发请求各段并直接写入预分配文件的对应位置，
+ * 各段进度保存在与目标文件同目录的清单文件中，再次下载同一资源时从已完成的位置继续
  *
  * @author Kimi Liu
  * @version 6.2.0
@@ -41,6 +59,23 @@ import java.io.*;
  */
 public class Download {
 
+    /**
+     * 清单文件后缀
+     */
+    public static final String MANIFEST_SUFFIX = ".seg";
+    /**
+     * 每段的最小字节数
+     */
+    private static final long MIN_SEGMENT_BYTES = 256 * 1024;
+    /**
+     * 单段读取失败后重新请求的次数
+     */
+    private static final int SEGMENT_RETRIES = 3;
+    /**
+     * 清单文件的最小保存间隔
+     */
+    private static final long MANIFEST_INTERVAL_MILLIS = 1000;
+
     private final Object lock = new Object();
     protected boolean nextOnIO = false;
     private File file;
@@ -58,6 +93,22 @@ public class Download {
 
     private Ctrl ctrl;
 
+    private Httpd httpd;
+    private Request request;
+    private String validator;
+    private long totalBytes;
+    private int segments;
+    private List<Segment> segmentList;
+    private FileChannel channel;
+    private final AtomicLong segmentDoneBytes = new AtomicLong();
+    private final AtomicInteger runningSegments = new AtomicInteger();
+    private volatile IOException segmentFailure;
+    private volatile long manifestSavedAt;
+    private OnBack<Process> onProcess;
+    private long stepBytes;
+    private Executor processExecutor;
+    private final AtomicLong processStep = new AtomicLong();
+
     public Download(File file, InputStream input, TaskExecutor taskExecutor, long skipBytes) {
         this.file = file;
         this.input = input;
@@ -66,6 +117,35 @@ public class Download {
         this.ctrl = new Ctrl();
     }
 
+    /**
+     * 分段下载，{@code response}为完整内容的响应(200)，其响应体用作第一段的数据，
+     * 其余各段使用{@code httpd}按范围重新请求
+     *
+     * @param file         目标文件
+     * @param response     完整内容的响应
+     * @param taskExecutor 任务执行器
+     * @param httpd        发起范围请求的客户端
+     * @param segments     分段数量
+     */
+    public Download(File file, Response response, TaskExecutor taskExecutor, Httpd httpd, int segments) {
+        ResponseBody body = response.body();
+        this.file = file;
+        this.input = body != null ? body.byteStream() : null;
+        this.taskExecutor = taskExecutor;
+        this.httpd = httpd;
+        this.request = response.request();
+        this.totalBytes = body != null ? body.contentLength() : -1;
+        if (totalBytes <= 0) {
+            IoKit.close(response);
+            throw new InstrumentException("Segmented download requires a known content length");
+        }
+        this.segments = (int) Math.max(1, Math.min(segments, totalBytes / MIN_SEGMENT_BYTES));
+        // 资源在两次下载之间发生变化时，服务端对If-Range返回完整内容，清单随之作废
+        String etag = response.header("ETag");
+        this.validator = etag != null ? etag : response.header("Last-Modified");
+        this.ctrl = new Ctrl();
+    }
+
     /**
      * 设置缓冲区大小，默认 2K（2048）
      *
@@ -137,6 +217,21 @@ public class Download {
         return this;
     }
 
+    /**
+     * 设置分段下载的进度回调，各段的进度汇总后按步长回调
+     *
+     * @param onProcess 进度回调函数
+     * @param stepBytes 回调步长(字节)
+     * @param executor  回调执行器
+     * @return Download
+     */
+    public Download setOnProcess(OnBack<Process> onProcess, long stepBytes, Executor executor) {
+        this.onProcess = onProcess;
+        this.stepBytes = stepBytes > 0 ? stepBytes : Process.DEFAULT_STEP_BYTES;
+        this.processExecutor = executor;
+        return this;
+    }
+
     /**
      * 开始下载
      *
@@ -146,6 +241,10 @@ public class Download {
         if (buffSize == 0) {
             buffSize = Process.DEFAULT_STEP_BYTES;
         }
+        if (segments > 0) {
+            startSegments();
+            return ctrl;
+        }
         RandomAccessFile raFile = randomAccessFile();
         status = Ctrl.STATUS__DOWNLOADING;
         taskExecutor.execute(() -> {
@@ -228,6 +327,319 @@ public class Download {
         }
     }
 
+    /**
+     * 预分配文件，读取清单恢复各段进度，并为每个未完成的段启动下载任务
+     */
+    private void startSegments() {
+        // 须在预分配之前检查：目标文件已被删除或截断时，清单中已完成的段实际已不存在
+        List<Segment> resumed = file.exists() && file.length() == totalBytes ? readManifest() : null;
+        if (resumed == null) {
+            manifestFile().delete();
+        }
+        RandomAccessFile raFile = randomAccessFile();
+        try {
+            if (raFile.length() != totalBytes) {
+                raFile.setLength(totalBytes);
+            }
+            channel = raFile.getChannel();
+            segmentList = resumed;
+            if (segmentList == null) {
+                segmentList = new ArrayList<>(segments);
+                long size = totalBytes / segments;
+                for (int i = 0; i < segments; i++) {
+                    long start = i * size;
+                    long end = i == segments - 1 ? totalBytes - 1 : start + size - 1;
+                    segmentList.add(new Segment(start, end, 0));
+                }
+            }
+        } catch (IOException e) {
+            status = Ctrl.STATUS__ERROR;
+            IoKit.close(raFile);
+            IoKit.close(input);
+            throw new InstrumentException("Can't prepare file [" + file.getAbsolutePath() + "]", e);
+        }
+
+        status = Ctrl.STATUS__DOWNLOADING;
+        List<Segment> pending = new ArrayList<>();
+        for (Segment segment : segmentList) {
+            segmentDoneBytes.addAndGet(segment.done.get());
+            if (!segment.isDone()) {
+                pending.add(segment);
+            }
+        }
+        processStep.set(segmentDoneBytes.get() / Math.max(1, stepBytes));
+
+        Segment first = segmentList.get(0);
+        if (first.done.get() != 0 || first.isDone()) {
+            // 第一段已有进度时，原始响应不能从断点处继续读取
+            IoKit.close(input);
+            input = null;
+        }
+        if (pending.isEmpty()) {
+            runningSegments.set(1);
+            taskExecutor.execute(this::segmentFinished, true);
+            return;
+        }
+        runningSegments.set(pending.size());
+        for (Segment segment : pending) {
+            InputStream in = segment == first ? input : null;
+            taskExecutor.execute(() -> downloadSegment(segment, in), true);
+        }
+    }
+
+    private void downloadSegment(Segment segment, InputStream in) {
+        int retries = 0;
+        try {
+            while (!segment.isDone() && status != Ctrl.STATUS__CANCELED && segmentFailure == null) {
+                try {
+                    if (in == null) {
+                        in = openRange(segment);
+                    }
+                    copySegment(segment, in);
+                    retries = 0;
+                } catch (IOException e) {
+                    if (++retries > SEGMENT_RETRIES || status == Ctrl.STATUS__CANCELED) {
+                        throw e;
+                    }
+                } finally {
+                    IoKit.close(in);
+                    in = null;
+                }
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                if (segmentFailure == null) {
+                    segmentFailure = e;
+                }
+            }
+        } finally {
+            IoKit.close(in);
+            segmentFinished();
+        }
+    }
+
+    /**
+     * 将数据写入段的剩余位置，暂停时等待继续
+     *
+     * @param segment 分段
+     * @param in      输入流
+     * @throws IOException 读写异常
+     */
+    private void copySegment(Segment segment, InputStream in) throws IOException {
+        byte[] buff = new byte[buffSize];
+        while (!segment.isDone()) {
+            if (!awaitDownloading()) {
+                return;
+            }
+            int len = in.read(buff, 0, (int) Math.min(buff.length, segment.remaining()));
+            if (len == -1) {
+                throw new EOFException("Segment " + segment.start + Symbol.HYPHEN + segment.end
+                        + " ended at " + (segment.start + segment.done.get()));
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(buff, 0, len);
+            long position = segment.start + segment.done.get();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            segment.done.addAndGet(len);
+            onSegmentProgress(segmentDoneBytes.addAndGet(len));
+        }
+    }
+
+    /**
+     * 暂停时阻塞直到继续或取消
+     *
+     * @return 是否继续下载
+     */
+    private boolean awaitDownloading() {
+        synchronized (lock) {
+            while (status == Ctrl.STATUS__PAUSED) {
+                saveManifest(true);
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (segmentFailure == null) {
+                        segmentFailure = new InterruptedIOException("Segmented download interrupted");
+                    }
+                    return false;
+                }
+            }
+            return status == Ctrl.STATUS__DOWNLOADING && segmentFailure == null;
+        }
+    }
+
+    private InputStream openRange(Segment segment) throws IOException {
+        Request.Builder builder = request.newBuilder()
+                .header("Range", "bytes=" + (segment.start + segment.done.get()) + Symbol.HYPHEN + segment.end);
+        if (validator != null) {
+            builder.header("If-Range", validator);
+        }
+        Response response = httpd.newCall(builder.build()).execute();
+        ResponseBody body = response.body();
+        if (response.code() != HttpURLConnection.HTTP_PARTIAL || body == null) {
+            IoKit.close(response);
+            throw new IOException("Range request for [" + request.url() + "] returned " + response.code());
+        }
+        return body.byteStream();
+    }
+
+    private void onSegmentProgress(long done) {
+        long now = System.currentTimeMillis();
+        if (now - manifestSavedAt >= MANIFEST_INTERVAL_MILLIS) {
+            saveManifest(false);
+        }
+        if (onProcess == null) {
+            return;
+        }
+        long step = done / stepBytes;
+        long last = processStep.get();
+        if ((step > last || done == totalBytes) && processStep.compareAndSet(last, step + (done == totalBytes ? 1 : 0))) {
+            Process process = new Process(totalBytes, done);
+            processExecutor.execute(() -> onProcess.on(process));
+        }
+    }
+
+    /**
+     * 最后一个结束的段负责收尾：全部完成时删除清单并回调成功，否则保存清单并回调失败
+     */
+    private void segmentFinished() {
+        if (runningSegments.decrementAndGet() != 0) {
+            return;
+        }
+        boolean done = true;
+        for (Segment segment : segmentList) {
+            done &= segment.isDone();
+        }
+        IOException failure = segmentFailure;
+        synchronized (lock) {
+            if (status == Ctrl.STATUS__CANCELED) {
+                done = false;
+            } else if (done) {
+                status = Ctrl.STATUS__DONE;
+            } else {
+                status = Ctrl.STATUS__ERROR;
+                if (failure == null) {
+                    failure = new InterruptedIOException("Segmented download interrupted");
+                }
+            }
+        }
+        IoKit.close(channel);
+        if (status == Ctrl.STATUS__CANCELED) {
+            manifestFile().delete();
+            file.delete();
+        } else if (done) {
+            manifestFile().delete();
+            if (onSuccess != null) {
+                taskExecutor.execute(() -> onSuccess.on(file), sOnIO);
+            }
+        } else {
+            saveManifest(true);
+            IOException e = failure;
+            doneBytes = segmentDoneBytes.get();
+            if (onFailure != null) {
+                taskExecutor.execute(() -> onFailure.on(new Failure(e)), fOnIO);
+            } else {
+                throw new InstrumentException("Streaming failed!", e);
+            }
+        }
+    }
+
+    private File manifestFile() {
+        return new File(file.getPath() + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * 清单格式：第一行为总字节数与校验值，其后每行为一段的起始、结束与已完成字节数
+     *
+     * @return 与当前资源一致的分段，清单不存在或不一致时返回null
+     */
+    private List<Segment> readManifest() {
+        File manifest = manifestFile();
+        if (!manifest.exists()) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8);
+            String header = totalBytes + Symbol.SPACE + (validator != null ? validator : Symbol.HYPHEN);
+            if (lines.size() < 2 || !header.equals(lines.get(0))) {
+                return null;
+            }
+            List<Segment> result = new ArrayList<>(lines.size() - 1);
+            long expected = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                String[] parts = line.split(Symbol.SPACE);
+                Segment segment = new Segment(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                        Long.parseLong(parts[2]));
+                if (segment.start != expected || segment.end < segment.start
+                        || segment.done.get() < 0 || segment.remaining() < 0) {
+                    return null;
+                }
+                expected = segment.end + 1;
+                result.add(segment);
+            }
+            return expected == totalBytes ? result : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 保存各段进度，写入临时文件后替换，避免中断时留下不完整的清单
+     *
+     * @param force 是否忽略保存间隔
+     */
+    private void saveManifest(boolean force) {
+        synchronized (segmentList) {
+            long now = System.currentTimeMillis();
+            if (!force && now - manifestSavedAt < MANIFEST_INTERVAL_MILLIS) {
+                return;
+            }
+            manifestSavedAt = now;
+            StringBuilder builder = new StringBuilder();
+            builder.append(totalBytes).append(Symbol.C_SPACE)
+                    .append(validator != null ? validator : Symbol.HYPHEN).append(Symbol.C_LF);
+            for (Segment segment : segmentList) {
+                builder.append(segment.start).append(Symbol.C_SPACE)
+                        .append(segment.end).append(Symbol.C_SPACE)
+                        .append(segment.done.get()).append(Symbol.C_LF);
+            }
+            File manifest = manifestFile();
+            File temp = new File(manifest.getPath() + ".tmp");
+            try {
+                Files.write(temp.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+                Files.move(temp.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ignored) {
+                // 清单只用于续传，保存失败不影响本次下载
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * 文件中的一段字节范围，{@code end}包含在内
+     */
+    private static class Segment {
+
+        final long start;
+        final long end;
+        final AtomicLong done;
+
+        Segment(long start, long end, long done) {
+            this.start = start;
+            this.end = end;
+            this.done = new AtomicLong(done);
+        }
+
+        long remaining() {
+            return end - start + 1 - done.get();
+        }
+
+        boolean isDone() {
+            return remaining() <= 0;
+        }
+    }
+
     public class Ctrl {
 
         /**
@@ -284,6 +696,7 @@ public class Download {
             synchronized (lock) {
                 if (status == STATUS__PAUSED) {
                     status = STATUS__DOWNLOADING;
+                    lock.notifyAll();
                 }
             }
         }
@@ -295,6 +708,7 @@ public class Download {
             synchronized (lock) {
                 if (status == STATUS__PAUSED || status == STATUS__DOWNLOADING) {
                     status = STATUS__CANCELED;
+                    lock.notifyAll();
                 }
             }
         }
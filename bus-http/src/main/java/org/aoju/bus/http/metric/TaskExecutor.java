@@ -26,7 +26,9 @@
 package org.aoju.bus.http.metric;
 
 import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.http.Httpd;
 import org.aoju.bus.http.OnBack;
+import org.aoju.bus.http.Response;
 import org.aoju.bus.http.Results;
 import org.aoju.bus.http.Results.State;
 import org.aoju.bus.http.metric.http.CoverHttp;
@@ -79,6 +81,14 @@ public final class TaskExecutor {
         return download;
     }
 
+    public Download download(CoverHttp<?> coverHttp, File file, Response response, Httpd httpd, int segments) {
+        Download download = new Download(file, response, this, httpd, segments);
+        if (coverHttp != null && downloadListener != null) {
+            downloadListener.listen(coverHttp, download);
+        }
+        return download;
+    }
+
     public void execute(Runnable command, boolean onIo) {
         Executor executor = ioExecutor;
         if (mainExecutor != null && !onIo) {
@@ -31,6 +31,7 @@ import org.aoju.bus.core.io.resource.FileResource;
 import org.aoju.bus.core.io.resource.Resource;
 import org.aoju.bus.core.io.resource.UriResource;
 import org.aoju.bus.core.io.watchers.SimpleWatcher;
+import org.aoju.bus.core.io.watchers.WatchHub;
 import org.aoju.bus.core.io.watchers.WatchMonitor;
 import org.aoju.bus.core.lang.Assert;
 import org.aoju.bus.core.lang.Charset;
@@ -84,7 +85,7 @@ public class PopSetting extends AbstractSetting implements Map<String, String> {
     protected URL settingUrl;
 
     private Readers readers;
-    private WatchMonitor watchMonitor;
+    private WatchHub.Subscription watchSubscription;
 
     /**
      * 空构造
@@ -209,11 +210,12 @@ public class PopSetting extends AbstractSetting implements Map<String, String> {
     public void autoLoad(boolean autoReload, Consumer<Boolean> callback) {
         if (autoReload) {
             Assert.notNull(this.settingUrl, "Setting URL is null !");
-            if (null != this.watchMonitor) {
+            if (null != this.watchSubscription) {
                 // 先关闭之前的监听
-                this.watchMonitor.close();
+                this.watchSubscription.close();
             }
-            this.watchMonitor = WatchKit.createModify(this.settingUrl, new SimpleWatcher() {
+            // 共享监听线程，合并编辑器保存时产生的多次修改事件
+            this.watchSubscription = WatchKit.subscribe(this.settingUrl, new SimpleWatcher() {
                 @Override
                 public void onModify(WatchEvent<?> event, Path currentPath) {
                     boolean success = load();
@@ -222,12 +224,11 @@ public class PopSetting extends AbstractSetting implements Map<String, String> {
                         callback.accept(success);
                     }
                 }
-            });
-            this.watchMonitor.start();
+            }, WatchHub.DEFAULT_DELAY, WatchMonitor.ENTRY_MODIFY);
             Logger.debug("Auto load for [{}] listenning...", this.settingUrl);
         } else {
-            IoKit.close(this.watchMonitor);
-            this.watchMonitor = null;
+            IoKit.close(this.watchSubscription);
+            this.watchSubscription = null;
         }
     }
 
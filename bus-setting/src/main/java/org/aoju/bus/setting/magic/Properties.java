@@ -33,6 +33,7 @@ import org.aoju.bus.core.io.resource.FileResource;
 import org.aoju.bus.core.io.resource.Resource;
 import org.aoju.bus.core.io.resource.UriResource;
 import org.aoju.bus.core.io.watchers.SimpleWatcher;
+import org.aoju.bus.core.io.watchers.WatchHub;
 import org.aoju.bus.core.io.watchers.WatchMonitor;
 import org.aoju.bus.core.lang.Assert;
 import org.aoju.bus.core.lang.Charset;
@@ -68,7 +69,7 @@ public final class Properties extends java.util.Properties implements BasicType<
      * 属性文件的URL
      */
     private URL propertiesFileUrl;
-    private WatchMonitor watchMonitor;
+    private WatchHub.Subscription watchSubscription;
     /**
      * properties文件编码
      */
@@ -310,20 +311,20 @@ public final class Properties extends java.util.Properties implements BasicType<
     public void autoLoad(boolean autoReload) {
         if (autoReload) {
             Assert.notNull(this.propertiesFileUrl, "Properties URL is null !");
-            if (null != this.watchMonitor) {
+            if (null != this.watchSubscription) {
                 // 先关闭之前的监听
-                this.watchMonitor.close();
+                this.watchSubscription.close();
             }
-            this.watchMonitor = WatchKit.createModify(this.propertiesFileUrl, new SimpleWatcher() {
+            // 共享监听线程，合并编辑器保存时产生的多次修改事件
+            this.watchSubscription = WatchKit.subscribe(this.propertiesFileUrl, new SimpleWatcher() {
                 @Override
                 public void onModify(WatchEvent<?> event, Path currentPath) {
                     load();
                 }
-            });
-            this.watchMonitor.start();
+            }, WatchHub.DEFAULT_DELAY, WatchMonitor.ENTRY_MODIFY);
         } else {
-            IoKit.close(this.watchMonitor);
-            this.watchMonitor = null;
+            IoKit.close(this.watchSubscription);
+            this.watchSubscription = null;
         }
     }
 